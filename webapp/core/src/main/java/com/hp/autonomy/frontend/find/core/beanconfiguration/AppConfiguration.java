@@ -20,6 +20,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.filter.CharacterEncodingFilter;
 import org.springframework.web.servlet.LocaleResolver;
 import org.springframework.web.servlet.i18n.SessionLocaleResolver;
@@ -29,9 +30,11 @@ import java.util.Locale;
 import java.util.Set;
 
 /**
- * Contains beans useful in all configurations
+ * Contains beans useful in all configurations. Enables scheduling for the {@code @Scheduled} maintenance tasks of
+ * services such as the stats and export job services.
  */
 @Configuration
+@EnableScheduling
 @PropertySource("classpath:/version.properties")
 public class AppConfiguration<C extends Config<C>> {
     public static final String APPLICATION_RELEASE_VERSION_PROPERTY = "${application.releaseVersion}";
@@ -5,9 +5,13 @@
 
 package com.hp.autonomy.frontend.find.core.beanconfiguration;
 
+import com.hp.autonomy.frontend.find.core.configuration.OffHeapStore;
 import net.sf.ehcache.CacheManager;
 import net.sf.ehcache.config.CacheConfiguration;
+import net.sf.ehcache.config.MemoryUnit;
+import net.sf.ehcache.config.SizeOfPolicyConfiguration;
 import net.sf.ehcache.store.MemoryStoreEvictionPolicy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
@@ -15,11 +19,19 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 @Conditional(InMemoryCondition.class)
 public class InMemoryConfiguration {
+    private static final String CACHE_MAX_HEAP_PROPERTY_KEY = "find.cache.maxHeap";
+    private static final String CACHE_MAX_HEAP_DEFAULT = "25%";
+    private static final String CACHE_MAX_HEAP_PROPERTY = "${" + CACHE_MAX_HEAP_PROPERTY_KEY + ':' + CACHE_MAX_HEAP_DEFAULT + '}';
+    private static final String CACHE_MAX_OFF_HEAP_PROPERTY_KEY = "find.cache.maxOffHeap";
+    private static final String CACHE_MAX_OFF_HEAP_DEFAULT = "0";
+    private static final String CACHE_MAX_OFF_HEAP_PROPERTY = "${" + CACHE_MAX_OFF_HEAP_PROPERTY_KEY + ':' + CACHE_MAX_OFF_HEAP_DEFAULT + '}';
+    private static final int SIZE_OF_MAX_DEPTH = 100000;
+
     @Bean
     public CacheConfiguration defaultCacheConfiguration() {
+        // Caches are bounded by the heap they use, from the cache manager's pool, rather than their number of entries
         return new CacheConfiguration()
                 .eternal(false)
-                .maxElementsInMemory(1000)
                 .overflowToDisk(false)
                 .diskPersistent(false)
                 .timeToIdleSeconds(0)
@@ -28,11 +40,25 @@ public class InMemoryConfiguration {
     }
 
     @Bean(destroyMethod = "shutdown")
-    public CacheManager cacheManager() {
+    public CacheManager cacheManager(@Value(CACHE_MAX_HEAP_PROPERTY) final String maxHeap) {
         final net.sf.ehcache.config.Configuration configuration = new net.sf.ehcache.config.Configuration()
                 .defaultCache(defaultCacheConfiguration())
+                .sizeOfPolicy(new SizeOfPolicyConfiguration()
+                        .maxDepth(SIZE_OF_MAX_DEPTH)
+                        .maxDepthExceededBehavior(SizeOfPolicyConfiguration.MaxDepthExceededBehavior.CONTINUE))
                 .updateCheck(false);
 
+        configuration.setMaxBytesLocalHeap(maxHeap);
+
         return new CacheManager(configuration);
     }
+
+    /**
+     * Optional off-heap tier for the in-memory caches, sized like "2G". Disabled by default; direct memory available
+     * to the JVM may need raising with -XX:MaxDirectMemorySize to match.
+     */
+    @Bean
+    public OffHeapStore offHeapStore(@Value(CACHE_MAX_OFF_HEAP_PROPERTY) final String maxOffHeap) {
+        return new OffHeapStore(MemoryUnit.parseSizeInBytes(maxOffHeap));
+    }
 }
@@ -6,24 +6,47 @@
 package com.hp.autonomy.frontend.find.core.configuration;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.hp.autonomy.frontend.find.core.beanconfiguration.InMemoryCondition;
+import com.hp.autonomy.frontend.find.core.web.FindCacheNames;
 import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
 import net.sf.ehcache.config.CacheConfiguration;
+import org.springframework.boot.actuate.metrics.CounterService;
 import org.springframework.cache.Cache;
 import org.springframework.cache.ehcache.EhCacheCache;
 import org.springframework.cache.ehcache.EhCacheCacheManager;
 import org.springframework.context.annotation.Conditional;
 
+import javax.annotation.PreDestroy;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @Conditional(InMemoryCondition.class)
 public abstract class AutoCreatingEhCacheCacheManager extends EhCacheCacheManager {
+    private static final int REFRESH_THREADS = 2;
+    private static final int REFRESH_QUEUE_SIZE = 100;
+    // A little longer than a slow query; waiting any longer only delays callers queued behind a load which has failed
+    private static final long LOAD_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+    private final ExecutorService refreshExecutor = new ThreadPoolExecutor(REFRESH_THREADS, REFRESH_THREADS, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(REFRESH_QUEUE_SIZE),
+            new ThreadFactoryBuilder().setNameFormat("cache-refresh-%d").setDaemon(true).build());
     private final Map<String, Long> cacheExpires;
     private final CacheConfiguration defaults;
+    private final CounterService counterService;
+    private final OffHeapStore offHeapStore;
 
-    protected AutoCreatingEhCacheCacheManager(final CacheManager cacheManager, final Map<String, Long> cacheExpires, final CacheConfiguration defaults) {
+    @SuppressWarnings("ConstructorWithTooManyParameters")
+    protected AutoCreatingEhCacheCacheManager(final CacheManager cacheManager, final Map<String, Long> cacheExpires, final CacheConfiguration defaults, final CounterService counterService, final OffHeapStore offHeapStore) {
         super(cacheManager);
         this.defaults = defaults;
+        this.counterService = counterService;
+        this.offHeapStore = offHeapStore;
         this.cacheExpires = ImmutableMap.copyOf(cacheExpires);
     }
 
@@ -37,17 +60,68 @@ public abstract class AutoCreatingEhCacheCacheManager extends EhCacheCacheManage
             final String cacheName = getCacheName(name);
 
             if (cacheExpires.containsKey(cacheName)) {
-                cacheConfiguration.setTimeToLiveSeconds(cacheExpires.get(cacheName));
+                // Stale entries are kept for their grace period so that they can be served while being refreshed
+                cacheConfiguration.setTimeToLiveSeconds(cacheExpires.get(cacheName) + FindCacheNames.CACHE_STALE_WHILE_REVALIDATE.getOrDefault(cacheName, 0L));
             }
 
+            final String maxHeap = getMaxHeap(cacheName);
+
+            if (maxHeap != null) {
+                cacheConfiguration.setMaxBytesLocalHeap(maxHeap);
+            }
+
+            // Adding the cache to the manager sizes it against the manager's heap pool
             final net.sf.ehcache.Cache ehcache = new net.sf.ehcache.Cache(cacheConfiguration);
-            ehcache.initialise();
+            getCacheManager().addCache(ehcache);
 
-            return new EhCacheCache(ehcache);
+            return offHeapStore.isEnabled() ? new OffHeapTieredCache(ehcache, offHeapStore) : new EhCacheCache(ehcache);
         } else {
             return missingCache;
         }
     }
 
+    @Override
+    protected Cache decorateCache(final Cache cache) {
+        final String cacheName = getCacheName(cache.getName());
+        final Cache decoratedCache = super.decorateCache(cache);
+
+        final Cache revalidatingCache = cacheExpires.containsKey(cacheName) && FindCacheNames.CACHE_STALE_WHILE_REVALIDATE.containsKey(cacheName)
+                ? new RevalidatingCache(decoratedCache, TimeUnit.SECONDS.toMillis(cacheExpires.get(cacheName)), LOAD_TIMEOUT_MILLIS, refreshExecutor)
+                : decoratedCache;
+
+        return new InstrumentedCache(revalidatingCache, cacheName, counterService);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * @return the on-heap size of each cache in bytes, combining caches with the same unqualified name
+     */
+    public Map<String, Long> getHeapSizes() {
+        final Map<String, Long> heapSizes = new TreeMap<>();
+
+        for (final String name : getCacheManager().getCacheNames()) {
+            final Ehcache ehcache = getCacheManager().getEhcache(name);
+
+            if (ehcache != null) {
+                heapSizes.merge(getCacheName(name), ehcache.getStatistics().getLocalHeapSizeInBytes(), Long::sum);
+            }
+        }
+
+        return heapSizes;
+    }
+
+    /**
+     * @param cacheName the unqualified cache name
+     * @return the heap budget for the cache, as a size ("64M") or a percentage of the manager's pool ("10%"), or null
+     * if the cache should share the remainder of the pool
+     */
+    protected String getMaxHeap(final String cacheName) {
+        return null;
+    }
+
     protected abstract String getCacheName(final String name);
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.configuration;
+
+import com.hp.autonomy.frontend.find.core.beanconfiguration.InMemoryCondition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.hp.autonomy.frontend.find.core.metrics.MetricsConfiguration.METRIC_NAME_SEPARATOR;
+
+/**
+ * Publishes the heap used by each in-memory cache, e.g. cache.documents.heap, and the size of the off-heap tier
+ */
+@Component
+@Conditional(InMemoryCondition.class)
+class CacheHeapPublicMetrics implements PublicMetrics {
+    static final String HEAP_METRIC_NAME_SUFFIX = METRIC_NAME_SEPARATOR + "heap";
+    static final String OFF_HEAP_METRIC_NAME = InstrumentedCache.CACHE_METRIC_NAME_PREFIX + "offHeap";
+
+    private final AutoCreatingEhCacheCacheManager cacheManager;
+    private final OffHeapStore offHeapStore;
+
+    @Autowired
+    public CacheHeapPublicMetrics(final AutoCreatingEhCacheCacheManager cacheManager, final OffHeapStore offHeapStore) {
+        this.cacheManager = cacheManager;
+        this.offHeapStore = offHeapStore;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        final List<Metric<?>> metrics = cacheManager.getHeapSizes().entrySet().stream()
+                .<Metric<?>>map(entry -> new Metric<>(InstrumentedCache.CACHE_METRIC_NAME_PREFIX + entry.getKey() + HEAP_METRIC_NAME_SUFFIX, entry.getValue()))
+                .collect(Collectors.toList());
+
+        if (offHeapStore.isEnabled()) {
+            metrics.add(new Metric<>(OFF_HEAP_METRIC_NAME, offHeapStore.getUsedBytes()));
+        }
+
+        return metrics;
+    }
+}
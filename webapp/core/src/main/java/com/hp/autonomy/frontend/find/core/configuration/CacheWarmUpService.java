@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.configuration;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.hp.autonomy.frontend.find.core.beanconfiguration.FindRole;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the {@link CacheWarmUpTask}s in the background once the application has started. The health endpoint reports
+ * the application as out of service until they have finished, so that load balancers do not send it traffic while its
+ * caches are cold.
+ * <p>
+ * The tasks are not run on behalf of any user, so they run as {@link #SYSTEM_AUTHENTICATION} rather than with whatever
+ * security context the starting thread happens to have.
+ */
+@Slf4j
+@Component
+public class CacheWarmUpService extends AbstractHealthIndicator implements ApplicationListener<ApplicationReadyEvent> {
+    private static final String WARM_UP_ENABLED_PROPERTY_KEY = "find.cache.warmUp.enabled";
+    private static final boolean WARM_UP_ENABLED_DEFAULT = true;
+    private static final String WARM_UP_ENABLED_PROPERTY = "${" + WARM_UP_ENABLED_PROPERTY_KEY + ':' + WARM_UP_ENABLED_DEFAULT + '}';
+    private static final String SYSTEM_NAME = "cache-warm-up";
+
+    static final Authentication SYSTEM_AUTHENTICATION = new AnonymousAuthenticationToken(SYSTEM_NAME, SYSTEM_NAME, AuthorityUtils.createAuthorityList(FindRole.USER.toString()));
+
+    private final List<CacheWarmUpTask> tasks;
+    private volatile boolean warm;
+
+    @Autowired
+    public CacheWarmUpService(final Optional<List<CacheWarmUpTask>> tasks, @Value(WARM_UP_ENABLED_PROPERTY) final boolean enabled) {
+        this.tasks = tasks.orElse(Collections.emptyList());
+        warm = !enabled;
+    }
+
+    @Override
+    public void onApplicationEvent(final ApplicationReadyEvent event) {
+        if (!warm) {
+            final SecurityContext securityContext = new SecurityContextImpl();
+            securityContext.setAuthentication(SYSTEM_AUTHENTICATION);
+
+            final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat(SYSTEM_NAME).setDaemon(true).build());
+            new DelegatingSecurityContextExecutorService(executor, securityContext).submit(this::warmUp);
+
+            // The thread exits once the warm up has finished
+            executor.shutdown();
+        }
+    }
+
+    @Override
+    protected void doHealthCheck(final Health.Builder builder) {
+        if (warm) {
+            builder.up();
+        } else {
+            builder.outOfService().withDetail("cacheWarmUp", "in progress");
+        }
+    }
+
+    void warmUp() {
+        final long start = System.currentTimeMillis();
+
+        for (final CacheWarmUpTask task : tasks) {
+            try {
+                task.warmUp();
+            } catch (final Exception e) {
+                // A failed request will be made again by the first user who needs it
+                log.warn("Cache warm up failed for {}", task.getName(), e);
+            }
+        }
+
+        log.info("Cache warm up of {} tasks finished in {}ms", tasks.size(), System.currentTimeMillis() - start);
+        warm = true;
+    }
+}
@@ -0,0 +1,19 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.configuration;
+
+/**
+ * Makes requests whose results are the same for every user, so that they are cached before the first user needs them.
+ * Run by the {@link CacheWarmUpService} once the application has started.
+ */
+public interface CacheWarmUpTask {
+    /**
+     * @return a short description of the requests, for logging
+     */
+    String getName();
+
+    void warmUp() throws Exception;
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.configuration;
+
+import com.hp.autonomy.searchcomponents.core.parametricvalues.ParametricRequest;
+import com.hp.autonomy.searchcomponents.core.parametricvalues.ParametricRequestBuilder;
+import com.hp.autonomy.searchcomponents.core.search.QueryRequest;
+import com.hp.autonomy.searchcomponents.core.search.QueryRequestBuilder;
+import com.hp.autonomy.searchcomponents.core.search.QueryRestrictions;
+import com.hp.autonomy.searchcomponents.core.search.QueryRestrictionsBuilder;
+import org.apache.commons.collections4.ListUtils;
+import org.joda.time.DateTime;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKeyGenerator;
+import org.springframework.stereotype.Component;
+
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates cache keys from canonical forms of query requests, so that requests which differ only in database or
+ * state token order, field text whitespace or a few seconds of date range share a cache entry.
+ * <p>
+ * Dates may also be rounded down to a configured bucket size, which is 0 (off) by default. Cached methods which use
+ * this key generator with bucketing enabled must execute the request returned by {@link #roundDates(Object)}, so that
+ * the key and the cached value always describe the same query.
+ */
+@Component(CanonicalCacheKeyGenerator.BEAN_NAME)
+public class CanonicalCacheKeyGenerator implements KeyGenerator {
+    public static final String BEAN_NAME = "canonicalCacheKeyGenerator";
+
+    private static final String DATE_BUCKET_SECONDS_PROPERTY_KEY = "find.cache.dateBucketSeconds";
+    private static final int DATE_BUCKET_SECONDS_DEFAULT = 0;
+    private static final String DATE_BUCKET_SECONDS_PROPERTY = "${" + DATE_BUCKET_SECONDS_PROPERTY_KEY + ':' + DATE_BUCKET_SECONDS_DEFAULT + '}';
+
+    private static final Comparator<Serializable> DATABASE_COMPARATOR = Comparator.comparing(Object::toString);
+
+    private final long dateBucketMillis;
+
+    @Autowired
+    public CanonicalCacheKeyGenerator(@Value(DATE_BUCKET_SECONDS_PROPERTY) final int dateBucketSeconds) {
+        dateBucketMillis = TimeUnit.SECONDS.toMillis(dateBucketSeconds);
+    }
+
+    @Override
+    public Object generate(final Object target, final Method method, final Object... params) {
+        return SimpleKeyGenerator.generateKey(canonicalise(params));
+    }
+
+    /**
+     * Replaces any query requests, parametric requests or query restrictions in the given parameters with their
+     * canonical forms. Other parameters are returned unchanged.
+     */
+    public Object[] canonicalise(final Object... params) {
+        final Object[] canonicalParams = new Object[params.length];
+
+        for (int i = 0; i < params.length; i++) {
+            canonicalParams[i] = canonicalise(params[i]);
+        }
+
+        return canonicalParams;
+    }
+
+    /**
+     * Rounds the dates in a query request, parametric request or query restrictions down to the configured bucket
+     * size, as they are in the cache key. Returns the parameter unchanged if date bucketing is disabled.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <T> T roundDates(final T param) {
+        if (dateBucketMillis <= 0) {
+            return param;
+        }
+
+        if (param instanceof QueryRequest) {
+            final QueryRequest<?> queryRequest = (QueryRequest<?>) param;
+            return (T) ((QueryRequestBuilder) queryRequest.toBuilder())
+                    .queryRestrictions(roundDates(queryRequest.getQueryRestrictions()))
+                    .build();
+        } else if (param instanceof ParametricRequest) {
+            final ParametricRequest<?> parametricRequest = (ParametricRequest<?>) param;
+            return (T) ((ParametricRequestBuilder) parametricRequest.toBuilder())
+                    .queryRestrictions(roundDates(parametricRequest.getQueryRestrictions()))
+                    .build();
+        } else if (param instanceof QueryRestrictions) {
+            final QueryRestrictions<?> queryRestrictions = (QueryRestrictions<?>) param;
+            return (T) ((QueryRestrictionsBuilder) queryRestrictions.toBuilder())
+                    .minDate(bucket(queryRestrictions.getMinDate()))
+                    .maxDate(bucket(queryRestrictions.getMaxDate()))
+                    .build();
+        } else {
+            return param;
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object canonicalise(final Object param) {
+        if (param instanceof QueryRequest) {
+            final QueryRequest<?> queryRequest = (QueryRequest<?>) param;
+            return ((QueryRequestBuilder) queryRequest.toBuilder())
+                    .queryRestrictions(canonicaliseRestrictions(queryRequest.getQueryRestrictions()))
+                    .build();
+        } else if (param instanceof ParametricRequest) {
+            final ParametricRequest<?> parametricRequest = (ParametricRequest<?>) param;
+            return ((ParametricRequestBuilder) parametricRequest.toBuilder())
+                    .queryRestrictions(canonicaliseRestrictions(parametricRequest.getQueryRestrictions()))
+                    .build();
+        } else if (param instanceof QueryRestrictions) {
+            return canonicaliseRestrictions((QueryRestrictions<?>) param);
+        } else {
+            return param;
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private QueryRestrictions<?> canonicaliseRestrictions(final QueryRestrictions<?> queryRestrictions) {
+        if (queryRestrictions == null) {
+            return null;
+        }
+
+        final List<Serializable> databases = new ArrayList<>(queryRestrictions.getDatabases());
+        databases.sort(DATABASE_COMPARATOR);
+
+        final List<String> stateMatchIds = new ArrayList<>(ListUtils.emptyIfNull(queryRestrictions.getStateMatchIds()));
+        stateMatchIds.sort(Comparator.naturalOrder());
+
+        return (QueryRestrictions<?>) ((QueryRestrictionsBuilder) queryRestrictions.toBuilder())
+                .databases(databases)
+                .stateMatchIds(stateMatchIds)
+                .fieldText(normaliseFieldText(queryRestrictions.getFieldText()))
+                .minDate(bucket(queryRestrictions.getMinDate()))
+                .maxDate(bucket(queryRestrictions.getMaxDate()))
+                .build();
+    }
+
+    /**
+     * Collapses runs of whitespace outside of braces, leaving field values untouched.
+     */
+    static String normaliseFieldText(final String fieldText) {
+        if (fieldText == null) {
+            return null;
+        }
+
+        final String trimmed = fieldText.trim();
+        final StringBuilder builder = new StringBuilder(trimmed.length());
+        int depth = 0;
+        boolean pendingSpace = false;
+
+        for (final char c : trimmed.toCharArray()) {
+            if (depth == 0 && Character.isWhitespace(c)) {
+                pendingSpace = true;
+                continue;
+            }
+
+            if (pendingSpace) {
+                builder.append(' ');
+                pendingSpace = false;
+            }
+
+            if (c == '{') {
+                depth++;
+            } else if (c == '}' && depth > 0) {
+                depth--;
+            }
+
+            builder.append(c);
+        }
+
+        return builder.toString();
+    }
+
+    private DateTime bucket(final DateTime date) {
+        if (date == null || dateBucketMillis <= 0) {
+            return date;
+        }
+
+        final long millis = date.getMillis();
+        return new DateTime(millis - Math.floorMod(millis, dateBucketMillis), date.getZone());
+    }
+}
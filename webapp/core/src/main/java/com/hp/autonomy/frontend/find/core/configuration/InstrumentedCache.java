@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.configuration;
+
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hp.autonomy.frontend.find.core.metrics.MetricsConfiguration.METRIC_NAME_SEPARATOR;
+
+/**
+ * {@link Cache} decorator which counts hits and misses against a metric named after the cache, e.g. cache.documents.hit
+ */
+public class InstrumentedCache implements Cache {
+    static final String CACHE_METRIC_NAME_PREFIX = "cache" + METRIC_NAME_SEPARATOR;
+    static final String HIT_METRIC_NAME_SUFFIX = METRIC_NAME_SEPARATOR + "hit";
+    static final String MISS_METRIC_NAME_SUFFIX = METRIC_NAME_SEPARATOR + "miss";
+
+    private final Cache delegate;
+    private final CounterService counterService;
+    private final String hitMetricName;
+    private final String missMetricName;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * @param delegate       the cache to decorate
+     * @param metricName     name of the cache as it should appear in metrics (without any per-user qualification)
+     * @param counterService destination for hit and miss counts
+     */
+    public InstrumentedCache(final Cache delegate, final String metricName, final CounterService counterService) {
+        this.delegate = delegate;
+        this.counterService = counterService;
+        hitMetricName = CACHE_METRIC_NAME_PREFIX + metricName + HIT_METRIC_NAME_SUFFIX;
+        missMetricName = CACHE_METRIC_NAME_PREFIX + metricName + MISS_METRIC_NAME_SUFFIX;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(final Object key) {
+        final ValueWrapper value = delegate.get(key);
+        record(value != null);
+        return value;
+    }
+
+    @Override
+    public <T> T get(final Object key, final Class<T> type) {
+        final T value = delegate.get(key, type);
+        record(value != null);
+        return value;
+    }
+
+    @Override
+    public <T> T get(final Object key, final Callable<T> valueLoader) {
+        final AtomicBoolean loaded = new AtomicBoolean(false);
+
+        final T value = delegate.get(key, () -> {
+            loaded.set(true);
+            return valueLoader.call();
+        });
+
+        record(!loaded.get());
+        return value;
+    }
+
+    @Override
+    public void put(final Object key, final Object value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(final Object key, final Object value) {
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(final Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    private void record(final boolean hit) {
+        if (hit) {
+            hitCount.incrementAndGet();
+            counterService.increment(hitMetricName);
+        } else {
+            missCount.incrementAndGet();
+            counterService.increment(missMetricName);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.configuration;
+
+import net.sf.ehcache.Ehcache;
+import org.springframework.boot.actuate.cache.CacheStatistics;
+import org.springframework.boot.actuate.cache.CacheStatisticsProvider;
+import org.springframework.boot.actuate.cache.DefaultCacheStatistics;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the hit and miss ratios of {@link InstrumentedCache}s through the actuator metrics endpoint, e.g.
+ * cache.documents.hit.ratio
+ */
+@Component
+class InstrumentedCacheStatisticsProvider implements CacheStatisticsProvider<InstrumentedCache> {
+    @Override
+    public CacheStatistics getCacheStatistics(final CacheManager cacheManager, final InstrumentedCache cache) {
+        final DefaultCacheStatistics statistics = new DefaultCacheStatistics();
+
+        final Object nativeCache = cache.getNativeCache();
+        if (nativeCache instanceof Ehcache) {
+            statistics.setSize((long) ((Ehcache) nativeCache).getSize());
+        }
+
+        final long hits = cache.getHitCount();
+        final long misses = cache.getMissCount();
+        if (hits + misses > 0) {
+            statistics.setGetCacheCounts(hits, misses);
+        }
+
+        return statistics;
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.configuration;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Second cache tier which holds compressed, serialized values in direct memory, outside of the garbage collected heap.
+ * A store with a size of 0 is disabled and holds nothing.
+ * <p>
+ * The memory is allocated up front as one slab per segment, each divided into fixed size blocks which are reused as
+ * entries come and go. Entries are spread over the segments by key, and each segment has its own lock and evicts its
+ * least recently used entries once its blocks run out.
+ */
+@Slf4j
+public class OffHeapStore {
+    static final int BLOCK_SIZE = 512;
+
+    private static final int MAX_SEGMENTS = 16;
+    private static final long MIN_SEGMENT_BYTES = 1024 * 1024;
+    private static final long MAX_SEGMENT_BYTES = Integer.MAX_VALUE / BLOCK_SIZE * (long) BLOCK_SIZE;
+
+    private final Segment[] segments;
+
+    public OffHeapStore(final long maxBytes) {
+        if (maxBytes <= 0) {
+            segments = new Segment[0];
+        } else {
+            final int segmentCount = (int) Math.max(1, Math.min(MAX_SEGMENTS, maxBytes / MIN_SEGMENT_BYTES));
+            final long segmentBytes = maxBytes / segmentCount;
+
+            if (segmentBytes > MAX_SEGMENT_BYTES) {
+                throw new IllegalArgumentException("Off-heap store size " + maxBytes + " is larger than the maximum of " + MAX_SEGMENT_BYTES * MAX_SEGMENTS);
+            }
+
+            segments = new Segment[segmentCount];
+
+            for (int i = 0; i < segmentCount; i++) {
+                segments[i] = new Segment((int) (segmentBytes / BLOCK_SIZE));
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return segments.length > 0;
+    }
+
+    /**
+     * @return the size of the blocks currently holding entries
+     */
+    public long getUsedBytes() {
+        long usedBytes = 0;
+
+        for (final Segment segment : segments) {
+            usedBytes += segment.getUsedBytes();
+        }
+
+        return usedBytes;
+    }
+
+    /**
+     * Stores a value until the given time. Values which are not serializable, or which are larger than a segment, are
+     * ignored.
+     */
+    public void put(final String cacheName, final Object key, final Object value, final long expiresAt) {
+        if (!isEnabled() || !(value instanceof Serializable)) {
+            return;
+        }
+
+        final byte[] bytes;
+
+        try {
+            bytes = serialize(value);
+        } catch (final IOException e) {
+            log.debug("Not moving value for key {} in cache {} off-heap", key, cacheName, e);
+            return;
+        }
+
+        final StoreKey storeKey = new StoreKey(cacheName, key);
+        segmentFor(storeKey).put(storeKey, bytes, expiresAt);
+    }
+
+    /**
+     * Removes and returns a value, so that it can be promoted back to the heap tier.
+     *
+     * @return the value and the time it expires, or null if there is no unexpired value for the key
+     */
+    public ExpiringValue remove(final String cacheName, final Object key) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        final StoreKey storeKey = new StoreKey(cacheName, key);
+        final ExpiringBytes expiringBytes = segmentFor(storeKey).remove(storeKey);
+
+        if (expiringBytes == null || expiringBytes.getExpiresAt() <= System.currentTimeMillis()) {
+            return null;
+        }
+
+        try {
+            return new ExpiringValue(deserialize(expiringBytes.getBytes()), expiringBytes.getExpiresAt());
+        } catch (final IOException | ClassNotFoundException e) {
+            log.warn("Discarding unreadable off-heap value for key {} in cache {}", key, cacheName, e);
+            return null;
+        }
+    }
+
+    public void clear(final String cacheName) {
+        for (final Segment segment : segments) {
+            segment.clear(cacheName);
+        }
+    }
+
+    private Segment segmentFor(final StoreKey storeKey) {
+        // spread the hash so that keys which differ only in their high bits use different segments
+        final int hash = storeKey.hashCode();
+        return segments[Math.floorMod(hash ^ (hash >>> 16), segments.length)];
+    }
+
+    private static byte[] serialize(final Object value) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+        try (final ObjectOutputStream objectOutputStream = new ObjectOutputStream(new DeflaterOutputStream(outputStream, deflater))) {
+            objectOutputStream.writeObject(value);
+        } finally {
+            deflater.end();
+        }
+
+        return outputStream.toByteArray();
+    }
+
+    private static Object deserialize(final byte[] bytes) throws IOException, ClassNotFoundException {
+        try (final ObjectInputStream objectInputStream = new ObjectInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes)))) {
+            return objectInputStream.readObject();
+        }
+    }
+
+    @Data
+    public static class ExpiringValue {
+        private final Object value;
+        private final long expiresAt;
+    }
+
+    @Data
+    private static class StoreKey {
+        private final String cacheName;
+        private final Object key;
+    }
+
+    @Data
+    private static class ExpiringBytes {
+        private final byte[] bytes;
+        private final long expiresAt;
+    }
+
+    @Data
+    private static class Entry {
+        private final int[] blocks;
+        private final int length;
+        private final long expiresAt;
+    }
+
+    /**
+     * A slab of blocks and the entries stored in them. All access is synchronized on the segment.
+     */
+    private static class Segment {
+        private final ByteBuffer slab;
+        private final int[] freeBlocks;
+        private final Map<StoreKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private int freeBlockCount;
+
+        private Segment(final int blockCount) {
+            slab = ByteBuffer.allocateDirect(blockCount * BLOCK_SIZE);
+            freeBlocks = new int[blockCount];
+            freeBlockCount = blockCount;
+
+            for (int i = 0; i < blockCount; i++) {
+                freeBlocks[i] = i;
+            }
+        }
+
+        private synchronized long getUsedBytes() {
+            return (long) (freeBlocks.length - freeBlockCount) * BLOCK_SIZE;
+        }
+
+        private synchronized void put(final StoreKey storeKey, final byte[] bytes, final long expiresAt) {
+            final int requiredBlocks = (bytes.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+
+            release(entries.remove(storeKey));
+
+            if (requiredBlocks > freeBlocks.length) {
+                return;
+            }
+
+            final Iterator<Entry> iterator = entries.values().iterator();
+            while (freeBlockCount < requiredBlocks && iterator.hasNext()) {
+                release(iterator.next());
+                iterator.remove();
+            }
+
+            final int[] blocks = new int[requiredBlocks];
+
+            for (int i = 0; i < requiredBlocks; i++) {
+                blocks[i] = freeBlocks[--freeBlockCount];
+
+                final int offset = i * BLOCK_SIZE;
+                final ByteBuffer block = slab.duplicate();
+                block.position(blocks[i] * BLOCK_SIZE);
+                block.put(bytes, offset, Math.min(BLOCK_SIZE, bytes.length - offset));
+            }
+
+            entries.put(storeKey, new Entry(blocks, bytes.length, expiresAt));
+        }
+
+        private synchronized ExpiringBytes remove(final StoreKey storeKey) {
+            final Entry entry = entries.remove(storeKey);
+
+            if (entry == null) {
+                return null;
+            }
+
+            final byte[] bytes = new byte[entry.getLength()];
+            final int[] blocks = entry.getBlocks();
+
+            for (int i = 0; i < blocks.length; i++) {
+                final int offset = i * BLOCK_SIZE;
+                final ByteBuffer block = slab.duplicate();
+                block.position(blocks[i] * BLOCK_SIZE);
+                block.get(bytes, offset, Math.min(BLOCK_SIZE, bytes.length - offset));
+            }
+
+            release(entry);
+            return new ExpiringBytes(bytes, entry.getExpiresAt());
+        }
+
+        private synchronized void clear(final String cacheName) {
+            final Iterator<Map.Entry<StoreKey, Entry>> iterator = entries.entrySet().iterator();
+
+            while (iterator.hasNext()) {
+                final Map.Entry<StoreKey, Entry> entry = iterator.next();
+
+                if (entry.getKey().getCacheName().equals(cacheName)) {
+                    release(entry.getValue());
+                    iterator.remove();
+                }
+            }
+        }
+
+        private void release(final Entry entry) {
+            if (entry != null) {
+                for (final int block : entry.getBlocks()) {
+                    freeBlocks[freeBlockCount++] = block;
+                }
+            }
+        }
+    }
+}
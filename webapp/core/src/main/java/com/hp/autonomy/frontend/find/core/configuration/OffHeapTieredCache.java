@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.configuration;
+
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+import net.sf.ehcache.event.CacheEventListenerAdapter;
+import org.springframework.cache.Cache;
+import org.springframework.cache.ehcache.EhCacheCache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ehcache backed {@link Cache} with an {@link OffHeapStore} behind it. Entries evicted from the heap are moved to the
+ * off-heap store, and moved back to the heap with their remaining time to live when they are next read.
+ */
+class OffHeapTieredCache implements Cache {
+    private final EhCacheCache delegate;
+    private final Ehcache ehcache;
+    private final OffHeapStore offHeapStore;
+
+    OffHeapTieredCache(final Ehcache ehcache, final OffHeapStore offHeapStore) {
+        this.ehcache = ehcache;
+        this.offHeapStore = offHeapStore;
+        delegate = new EhCacheCache(ehcache);
+
+        ehcache.getCacheEventNotificationService().registerListener(new CacheEventListenerAdapter() {
+            @Override
+            public void notifyElementEvicted(final Ehcache cache, final Element element) {
+                offHeapStore.put(cache.getName(), element.getObjectKey(), element.getObjectValue(), element.getExpirationTime());
+            }
+        });
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return ehcache;
+    }
+
+    @Override
+    public ValueWrapper get(final Object key) {
+        final ValueWrapper value = delegate.get(key);
+        return value == null ? promote(key) : value;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T get(final Object key, final Class<T> type) {
+        final ValueWrapper value = get(key);
+
+        if (value == null) {
+            return null;
+        } else if (type != null && !type.isInstance(value.get())) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value.get());
+        } else {
+            return (T) value.get();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T get(final Object key, final Callable<T> valueLoader) {
+        final ValueWrapper value = get(key);
+        return value == null ? delegate.get(key, valueLoader) : (T) value.get();
+    }
+
+    @Override
+    public void put(final Object key, final Object value) {
+        offHeapStore.remove(getName(), key);
+        delegate.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(final Object key, final Object value) {
+        final ValueWrapper existingValue = get(key);
+        return existingValue == null ? delegate.putIfAbsent(key, value) : existingValue;
+    }
+
+    @Override
+    public void evict(final Object key) {
+        offHeapStore.remove(getName(), key);
+        delegate.evict(key);
+    }
+
+    @Override
+    public void clear() {
+        offHeapStore.clear(getName());
+        delegate.clear();
+    }
+
+    private ValueWrapper promote(final Object key) {
+        final OffHeapStore.ExpiringValue value = offHeapStore.remove(getName(), key);
+
+        if (value == null) {
+            return null;
+        }
+
+        final long timeToLiveSeconds = TimeUnit.MILLISECONDS.toSeconds(value.getExpiresAt() - System.currentTimeMillis());
+
+        if (timeToLiveSeconds > 0) {
+            ehcache.put(new Element(key, value.getValue(), false, 0, (int) Math.min(timeToLiveSeconds, Integer.MAX_VALUE)));
+        }
+
+        return new SimpleValueWrapper(value.getValue());
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.configuration;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+
+import java.io.Serializable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link Cache} decorator which stops concurrent requests for the same missing or expired entry all going to the
+ * backend at once.
+ * <p>
+ * Concurrent misses from callers which supply a value loader are coalesced: the first caller loads the value and the
+ * others wait for it, up to the load timeout, after which they load it themselves. Spring only supplies a value loader
+ * to methods annotated with {@code @Cacheable(sync = true)}, so cached backend calls should use it. Callers of
+ * {@link #get(Object)} are never made to wait, as a caller which misses and then fails to load the value has no way to
+ * tell the others.
+ * <p>
+ * Entries go stale after their time to live but are kept by the underlying cache for a further grace period, during
+ * which one caller refreshes the entry and the others are served the stale value. Callers which supply a value loader
+ * have the refresh run in the background instead.
+ */
+@Slf4j
+public class RevalidatingCache implements Cache {
+    private final Cache delegate;
+    private final long timeToLiveMillis;
+    private final long loadTimeoutMillis;
+    private final Executor refreshExecutor;
+    private final ConcurrentMap<Object, Load> loads = new ConcurrentHashMap<>();
+
+    /**
+     * @param delegate          the cache to decorate, which must keep entries for their time to live plus the grace period
+     * @param timeToLiveMillis  how long entries are fresh for
+     * @param loadTimeoutMillis how long callers wait for another caller's load before loading the value themselves
+     * @param refreshExecutor   runs background refreshes for callers which supply a value loader
+     */
+    public RevalidatingCache(final Cache delegate, final long timeToLiveMillis, final long loadTimeoutMillis, final Executor refreshExecutor) {
+        this.delegate = delegate;
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.loadTimeoutMillis = loadTimeoutMillis;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(final Object key) {
+        final StampedValue stampedValue = getStampedValue(key);
+
+        if (stampedValue != null) {
+            // Returning null makes this caller refresh the entry
+            return stampedValue.isStale() && tryStartLoad(key) ? null : new SimpleValueWrapper(stampedValue.getValue());
+        }
+
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T get(final Object key, final Class<T> type) {
+        final ValueWrapper value = get(key);
+
+        if (value == null) {
+            return null;
+        } else if (type != null && !type.isInstance(value.get())) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value.get());
+        } else {
+            return (T) value.get();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T get(final Object key, final Callable<T> valueLoader) {
+        final StampedValue stampedValue = getStampedValue(key);
+
+        if (stampedValue != null) {
+            if (stampedValue.isStale() && tryStartLoad(key)) {
+                refresh(key, valueLoader);
+            }
+
+            return (T) stampedValue.getValue();
+        }
+
+        if (tryStartLoad(key)) {
+            return load(key, valueLoader);
+        }
+
+        final ValueWrapper value = awaitLoad(key);
+        return value == null ? load(key, valueLoader) : (T) value.get();
+    }
+
+    @Override
+    public void put(final Object key, final Object value) {
+        delegate.put(key, stamp(value));
+        completeLoad(key, new SimpleValueWrapper(value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(final Object key, final Object value) {
+        final ValueWrapper existingValue = delegate.putIfAbsent(key, stamp(value));
+
+        if (existingValue == null) {
+            completeLoad(key, new SimpleValueWrapper(value));
+            return null;
+        } else {
+            return new SimpleValueWrapper(unstamp(existingValue.get()));
+        }
+    }
+
+    @Override
+    public void evict(final Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    private StampedValue getStampedValue(final Object key) {
+        final ValueWrapper value = delegate.get(key);
+
+        if (value == null) {
+            return null;
+        } else if (value.get() instanceof StampedValue) {
+            return (StampedValue) value.get();
+        } else {
+            // Put directly into the underlying cache, so treat it as fresh
+            return new StampedValue(value.get(), Long.MAX_VALUE);
+        }
+    }
+
+    private StampedValue stamp(final Object value) {
+        return new StampedValue(value, System.currentTimeMillis() + timeToLiveMillis);
+    }
+
+    private Object unstamp(final Object value) {
+        return value instanceof StampedValue ? ((StampedValue) value).getValue() : value;
+    }
+
+    /**
+     * @return true if the caller should load the value, false if another caller is already loading it
+     */
+    private boolean tryStartLoad(final Object key) {
+        final Load load = new Load(System.currentTimeMillis() + loadTimeoutMillis);
+        final Load existingLoad = loads.putIfAbsent(key, load);
+
+        // A load which has overrun its timeout was probably abandoned because the backend call failed
+        return existingLoad == null || existingLoad.isOverdue() && loads.replace(key, existingLoad, load);
+    }
+
+    /**
+     * @return the value put by another caller, or null if it did not arrive before the load timed out
+     */
+    private ValueWrapper awaitLoad(final Object key) {
+        final Load load = loads.get(key);
+
+        if (load == null) {
+            // The load finished between checking the cache and now
+            final StampedValue stampedValue = getStampedValue(key);
+            return stampedValue == null ? null : new SimpleValueWrapper(stampedValue.getValue());
+        }
+
+        try {
+            return load.getFuture().get(Math.max(load.getDeadline() - System.currentTimeMillis(), 0L), TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (final ExecutionException | TimeoutException ignored) {
+            return null;
+        }
+    }
+
+    private void completeLoad(final Object key, final ValueWrapper value) {
+        final Load load = loads.remove(key);
+
+        if (load != null) {
+            load.getFuture().complete(value);
+        }
+    }
+
+    private <T> T load(final Object key, final Callable<T> valueLoader) {
+        final T value;
+
+        try {
+            value = valueLoader.call();
+        } catch (final Exception e) {
+            // Let any waiting callers try for themselves
+            completeLoad(key, null);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+
+        put(key, value);
+        return value;
+    }
+
+    private void refresh(final Object key, final Callable<?> valueLoader) {
+        try {
+            refreshExecutor.execute(new DelegatingSecurityContextRunnable(() -> {
+                try {
+                    load(key, valueLoader);
+                } catch (final ValueRetrievalException e) {
+                    log.warn("Failed to refresh stale entry for key {} in cache {}", key, getName(), e);
+                }
+            }));
+        } catch (final RejectedExecutionException ignored) {
+            // Leave the stale value for a later caller to refresh
+            completeLoad(key, null);
+        }
+    }
+
+    @Data
+    static class StampedValue implements Serializable {
+        private static final long serialVersionUID = 5079328716389542361L;
+
+        private final Object value;
+        private final long staleAt;
+
+        boolean isStale() {
+            return System.currentTimeMillis() >= staleAt;
+        }
+    }
+
+    @Data
+    private static class Load {
+        private final long deadline;
+        private final CompletableFuture<ValueWrapper> future = new CompletableFuture<>();
+
+        boolean isOverdue() {
+            return System.currentTimeMillis() > deadline;
+        }
+    }
+}
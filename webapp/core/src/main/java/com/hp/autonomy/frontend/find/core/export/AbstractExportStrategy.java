@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.export;
+
+import com.google.common.base.Strings;
+import com.hp.autonomy.frontend.configuration.ConfigService;
+import com.hp.autonomy.searchcomponents.core.config.FieldInfo;
+import com.hp.autonomy.searchcomponents.core.config.FieldType;
+import com.hp.autonomy.searchcomponents.core.config.HavenSearchCapable;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Base for export strategies which export the hard metadata followed by the fields configured in the config file
+ */
+public abstract class AbstractExportStrategy implements ExportStrategy {
+    private final ConfigService<? extends HavenSearchCapable> configService;
+
+    protected AbstractExportStrategy(final ConfigService<? extends HavenSearchCapable> configService) {
+        this.configService = configService;
+    }
+
+    @Override
+    public List<String> getFieldNames(final MetadataNode[] metadataNodes, final Collection<String> selectedFieldIds) {
+        final Stream<String> metadataStream = Arrays.stream(metadataNodes)
+                // Filters metadata fields
+                .filter(metadataNode -> selectedFieldIds.isEmpty() || selectedFieldIds.contains(metadataNode.getName()))
+                .map(MetadataNode::getDisplayName);
+
+        final Stream<String> nonMetadataStream = getFieldConfig().stream()
+                .map(FieldInfo::getId)
+                // Filters parametric (non-metadata) fields
+                .filter(id -> selectedFieldIds.isEmpty() || selectedFieldIds.contains(id));
+
+        return Stream.concat(metadataStream, nonMetadataStream).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<FieldType> getFieldTypes(final MetadataNode[] metadataNodes, final Collection<String> selectedFieldIds) {
+        final Stream<FieldType> metadataStream = Arrays.stream(metadataNodes)
+                .filter(metadataNode -> selectedFieldIds.isEmpty() || selectedFieldIds.contains(metadataNode.getName()))
+                .map(MetadataNode::getFieldType);
+
+        final Stream<FieldType> nonMetadataStream = getFieldConfig().stream()
+                .filter(field -> selectedFieldIds.isEmpty() || selectedFieldIds.contains(field.getId()))
+                .map(FieldInfo::getType);
+
+        return Stream.concat(metadataStream, nonMetadataStream).collect(Collectors.toList());
+    }
+
+    @Override
+    public Map<String, FieldInfo<?>> getConfiguredFieldsById() {
+        final Map<String, FieldInfo<?>> configuredFieldIds = new LinkedHashMap<>();
+
+        getFieldConfig().forEach(field -> configuredFieldIds.put(field.getId(), field));
+
+        return configuredFieldIds;
+    }
+
+    @Override
+    public Map<String, FieldInfo<?>> getConfiguredFieldsByName() {
+        final Map<String, FieldInfo<?>> configuredFieldINames = new LinkedHashMap<>();
+        final Collection<FieldInfo<?>> fieldConfig = getFieldConfig();
+        for(final FieldInfo<?> field : fieldConfig) {
+            for(final String name : field.getNames()) {
+                configuredFieldINames.put(name, field);
+            }
+        }
+
+        return configuredFieldINames;
+    }
+
+    @Override
+    // CAUTION: Method has more than one exit point.
+    public String combineValues(final List<String> values) {
+        if(values == null) {
+            return "";
+        } else {
+            return StringUtils.join(values.stream().filter(val -> !Strings.isNullOrEmpty(val)).collect(Collectors.toList()), ", ");
+        }
+    }
+
+    private Collection<FieldInfo<?>> getFieldConfig() {
+        return configService.getConfig().getFieldsInfo().getFieldConfig().values();
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.export;
+
+import com.google.common.collect.Lists;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds the records of a single page of results in memory so that pages fetched concurrently can be written to the
+ * real {@link ExportSession} in order
+ */
+class BufferedExportSession implements ExportSession {
+    private final List<List<String>> records = new ArrayList<>();
+
+    @Override
+    public void exportRecord(final Iterable<String> values) {
+        // Copy the values, as callers are free to reuse the iterable for the next record
+        records.add(Lists.newArrayList(values));
+    }
+
+    /**
+     * Writes all the buffered records to the given session, in the order in which they were exported
+     *
+     * @param exportSession the session to write to
+     * @throws IOException any I/O error
+     */
+    void writeTo(final ExportSession exportSession) throws IOException {
+        for(final List<String> record : records) {
+            exportSession.exportRecord(record);
+        }
+    }
+
+    @Override
+    public void close() {}
+}
@@ -5,37 +5,29 @@
 
 package com.hp.autonomy.frontend.find.core.export;
 
-import com.google.common.base.Strings;
 import com.hp.autonomy.frontend.configuration.ConfigService;
-import com.hp.autonomy.searchcomponents.core.config.FieldInfo;
+import com.hp.autonomy.searchcomponents.core.config.FieldType;
 import com.hp.autonomy.searchcomponents.core.config.HavenSearchCapable;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
-import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.LinkedHashMap;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Component
-public class CsvExportStrategy implements ExportStrategy {
+public class CsvExportStrategy extends AbstractExportStrategy {
     // Excel can't cope with CSV files without a BOM (FIND-498)
     private static final byte[] UTF8_BOM = new byte[]{(byte)0xEF, (byte)0xBB, (byte)0xBF};
 
-    private final ConfigService<? extends HavenSearchCapable> configService;
-
     @Autowired
     public CsvExportStrategy(final ConfigService<? extends HavenSearchCapable> configService) {
-        this.configService = configService;
+        super(configService);
     }
 
     @Override
@@ -44,70 +36,41 @@ public class CsvExportStrategy implements ExportStrategy {
     }
 
     @Override
-    public List<String> getFieldNames(final MetadataNode[] metadataNodes, final Collection<String> selectedFieldIds) {
-        final Stream<String> metadataStream = Arrays.stream(metadataNodes)
-                // Filters metadata fields
-                .filter(metadataNode -> selectedFieldIds.isEmpty() || selectedFieldIds.contains(metadataNode.getName()))
-                .map(MetadataNode::getDisplayName);
+    public ExportSession openSession(final OutputStream outputStream, final List<String> fieldNames, final List<FieldType> fieldTypes) throws IOException {
+        outputStream.write(UTF8_BOM);
 
-        final Stream<String> nonMetadataStream = getFieldConfig().stream()
-                .map(FieldInfo::getId)
-                // Filters parametric (non-metadata) fields
-                .filter(id -> selectedFieldIds.isEmpty() || selectedFieldIds.contains(id));
+        final ExportSession session = new CsvExportSession(outputStream);
+
+        if(writeHeader()) {
+            session.exportRecord(fieldNames);
+        }
 
-        return Stream.concat(metadataStream, nonMetadataStream).collect(Collectors.toList());
+        return session;
     }
 
     @Override
-    public Map<String, FieldInfo<?>> getConfiguredFieldsById() {
-        final Map<String, FieldInfo<?>> configuredFieldIds = new LinkedHashMap<>();
-
-        getFieldConfig().forEach(field -> configuredFieldIds.put(field.getId(), field));
-
-        return configuredFieldIds;
+    public ExportFormat getExportFormat() {
+        return ExportFormat.CSV;
     }
 
-    @Override
-    public Map<String, FieldInfo<?>> getConfiguredFieldsByName() {
-        final Map<String, FieldInfo<?>> configuredFieldINames = new LinkedHashMap<>();
-        final Collection<FieldInfo<?>> fieldConfig = getFieldConfig();
-        for(final FieldInfo<?> field : fieldConfig) {
-            for(final String name : field.getNames()) {
-                configuredFieldINames.put(name, field);
-            }
-        }
+    /**
+     * Prints every record of an export through a single buffered {@link CSVPrinter}
+     */
+    private static class CsvExportSession implements ExportSession {
+        private final CSVPrinter csvPrinter;
 
-        return configuredFieldINames;
-    }
+        private CsvExportSession(final OutputStream outputStream) throws IOException {
+            csvPrinter = new CSVPrinter(new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)), CSVFormat.EXCEL);
+        }
 
-    @Override
-    public void exportRecord(final OutputStream outputStream, final Iterable<String> values) throws IOException {
-        try(final CSVPrinter csvPrinter = new CSVPrinter(new OutputStreamWriter(outputStream), CSVFormat.EXCEL)) {
+        @Override
+        public void exportRecord(final Iterable<String> values) throws IOException {
             csvPrinter.printRecord(values);
         }
-    }
 
-    @Override
-    // CAUTION: Method has more than one exit point.
-    public String combineValues(final List<String> values) {
-        if(values == null) {
-            return "";
-        } else {
-            return StringUtils.join(values.stream().filter(val -> !Strings.isNullOrEmpty(val)).collect(Collectors.toList()), ", ");
+        @Override
+        public void close() throws IOException {
+            csvPrinter.flush();
         }
     }
-
-    @Override
-    public ExportFormat getExportFormat() {
-        return ExportFormat.CSV;
-    }
-
-    @Override
-    public void prependOutput(final OutputStream outputStream) throws IOException {
-        outputStream.write(UTF8_BOM);
-    }
-
-    private Collection<FieldInfo<?>> getFieldConfig() {
-        return configService.getConfig().getFieldsInfo().getFieldConfig().values();
-    }
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.export;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression applied to an export as it is written, so that the compressed file is streamed to the client while later
+ * pages of results are still being fetched
+ */
+@Getter
+public enum ExportCompression {
+    NONE(null, null) {
+        @Override
+        public OutputStream compress(final OutputStream outputStream) {
+            return outputStream;
+        }
+    },
+    GZIP("application/gzip", "gz") {
+        @Override
+        public OutputStream compress(final OutputStream outputStream) throws IOException {
+            return new GZIPOutputStream(outputStream, BUFFER_SIZE);
+        }
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String mimeType;
+    private final String extension;
+
+    ExportCompression(final String mimeType, final String extension) {
+        this.mimeType = mimeType;
+        this.extension = extension;
+    }
+
+    /**
+     * Wraps the given stream so that data written to it is compressed. Closing the returned stream finishes the
+     * compressed data and closes the given stream.
+     *
+     * @param outputStream the stream to which compressed data is written
+     * @return the stream to which uncompressed data should be written
+     * @throws IOException any I/O error
+     */
+    public abstract OutputStream compress(OutputStream outputStream) throws IOException;
+}
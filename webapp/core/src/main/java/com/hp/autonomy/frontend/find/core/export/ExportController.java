@@ -5,16 +5,23 @@
 
 package com.hp.autonomy.frontend.find.core.export;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.hp.autonomy.frontend.find.core.web.ControllerUtils;
 import com.hp.autonomy.frontend.find.core.web.ErrorModelAndViewInfo;
 import com.hp.autonomy.frontend.find.core.web.RequestMapper;
 import com.hp.autonomy.searchcomponents.core.search.QueryRequest;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.output.ProxyOutputStream;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -22,49 +29,222 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.servlet.ModelAndView;
 
+import javax.annotation.PreDestroy;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
-import java.io.ByteArrayOutputStream;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.security.Principal;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+@Slf4j
 @RequestMapping(ExportController.EXPORT_PATH)
 public abstract class ExportController<R extends QueryRequest<?>, E extends Exception> {
     protected static final int PAGINATION_SIZE = 1000;
+    public static final String EXPORT_PARALLELISM_PROPERTY_KEY = "find.export.parallelism";
+    private static final int EXPORT_PARALLELISM_DEFAULT = 1;
+    public static final String EXPORT_PARALLELISM_PROPERTY = "${" + EXPORT_PARALLELISM_PROPERTY_KEY + ':' + EXPORT_PARALLELISM_DEFAULT + '}';
     static final String EXPORT_PATH = "/api/bi/export";
     static final String CSV_PATH = "/csv";
+    static final String NDJSON_PATH = "/ndjson";
     static final String SELECTED_EXPORT_FIELDS_PARAM = "selectedFieldIds";
     static final String QUERY_REQUEST_PARAM = "queryRequest";
+    static final String COMPRESSION_PARAM = "compression";
+    static final String EXPORT_FORMAT_PARAM = "format";
+    static final String JOB_ID_VARIABLE = "jobId";
+    static final String JOBS_PATH = "/jobs";
+    static final String JOB_PATH = JOBS_PATH + "/{" + JOB_ID_VARIABLE + '}';
+    static final String JOB_FILE_PATH = JOB_PATH + "/file";
     private static final String EXPORT_FILE_NAME = "query-results";
+    protected final ExportService<R, E> exportService;
     private final RequestMapper<R> requestMapper;
     private final ControllerUtils controllerUtils;
+    private final ExportJobService exportJobService;
+    private final int exportParallelism;
+    private final ExecutorService pageExecutor;
 
+    /**
+     * @param exportParallelism the number of pages of each export which may be fetched concurrently; if 1, pages are
+     *                          fetched one after another on the request thread
+     */
     protected ExportController(final RequestMapper<R> requestMapper,
-                               final ControllerUtils controllerUtils) {
+                               final ControllerUtils controllerUtils,
+                               final ExportService<R, E> exportService,
+                               final ExportJobService exportJobService,
+                               final int exportParallelism) {
         this.requestMapper = requestMapper;
         this.controllerUtils = controllerUtils;
+        this.exportService = exportService;
+        this.exportJobService = exportJobService;
+        this.exportParallelism = Math.max(exportParallelism, 1);
+
+        pageExecutor = this.exportParallelism > 1
+                ? Executors.newFixedThreadPool(this.exportParallelism, new ThreadFactoryBuilder().setNameFormat("export-page-%d").setDaemon(true).build())
+                : null;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if(pageExecutor != null) {
+            pageExecutor.shutdownNow();
+        }
     }
 
+    /**
+     * Exports the results of the given query directly to the servlet response, page by page, so that the size of the
+     * result set does not affect memory usage and the first rows reach the client as soon as the first page is written.
+     */
     @RequestMapping(value = CSV_PATH, method = RequestMethod.POST)
-    @ResponseBody
-    public ResponseEntity<byte[]> exportToCsv(
+    public void exportToCsv(
             @RequestParam(QUERY_REQUEST_PARAM) final String queryRequestJSON,
             // required = false to prevent Spring errors if the user asks for a CSV with no fields marked for export.
             // The UI should not allow the User to send a request for a CSV with nothing in it.
-            @RequestParam(value = SELECTED_EXPORT_FIELDS_PARAM, required = false) final Collection<String> selectedFieldNames
+            @RequestParam(value = SELECTED_EXPORT_FIELDS_PARAM, required = false) final Collection<String> selectedFieldNames,
+            @RequestParam(value = COMPRESSION_PARAM, defaultValue = "NONE") final ExportCompression compression,
+            final HttpServletResponse response
     ) throws IOException, E {
-        final ExportFormat exportFormat = ExportFormat.CSV;
+        exportToResponse(ExportFormat.CSV, compression, queryRequestJSON, selectedFieldNames, response);
+    }
+
+    /**
+     * As {@link #exportToCsv}, but writes one JSON object per result with numeric and boolean fields as native values
+     */
+    @RequestMapping(value = NDJSON_PATH, method = RequestMethod.POST)
+    public void exportToNdjson(
+            @RequestParam(QUERY_REQUEST_PARAM) final String queryRequestJSON,
+            @RequestParam(value = SELECTED_EXPORT_FIELDS_PARAM, required = false) final Collection<String> selectedFieldNames,
+            @RequestParam(value = COMPRESSION_PARAM, defaultValue = "NONE") final ExportCompression compression,
+            final HttpServletResponse response
+    ) throws IOException, E {
+        exportToResponse(ExportFormat.NDJSON, compression, queryRequestJSON, selectedFieldNames, response);
+    }
+
+    /**
+     * Starts exporting the results of the given query to a file in the background. The returned job id can be used to
+     * poll the progress of the export and to download the file once it is complete.
+     */
+    @RequestMapping(value = JOBS_PATH, method = RequestMethod.POST)
+    @ResponseBody
+    public ExportJobStatus submitExportJob(
+            @RequestParam(QUERY_REQUEST_PARAM) final String queryRequestJSON,
+            @RequestParam(value = SELECTED_EXPORT_FIELDS_PARAM, required = false) final Collection<String> selectedFieldNames,
+            @RequestParam(value = EXPORT_FORMAT_PARAM, defaultValue = "CSV") final ExportFormat exportFormat,
+            @RequestParam(value = COMPRESSION_PARAM, defaultValue = "NONE") final ExportCompression compression,
+            final Principal principal
+    ) throws IOException {
         final R queryRequest = requestMapper.parseQueryRequest(queryRequestJSON);
-        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        export(outputStream, queryRequest, exportFormat, selectedFieldNames);
-        return outputStreamToResponseEntity(exportFormat, outputStream);
+
+        return exportJobService.submit(principal.getName(), exportFormat, compression, (job, outputStream) -> {
+            try(final ExportSession exportSession = job.trackProgress(exportService.openSession(outputStream, exportFormat, selectedFieldNames))) {
+                export(exportSession, queryRequest, exportFormat, selectedFieldNames);
+            }
+        }).getStatus();
     }
 
-    protected abstract void export(final OutputStream outputStream,
+    @RequestMapping(value = JOB_PATH, method = RequestMethod.GET)
+    @ResponseBody
+    public ExportJobStatus getExportJob(@PathVariable(JOB_ID_VARIABLE) final String jobId, final Principal principal) {
+        return exportJobService.getJob(principal.getName(), jobId).getStatus();
+    }
+
+    @RequestMapping(value = JOB_PATH, method = RequestMethod.DELETE)
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void cancelExportJob(@PathVariable(JOB_ID_VARIABLE) final String jobId, final Principal principal) {
+        exportJobService.cancel(principal.getName(), jobId);
+    }
+
+    /**
+     * Downloads the file of a completed export job. Range requests are supported, so interrupted downloads can be
+     * resumed.
+     */
+    @RequestMapping(value = JOB_FILE_PATH, method = RequestMethod.GET)
+    public ResponseEntity<Resource> downloadExportJob(@PathVariable(JOB_ID_VARIABLE) final String jobId, final Principal principal) {
+        final ExportJob job = exportJobService.getJob(principal.getName(), jobId);
+
+        if(job.getState() != ExportJobState.COMPLETE) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+
+        final HttpHeaders headers = new HttpHeaders();
+        final String fileName = getFileName(job.getExportFormat(), job.getCompression());
+        headers.setContentDispositionFormData(fileName, fileName);
+        headers.setContentType(MediaType.parseMediaType(getContentType(job.getExportFormat(), job.getCompression())));
+
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(new FileSystemResource(job.getFile()));
+    }
+
+    protected abstract void export(final ExportSession exportSession,
                                    final R queryRequest,
                                    final ExportFormat exportFormat,
-                                   final Collection<String> selectedFieldNames) throws E;
+                                   final Collection<String> selectedFieldNames) throws IOException, E;
+
+    /**
+     * Exports the given pages of results in order. If export parallelism is configured, up to that many pages are
+     * fetched concurrently while earlier pages are written.
+     *
+     * @param exportSession      the session to which all results are written
+     * @param pageRequests       the request for each page, in the order in which they should be written
+     * @param exportFormat       the format to export to
+     * @param selectedFieldNames only export fields with ids enumerated this collection. If empty, export all fields
+     */
+    protected void exportPages(final ExportSession exportSession,
+                               final List<R> pageRequests,
+                               final ExportFormat exportFormat,
+                               final Collection<String> selectedFieldNames) throws IOException, E {
+        // Pages are absolute windows of results, so together they cover from the start of the first to the end of the last
+        exportSession.setResultCount(pageRequests.isEmpty()
+                ? 0
+                : pageRequests.get(pageRequests.size() - 1).getMaxResults() - pageRequests.get(0).getStart() + 1);
+
+        if(pageExecutor == null || pageRequests.size() <= 1) {
+            for(final R pageRequest : pageRequests) {
+                exportService.export(exportSession, pageRequest, exportFormat, selectedFieldNames);
+            }
+        } else {
+            // Worker threads need the user's security context to query on their behalf
+            final ExecutorService executor = new DelegatingSecurityContextExecutorService(pageExecutor);
+            final Deque<Future<BufferedExportSession>> pendingPages = new ArrayDeque<>(exportParallelism);
+            final Iterator<R> pageIterator = pageRequests.iterator();
+
+            try {
+                while(pageIterator.hasNext() || !pendingPages.isEmpty()) {
+                    while(pageIterator.hasNext() && pendingPages.size() < exportParallelism) {
+                        final R pageRequest = pageIterator.next();
+
+                        pendingPages.add(executor.submit(() -> {
+                            final BufferedExportSession pageSession = new BufferedExportSession();
+                            exportService.export(pageSession, pageRequest, exportFormat, selectedFieldNames);
+                            return pageSession;
+                        }));
+                    }
+
+                    awaitPage(pendingPages.remove()).writeTo(exportSession);
+                }
+            } finally {
+                pendingPages.forEach(page -> page.cancel(true));
+            }
+        }
+    }
+
+    @ExceptionHandler(ExportJobNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public void handleExportJobNotFound() {}
+
+    @ExceptionHandler(ExportJobRejectedException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public void handleExportJobRejected() {}
 
     //TODO improve to inform what went wrong with export, rather than generic just error 500.
     @ExceptionHandler
@@ -74,6 +254,12 @@ public abstract class ExportController<R extends QueryRequest<?>, E extends Exce
             final HttpServletRequest request,
             final ServletResponse response
     ) {
+        if(response.isCommitted()) {
+            // Part of the file has already been sent, so the best we can do is to abandon the download
+            log.error("Error during export after response was committed", e);
+            return null;
+        }
+
         response.reset();
 
         return controllerUtils.buildErrorModelAndView(
@@ -89,14 +275,79 @@ public abstract class ExportController<R extends QueryRequest<?>, E extends Exce
         );
     }
 
-    private ResponseEntity<byte[]> outputStreamToResponseEntity(final ExportFormat exportFormat, final ByteArrayOutputStream outputStream) {
-        final byte[] output = outputStream.toByteArray();
+    @SuppressWarnings("unchecked")
+    private BufferedExportSession awaitPage(final Future<BufferedExportSession> page) throws IOException, E {
+        try {
+            return page.get();
+        } catch(final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for page of export results");
+        } catch(final ExecutionException e) {
+            final Throwable cause = e.getCause();
+
+            if(cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if(cause instanceof Error) {
+                throw (Error) cause;
+            } else if(cause instanceof IOException) {
+                throw (IOException) cause;
+            } else {
+                // ExportService.export can only throw checked exceptions of type E
+                throw (E) cause;
+            }
+        }
+    }
+
+    private void exportToResponse(final ExportFormat exportFormat,
+                                  final ExportCompression compression,
+                                  final String queryRequestJSON,
+                                  final Collection<String> selectedFieldNames,
+                                  final HttpServletResponse response) throws IOException, E {
+        final R queryRequest = requestMapper.parseQueryRequest(queryRequestJSON);
+
+        writeResponseHeaders(exportFormat, compression, response);
 
+        // Closing the compressed stream writes any trailer; the session must be closed first to flush its buffers
+        try(final OutputStream outputStream = compression.compress(new ResponseOutputStream(response.getOutputStream()));
+            final ExportSession exportSession = exportService.openSession(outputStream, exportFormat, selectedFieldNames)) {
+            export(exportSession, queryRequest, exportFormat, selectedFieldNames);
+        }
+
+        response.flushBuffer();
+    }
+
+    private void writeResponseHeaders(final ExportFormat exportFormat, final ExportCompression compression, final HttpServletResponse response) {
         final HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType(exportFormat.getMimeType()));
-        final String fileName = EXPORT_FILE_NAME + FilenameUtils.EXTENSION_SEPARATOR + exportFormat.getExtension();
+        final String fileName = getFileName(exportFormat, compression);
         headers.setContentDispositionFormData(fileName, fileName);
 
-        return new ResponseEntity<>(output, headers, HttpStatus.OK);
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(getContentType(exportFormat, compression));
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, headers.getFirst(HttpHeaders.CONTENT_DISPOSITION));
+    }
+
+    private String getFileName(final ExportFormat exportFormat, final ExportCompression compression) {
+        final String fileName = EXPORT_FILE_NAME + FilenameUtils.EXTENSION_SEPARATOR + exportFormat.getExtension();
+        return compression.getExtension() == null ? fileName : fileName + FilenameUtils.EXTENSION_SEPARATOR + compression.getExtension();
+    }
+
+    private String getContentType(final ExportFormat exportFormat, final ExportCompression compression) {
+        return compression.getMimeType() == null ? exportFormat.getMimeType() : compression.getMimeType();
+    }
+
+    /**
+     * Shields the servlet output stream from flush() and close() calls made by export strategies, leaving the container
+     * to send data as its response buffer fills.
+     */
+    private static class ResponseOutputStream extends ProxyOutputStream {
+        private ResponseOutputStream(final OutputStream outputStream) {
+            super(outputStream);
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
     }
 }
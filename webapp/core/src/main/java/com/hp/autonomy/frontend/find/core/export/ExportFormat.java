@@ -9,7 +9,8 @@ import lombok.Getter;
 
 @Getter
 public enum ExportFormat {
-    CSV("text/csv", "csv");
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
 
     private final String mimeType;
     private final String extension;
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.export;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An export running in the background to a temporary file, which can be downloaded once complete
+ */
+@Getter
+public class ExportJob {
+    private final String id;
+    private final String username;
+    private final ExportFormat exportFormat;
+    private final ExportCompression compression;
+    private final File file;
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private volatile int resultCount = -1;
+    private volatile ExportJobState state = ExportJobState.QUEUED;
+    private volatile long finishedTime;
+    @Getter(AccessLevel.NONE)
+    private volatile Future<?> future;
+    @Getter(AccessLevel.NONE)
+    private volatile boolean taskDone;
+
+    ExportJob(final String id, final String username, final ExportFormat exportFormat, final ExportCompression compression, final File file) {
+        this.id = id;
+        this.username = username;
+        this.exportFormat = exportFormat;
+        this.compression = compression;
+        this.file = file;
+    }
+
+    public ExportJobStatus getStatus() {
+        return new ExportJobStatus(id, state, rowsWritten.get(), resultCount);
+    }
+
+    void setFuture(final Future<?> future) {
+        this.future = future;
+    }
+
+    void setState(final ExportJobState state) {
+        if(!state.isActive()) {
+            finishedTime = System.currentTimeMillis();
+        }
+
+        this.state = state;
+    }
+
+    /**
+     * @return whether the job's task is queued or still running, which is the case for a cancelled job until the task
+     * notices and exits
+     */
+    boolean isInProgress() {
+        return !taskDone;
+    }
+
+    /**
+     * Marks a queued job as running
+     *
+     * @return false if the job has been cancelled, in which case its task should not run
+     */
+    synchronized boolean start() {
+        if(state != ExportJobState.QUEUED) {
+            return false;
+        }
+
+        setState(ExportJobState.RUNNING);
+        return true;
+    }
+
+    /**
+     * Records the outcome of the job's task, unless the job has been cancelled
+     *
+     * @return the job's final state
+     */
+    synchronized ExportJobState finish(final ExportJobState finalState) {
+        if(state != ExportJobState.CANCELLED) {
+            setState(finalState);
+        }
+
+        taskDone = true;
+        return state;
+    }
+
+    /**
+     * Cancels the job. Interrupting a running task does not stop blocking I/O, so the task may carry on for a while.
+     *
+     * @return true if the task is not running, so the job's file can be deleted straight away
+     */
+    synchronized boolean cancel() {
+        if(state == ExportJobState.QUEUED) {
+            // the task checks the state before starting, so will never open the file
+            taskDone = true;
+        }
+
+        setState(ExportJobState.CANCELLED);
+
+        if(future != null) {
+            future.cancel(true);
+        }
+
+        return taskDone;
+    }
+
+    /**
+     * Wraps the session the job's file is written through, recording progress as records are exported
+     */
+    ExportSession trackProgress(final ExportSession exportSession) {
+        return new ExportSession() {
+            @Override
+            public void exportRecord(final Iterable<String> values) throws IOException {
+                exportSession.exportRecord(values);
+                rowsWritten.incrementAndGet();
+            }
+
+            @Override
+            public void setResultCount(final int resultCount) {
+                ExportJob.this.resultCount = resultCount;
+                exportSession.setResultCount(resultCount);
+            }
+
+            @Override
+            public void close() throws IOException {
+                exportSession.close();
+            }
+        };
+    }
+}
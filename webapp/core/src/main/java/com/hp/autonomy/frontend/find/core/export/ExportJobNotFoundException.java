@@ -0,0 +1,15 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.export;
+
+/**
+ * Thrown if an export job does not exist, has expired, or belongs to another user
+ */
+public class ExportJobNotFoundException extends RuntimeException {
+    public ExportJobNotFoundException(final String id) {
+        super("No export job found with id " + id);
+    }
+}
@@ -0,0 +1,15 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.export;
+
+/**
+ * Thrown if an export job cannot be accepted because the user or the server already has too many export jobs running
+ */
+public class ExportJobRejectedException extends RuntimeException {
+    public ExportJobRejectedException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.export;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FilenameUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs exports in the background on a bounded pool of threads, so that large exports do not tie up request threads or
+ * depend on the client staying connected for the whole export
+ */
+@Slf4j
+@Service
+public class ExportJobService {
+    private static final String EXPORT_JOB_THREADS_PROPERTY_KEY = "find.export.jobs.threads";
+    private static final int EXPORT_JOB_THREADS_DEFAULT = 2;
+    private static final String EXPORT_JOB_THREADS_PROPERTY = "${" + EXPORT_JOB_THREADS_PROPERTY_KEY + ':' + EXPORT_JOB_THREADS_DEFAULT + '}';
+    private static final String EXPORT_JOB_QUEUE_SIZE_PROPERTY_KEY = "find.export.jobs.queueSize";
+    private static final int EXPORT_JOB_QUEUE_SIZE_DEFAULT = 20;
+    private static final String EXPORT_JOB_QUEUE_SIZE_PROPERTY = "${" + EXPORT_JOB_QUEUE_SIZE_PROPERTY_KEY + ':' + EXPORT_JOB_QUEUE_SIZE_DEFAULT + '}';
+    private static final String EXPORT_JOB_MAX_PER_USER_PROPERTY_KEY = "find.export.jobs.maxPerUser";
+    private static final int EXPORT_JOB_MAX_PER_USER_DEFAULT = 2;
+    private static final String EXPORT_JOB_MAX_PER_USER_PROPERTY = "${" + EXPORT_JOB_MAX_PER_USER_PROPERTY_KEY + ':' + EXPORT_JOB_MAX_PER_USER_DEFAULT + '}';
+    private static final String EXPORT_JOB_RETENTION_MINUTES_PROPERTY_KEY = "find.export.jobs.retentionMinutes";
+    private static final int EXPORT_JOB_RETENTION_MINUTES_DEFAULT = 60;
+    private static final String EXPORT_JOB_RETENTION_MINUTES_PROPERTY = "${" + EXPORT_JOB_RETENTION_MINUTES_PROPERTY_KEY + ':' + EXPORT_JOB_RETENTION_MINUTES_DEFAULT + '}';
+    private static final String TEMP_DIRECTORY_PREFIX = "find-exports-";
+    private static final String TEMP_FILE_PREFIX = "find-export-";
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService jobExecutor;
+    private final int maxJobsPerUser;
+    private final long retentionMillis;
+    private Path exportDirectory;
+
+    @Autowired
+    public ExportJobService(@Value(EXPORT_JOB_THREADS_PROPERTY) final int threads,
+                            @Value(EXPORT_JOB_QUEUE_SIZE_PROPERTY) final int queueSize,
+                            @Value(EXPORT_JOB_MAX_PER_USER_PROPERTY) final int maxJobsPerUser,
+                            @Value(EXPORT_JOB_RETENTION_MINUTES_PROPERTY) final int retentionMinutes) {
+        this.maxJobsPerUser = maxJobsPerUser;
+        retentionMillis = TimeUnit.MINUTES.toMillis(retentionMinutes);
+
+        jobExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(queueSize, 1)),
+                new ThreadFactoryBuilder().setNameFormat("export-job-%d").setDaemon(true).build());
+    }
+
+    /**
+     * Queues an export to a temporary file
+     *
+     * @param username     the user who owns the job; only they can see its progress or download it
+     * @param exportFormat the format of the export
+     * @param compression  the compression applied to the file
+     * @param task         writes the export to the given session
+     * @return the new job
+     * @throws IOException                 if the temporary file could not be created
+     * @throws ExportJobRejectedException if the user already has the maximum number of jobs, or the queue is full
+     */
+    public ExportJob submit(final String username,
+                            final ExportFormat exportFormat,
+                            final ExportCompression compression,
+                            final ExportJobTask task) throws IOException {
+        final ExportJob job;
+
+        // Checking and registering under the same lock stops concurrent submissions from exceeding the per-user cap
+        synchronized(jobs) {
+            // Cancelled jobs count until their tasks exit, so that cancelling and resubmitting cannot tie up every thread
+            final long activeJobs = jobs.values().stream()
+                    .filter(existingJob -> existingJob.getUsername().equals(username) && existingJob.isInProgress())
+                    .count();
+
+            if(activeJobs >= maxJobsPerUser) {
+                throw new ExportJobRejectedException("User already has " + activeJobs + " export jobs in progress");
+            }
+
+            final String extension = compression.getExtension() == null
+                    ? exportFormat.getExtension()
+                    : exportFormat.getExtension() + FilenameUtils.EXTENSION_SEPARATOR + compression.getExtension();
+            // Only the user the application runs as can read the files, as they hold search results
+            final File file = Files.createTempFile(getExportDirectory(), TEMP_FILE_PREFIX, FilenameUtils.EXTENSION_SEPARATOR + extension).toFile();
+
+            job = new ExportJob(UUID.randomUUID().toString(), username, exportFormat, compression, file);
+            jobs.put(job.getId(), job);
+        }
+
+        try {
+            // The job queries on behalf of the user who submitted it
+            job.setFuture(new DelegatingSecurityContextExecutorService(jobExecutor).submit(() -> run(job, task)));
+        } catch(final RejectedExecutionException e) {
+            removeJob(job);
+            throw new ExportJobRejectedException("Too many export jobs are queued");
+        }
+
+        return job;
+    }
+
+    /**
+     * @throws ExportJobNotFoundException if there is no job with the given id belonging to the given user
+     */
+    public ExportJob getJob(final String username, final String id) {
+        final ExportJob job = jobs.get(id);
+
+        if(job == null || !job.getUsername().equals(username) || job.getState() == ExportJobState.CANCELLED) {
+            throw new ExportJobNotFoundException(id);
+        }
+
+        return job;
+    }
+
+    /**
+     * Cancels the job if it has not finished, and deletes its file. A running job's file is deleted once its task has
+     * exited, so that the task cannot write to it after it has gone.
+     *
+     * @throws ExportJobNotFoundException if there is no job with the given id belonging to the given user
+     */
+    public void cancel(final String username, final String id) {
+        final ExportJob job = getJob(username, id);
+
+        if(job.cancel()) {
+            removeJob(job);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        jobExecutor.shutdownNow();
+        jobs.values().forEach(this::removeJob);
+
+        synchronized(jobs) {
+            if(exportDirectory != null && !exportDirectory.toFile().delete()) {
+                log.warn("Could not delete export directory {}", exportDirectory);
+            }
+        }
+    }
+
+    private void run(final ExportJob job, final ExportJobTask task) {
+        if(!job.start()) {
+            return;
+        }
+
+        ExportJobState finalState;
+
+        try {
+            try(final OutputStream outputStream = job.getCompression().compress(new BufferedOutputStream(new FileOutputStream(job.getFile())))) {
+                task.export(job, outputStream);
+            }
+
+            // Only complete once the stream has closed, so that the buffered data and any compression trailer are in
+            // the file before it can be downloaded
+            finalState = ExportJobState.COMPLETE;
+        } catch(final Exception e) {
+            if(job.getState() != ExportJobState.CANCELLED) {
+                log.error("Export job {} failed", job.getId(), e);
+            }
+
+            finalState = ExportJobState.FAILED;
+        }
+
+        if(job.finish(finalState) == ExportJobState.CANCELLED) {
+            removeJob(job);
+        }
+    }
+
+    /**
+     * Removes finished jobs, and their files, once they are older than the retention period
+     */
+    @Scheduled(fixedRate = 60000L)
+    public void removeExpiredJobs() {
+        final long expiryTime = System.currentTimeMillis() - retentionMillis;
+
+        jobs.values().stream()
+                .filter(job -> !job.isInProgress() && job.getFinishedTime() < expiryTime)
+                .forEach(this::removeJob);
+    }
+
+    /**
+     * @return a directory for the export files which only the user the application runs as can read
+     */
+    private Path getExportDirectory() throws IOException {
+        if(exportDirectory == null || !exportDirectory.toFile().isDirectory()) {
+            exportDirectory = Files.createTempDirectory(TEMP_DIRECTORY_PREFIX);
+        }
+
+        return exportDirectory;
+    }
+
+    private void removeJob(final ExportJob job) {
+        jobs.remove(job.getId());
+
+        if(job.getFile().exists() && !job.getFile().delete()) {
+            log.warn("Could not delete export file {}", job.getFile());
+        }
+    }
+
+    /**
+     * Writes an export for a job
+     */
+    @FunctionalInterface
+    public interface ExportJobTask {
+        /**
+         * @param job          the job being run, through which progress should be reported
+         * @param outputStream the stream to which the export should be written
+         * @throws Exception any error, which fails the job
+         */
+        void export(ExportJob job, OutputStream outputStream) throws Exception;
+    }
+}
@@ -0,0 +1,22 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.export;
+
+import lombok.Data;
+
+/**
+ * Progress of a background export, as reported to the client
+ */
+@Data
+public class ExportJobStatus {
+    private final String id;
+    private final ExportJobState state;
+    private final long rowsWritten;
+    /**
+     * The number of rows the export will contain, or -1 if not yet known
+     */
+    private final int resultCount;
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.export;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Divides the results of an export into pages. Both IDOL and HoD treat start and max results as an absolute, 1-based,
+ * inclusive window onto the result set, so the pages returned here can be applied directly to a query request.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ExportPagination {
+    static final int MIN_PAGE_SIZE = 250;
+    static final int MAX_PAGE_SIZE = 5000;
+    // Aim for roughly this many field values per page, so exports of a few narrow fields need fewer round trips
+    static final int TARGET_VALUES_PER_PAGE = 10000;
+
+    /**
+     * Chooses the number of results to fetch in each page of an export. Pages are larger when only a few fields are
+     * selected and smaller when many are.
+     *
+     * @param selectedFieldIds the fields selected for export; if empty, all fields are exported
+     * @param defaultPageSize  the page size to use when exporting all fields
+     * @return the page size to use
+     */
+    public static int getPageSize(final Collection<String> selectedFieldIds, final int defaultPageSize) {
+        if(selectedFieldIds == null || selectedFieldIds.isEmpty()) {
+            return defaultPageSize;
+        }
+
+        return Math.max(MIN_PAGE_SIZE, Math.min(MAX_PAGE_SIZE, TARGET_VALUES_PER_PAGE / selectedFieldIds.size()));
+    }
+
+    /**
+     * Divides the given number of results into consecutive pages, none of which extend past the last result
+     *
+     * @param resultCount the total number of results to export
+     * @param pageSize    the maximum number of results in each page
+     * @return the pages, in order
+     */
+    public static List<ExportPage> getPages(final int resultCount, final int pageSize) {
+        if(pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+
+        final List<ExportPage> pages = new ArrayList<>();
+
+        // Use a long offset so that the final increment cannot overflow
+        for(long offset = 0; offset < resultCount; offset += pageSize) {
+            pages.add(new ExportPage((int) offset + 1, (int) Math.min(offset + pageSize, resultCount)));
+        }
+
+        return pages;
+    }
+
+    /**
+     * A window of results, where both start and end are 1-based and inclusive
+     */
+    @Data
+    public static class ExportPage {
+        private final int start;
+        private final int end;
+
+        public int getSize() {
+            return end - start + 1;
+        }
+    }
+}
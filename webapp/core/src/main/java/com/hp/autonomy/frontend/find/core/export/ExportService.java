@@ -7,6 +7,7 @@ package com.hp.autonomy.frontend.find.core.export;
 
 import com.hp.autonomy.searchcomponents.core.search.QueryRequest;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Collection;
 
@@ -15,18 +16,30 @@ import java.util.Collection;
  *
  * @param <R> request type to use
  */
-@FunctionalInterface
 public interface ExportService<R extends QueryRequest<?>, E extends Exception> {
     /**
-     * Performs query and exports the returned result set to the specified format.
+     * Starts an export to the specified format, writing any preamble and header line required by the format.
      *
      * @param outputStream     the output to which the resulting format is written
+     * @param exportFormat     the format to export to
+     * @param selectedFieldIds only export fields with ids enumerated this collection. If empty, export all fields
+     * @return the session to pass to {@link #export}; must be closed once all results have been exported
+     * @throws IOException any I/O error
+     */
+    ExportSession openSession(OutputStream outputStream,
+                              ExportFormat exportFormat,
+                              Collection<String> selectedFieldIds) throws IOException;
+
+    /**
+     * Performs query and exports the returned result set to the specified format.
+     *
+     * @param exportSession    the session, opened for the same format, to which the results are written
      * @param queryRequest     the search request parameters
      * @param exportFormat     the format to export to
      * @param selectedFieldIds only export fields with ids enumerated this collection. If empty, export all fields
      * @throws E if an error is thrown by the underlying server, the corresponding thrown exception
      */
-    void export(OutputStream outputStream,
+    void export(ExportSession exportSession,
                 R queryRequest,
                 ExportFormat exportFormat,
                 Collection<String> selectedFieldIds) throws E;
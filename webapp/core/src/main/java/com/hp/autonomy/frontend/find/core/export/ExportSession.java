@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A single export in progress, created by {@link ExportStrategy#openSession}. Owns any writers and buffers required by
+ * the format for the lifetime of the export, so records may be buffered until the session is closed.
+ */
+public interface ExportSession extends Closeable {
+    /**
+     * Exports all the data corresponding to an individual document
+     *
+     * @param values the formatted values of the metadata/fields being exported
+     * @throws IOException any I/O error
+     */
+    void exportRecord(Iterable<String> values) throws IOException;
+
+    /**
+     * Called once the number of results in the export is known, before any records are exported
+     *
+     * @param resultCount the number of records the export is expected to contain
+     */
+    default void setResultCount(final int resultCount) {}
+
+    /**
+     * Writes out any buffered records. Does not close the underlying stream.
+     *
+     * @throws IOException any I/O error
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -6,6 +6,7 @@
 package com.hp.autonomy.frontend.find.core.export;
 
 import com.hp.autonomy.searchcomponents.core.config.FieldInfo;
+import com.hp.autonomy.searchcomponents.core.config.FieldType;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -33,6 +34,15 @@ public interface ExportStrategy {
      */
     List<String> getFieldNames(MetadataNode[] metadataNodes, final Collection<String> selectedFieldIds);
 
+    /**
+     * Retrieves the types of all the fields to export, in the same order as {@link #getFieldNames}
+     *
+     * @param metadataNodes    hard metadata (HoD/Idol specific)
+     * @param selectedFieldIds only export fields with ids in this collection. If empty, export all fields
+     * @return the types of all the metadata/fields to export
+     */
+    List<FieldType> getFieldTypes(MetadataNode[] metadataNodes, final Collection<String> selectedFieldIds);
+
     /**
      * Returns the fields configured for export in the config file. Inverse lookup of getConfiguredFieldsByName().
      *
@@ -48,13 +58,17 @@ public interface ExportStrategy {
     Map<String, FieldInfo<?>> getConfiguredFieldsByName();
 
     /**
-     * Exports all the data corresponding to an individual document to the given {@link OutputStream}
+     * Starts a new export to the given {@link OutputStream}, writing any required preamble (e.g. UTF-8 BOM) and, if
+     * {@link #writeHeader()} is true, a header line. All the records of the export should be written through the
+     * returned session, which must be closed once the export is complete.
      *
      * @param outputStream the stream to which the formatted data will be written
      * @param fieldNames   the names of the metadata/fields being exported
+     * @param fieldTypes   the types of the metadata/fields being exported, in the same order as fieldNames
+     * @return the session through which records are exported
      * @throws IOException any I/O error
      */
-    void exportRecord(OutputStream outputStream, Iterable<String> fieldNames) throws IOException;
+    ExportSession openSession(OutputStream outputStream, List<String> fieldNames, List<FieldType> fieldTypes) throws IOException;
 
     /**
      * Converts any field values into a single combined value
@@ -70,11 +84,4 @@ public interface ExportStrategy {
      * @return the {@link ExportFormat} associated with this format
      */
     ExportFormat getExportFormat();
-
-    /**
-     * Retrieve the output prefix controlled by prependOutput()
-     *
-     * @return byte of sequence to write to output stream before commencing the file export (e.g. UTF-8 BOM)
-     */
-    default void prependOutput(final OutputStream outputStream) throws IOException {}
 }
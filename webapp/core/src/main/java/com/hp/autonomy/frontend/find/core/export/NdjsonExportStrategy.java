@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.export;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.hp.autonomy.frontend.configuration.ConfigService;
+import com.hp.autonomy.searchcomponents.core.config.FieldType;
+import com.hp.autonomy.searchcomponents.core.config.HavenSearchCapable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Exports each result as a JSON object on its own line, keyed by field name. Numeric and boolean fields are written as
+ * native JSON values, so columnar tools can load the export without re-parsing strings.
+ */
+@Component
+public class NdjsonExportStrategy extends AbstractExportStrategy {
+    private final JsonFactory jsonFactory = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            // records are separated by the new lines written after each one
+            .setRootValueSeparator(null);
+
+    @Autowired
+    public NdjsonExportStrategy(final ConfigService<? extends HavenSearchCapable> configService) {
+        super(configService);
+    }
+
+    @Override
+    public boolean writeHeader() {
+        return false;
+    }
+
+    @Override
+    public ExportSession openSession(final OutputStream outputStream, final List<String> fieldNames, final List<FieldType> fieldTypes) throws IOException {
+        return new NdjsonExportSession(jsonFactory.createGenerator(outputStream, JsonEncoding.UTF8), fieldNames, fieldTypes);
+    }
+
+    @Override
+    public ExportFormat getExportFormat() {
+        return ExportFormat.NDJSON;
+    }
+
+    private static class NdjsonExportSession implements ExportSession {
+        private final JsonGenerator generator;
+        private final String[] fieldNames;
+        private final FieldType[] fieldTypes;
+
+        private NdjsonExportSession(final JsonGenerator generator, final List<String> fieldNames, final List<FieldType> fieldTypes) {
+            this.generator = generator;
+            this.fieldNames = fieldNames.toArray(new String[fieldNames.size()]);
+            this.fieldTypes = fieldTypes.toArray(new FieldType[fieldTypes.size()]);
+        }
+
+        @Override
+        public void exportRecord(final Iterable<String> values) throws IOException {
+            generator.writeStartObject();
+
+            final Iterator<String> iterator = values.iterator();
+            for(int i = 0; i < fieldNames.length && iterator.hasNext(); i++) {
+                generator.writeFieldName(fieldNames[i]);
+                writeValue(i < fieldTypes.length ? fieldTypes[i] : null, iterator.next());
+            }
+
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.flush();
+        }
+
+        // Values which do not parse as their field type (e.g. combined array values) are written as strings
+        private void writeValue(final FieldType fieldType, final String value) throws IOException {
+            if(value == null || (value.isEmpty() && fieldType != null && fieldType != FieldType.STRING)) {
+                generator.writeNull();
+            } else if(fieldType == FieldType.NUMBER) {
+                try {
+                    generator.writeNumber(new BigDecimal(value));
+                } catch(final NumberFormatException ignored) {
+                    generator.writeString(value);
+                }
+            } else if(fieldType == FieldType.BOOLEAN && ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value))) {
+                generator.writeBoolean(Boolean.parseBoolean(value));
+            } else {
+                generator.writeString(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.parametricfields;
+
+import com.hp.autonomy.searchcomponents.core.parametricvalues.ParametricRequest;
+import com.hp.autonomy.types.idol.responses.RecursiveField;
+import com.hp.autonomy.types.requests.idol.actions.tags.QueryTagInfo;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Cached access to the parametric values lookups made when refreshing the filter panel. Implementations delegate to
+ * the {@link com.hp.autonomy.searchcomponents.core.parametricvalues.ParametricValuesService} and cache the results
+ * separately from documents, keyed on the whole request including any state match ids. A query restricted by state
+ * tokens therefore gets a new entry whenever the tokens change, so entries never need to be evicted explicitly.
+ *
+ * @param <R> The request type
+ * @param <E> The exception thrown by the service
+ */
+public interface ParametricValuesCache<R extends ParametricRequest<?>, E extends Exception> {
+    Set<QueryTagInfo> getParametricValues(R parametricRequest) throws E;
+
+    List<RecursiveField> getDependentParametricValues(R parametricRequest) throws E;
+}
@@ -58,13 +58,16 @@ public abstract class ParametricValuesController<Q extends QueryRestrictions<S>,
     static final String BUCKET_MAX_PARAM = "bucketMax";
 
     protected final ParametricValuesService<R, Q, E> parametricValuesService;
+    private final ParametricValuesCache<R, E> parametricValuesCache;
     protected final ObjectFactory<? extends QueryRestrictionsBuilder<Q, S, ?>> queryRestrictionsBuilderFactory;
     private final ObjectFactory<? extends ParametricRequestBuilder<R, Q, ?>> parametricRequestBuilderFactory;
 
     protected ParametricValuesController(final ParametricValuesService<R, Q, E> parametricValuesService,
+                                         final ParametricValuesCache<R, E> parametricValuesCache,
                                          final ObjectFactory<? extends QueryRestrictionsBuilder<Q, S, ?>> queryRestrictionsBuilderFactory,
                                          final ObjectFactory<? extends ParametricRequestBuilder<R, Q, ?>> parametricRequestBuilderFactory) {
         this.parametricValuesService = parametricValuesService;
+        this.parametricValuesCache = parametricValuesCache;
         this.queryRestrictionsBuilderFactory = queryRestrictionsBuilderFactory;
         this.parametricRequestBuilderFactory = parametricRequestBuilderFactory;
     }
@@ -83,7 +86,7 @@ public abstract class ParametricValuesController<Q extends QueryRestrictions<S>,
             @RequestParam(value = STATE_TOKEN_PARAM, required = false) final List<String> stateTokens
     ) throws E {
         final R parametricRequest = buildRequest(fieldNames, queryText, fieldText, databases, minDate, maxDate, minScore, stateTokens, MAX_VALUES_DEFAULT, SortParam.DocumentCount);
-        return parametricValuesService.getParametricValues(parametricRequest);
+        return parametricValuesCache.getParametricValues(parametricRequest);
     }
 
     @SuppressWarnings("MethodWithTooManyParameters")
@@ -134,7 +137,7 @@ public abstract class ParametricValuesController<Q extends QueryRestrictions<S>,
             @RequestParam(value = STATE_TOKEN_PARAM, required = false) final List<String> stateTokens
     ) throws E {
         final R parametricRequest = buildRequest(fieldNames, queryText, fieldText, databases, minDate, maxDate, minScore, stateTokens, null, null);
-        return parametricValuesService.getDependentParametricValues(parametricRequest);
+        return parametricValuesCache.getDependentParametricValues(parametricRequest);
     }
 
     protected R buildRequest(final List<TagName> fieldNames, final Collection<S> databases, final Integer maxValues, final SortParam sort) {
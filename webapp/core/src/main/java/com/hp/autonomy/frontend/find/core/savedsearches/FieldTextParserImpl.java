@@ -14,12 +14,13 @@ import org.apache.commons.collections4.CollectionUtils;
 import org.springframework.stereotype.Component;
 
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 @Component
 public class FieldTextParserImpl implements FieldTextParser {
@@ -42,7 +43,8 @@ public class FieldTextParserImpl implements FieldTextParser {
         if (CollectionUtils.isEmpty(parametricValues)) {
             return null;
         } else {
-            final Map<String, List<String>> fieldToValues = new HashMap<>();
+            // Sorted so that equivalent selections always produce identical field text, and therefore cache keys
+            final Map<String, List<String>> fieldToValues = new TreeMap<>();
 
             for (final FieldAndValue fieldAndValue : parametricValues) {
                 List<String> values = fieldToValues.get(fieldAndValue.getField());
@@ -55,6 +57,8 @@ public class FieldTextParserImpl implements FieldTextParser {
                 values.add(fieldAndValue.getValue());
             }
 
+            fieldToValues.values().forEach(values -> values.sort(Comparator.naturalOrder()));
+
             final Iterator<Map.Entry<String, List<String>>> iterator = fieldToValues.entrySet().iterator();
             FieldText fieldText = fieldAndValuesToFieldText(iterator.next());
 
@@ -70,7 +74,9 @@ public class FieldTextParserImpl implements FieldTextParser {
         if (CollectionUtils.isEmpty(parametricRanges)) {
             return null;
         } else {
-            final Iterator<ParametricRange> iterator = parametricRanges.iterator();
+            final Iterator<ParametricRange> iterator = parametricRanges.stream()
+                    .sorted(Comparator.comparing(ParametricRange::getField).thenComparing(ParametricRange::getMin).thenComparing(ParametricRange::getMax))
+                    .iterator();
             FieldText fieldText = rangeToFieldText(iterator.next());
             while (iterator.hasNext()) {
                 fieldText = fieldText.AND(rangeToFieldText(iterator.next()));
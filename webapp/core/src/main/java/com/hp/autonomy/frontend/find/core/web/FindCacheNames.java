@@ -14,6 +14,8 @@ public class FindCacheNames {
 
     public static final String DOCUMENTS = "documents";
     public static final String SIMILAR_DOCUMENTS = "similar-documents";
+    public static final String PARAMETRIC_VALUES = "parametric-values";
+    public static final String DEPENDENT_PARAMETRIC_VALUES = "dependent-parametric-values";
 
     /**
      * Caches' TTLs in seconds.
@@ -23,6 +25,26 @@ public class FindCacheNames {
         .put(CacheNames.RELATED_CONCEPTS, 60L * 5L)
         .put(SIMILAR_DOCUMENTS, 60L * 5L)
         .put(CacheNames.TYPE_AHEAD, 24 * 60L)
+        .put(PARAMETRIC_VALUES, 60L * 2L)
+        .put(DEPENDENT_PARAMETRIC_VALUES, 60L * 2L)
+        .build();
+
+    /**
+     * Default heap budgets for in-memory caches, as percentages of the cache heap. Caches not listed share the rest.
+     */
+    public static final Map<String, String> CACHE_MAX_HEAP = new ImmutableMap.Builder<String, String>()
+        .put(DOCUMENTS, "20%")
+        .put(PARAMETRIC_VALUES, "15%")
+        .put(DEPENDENT_PARAMETRIC_VALUES, "15%")
+        .build();
+
+    /**
+     * How long in seconds in-memory caches may serve entries past their TTL while one request refreshes them.
+     */
+    public static final Map<String, Long> CACHE_STALE_WHILE_REVALIDATE = new ImmutableMap.Builder<String, Long>()
+        .put(DOCUMENTS, 60L)
+        .put(CacheNames.RELATED_CONCEPTS, 60L)
+        .put(SIMILAR_DOCUMENTS, 60L)
         .build();
 
 }
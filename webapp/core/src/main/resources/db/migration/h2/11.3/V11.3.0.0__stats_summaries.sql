@@ -0,0 +1,24 @@
+/*-------------------------------------------
+-- Description: Add table for periodic summaries
+  of page, click-through and abandonment events
+
+-- Previous Version: 11.2.0.0
+-- Target Version: 11.3.0.0
+--------------------------------------------*/
+
+SET SCHEMA find;
+
+CREATE TABLE stats_summaries
+(
+  stats_summary_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  period_start DATETIME NOT NULL,
+  period_end DATETIME NOT NULL,
+  search NVARCHAR(21844),
+  page_events BIGINT NOT NULL,
+  click_throughs BIGINT NOT NULL,
+  abandonments BIGINT NOT NULL,
+  page_histogram VARCHAR(255) NOT NULL,
+  click_position_histogram VARCHAR(255) NOT NULL
+);
+
+CREATE INDEX ix__stats_summaries__period_end ON stats_summaries (period_end);
@@ -14,10 +14,16 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.cache.Cache;
 
+import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -25,6 +31,9 @@ public abstract class AbstractAutoCreatingEhCacheCacheManagerTest<A extends Auto
     @Mock
     protected CacheManager cacheManager;
 
+    @Mock
+    protected CounterService counterService;
+
     protected A autoCreatingEhCacheCacheManager;
 
     @Before
@@ -43,4 +52,16 @@ public abstract class AbstractAutoCreatingEhCacheCacheManagerTest<A extends Auto
         final String name = FindCacheNames.DOCUMENTS;
         assertNotNull(autoCreatingEhCacheCacheManager.getMissingCache(name));
     }
+
+    @Test
+    public void cachesCountMisses() {
+        final Cache cache = mock(Cache.class);
+        when(cache.getName()).thenReturn(FindCacheNames.DOCUMENTS);
+
+        final Cache decoratedCache = autoCreatingEhCacheCacheManager.decorateCache(cache);
+        assertThat(decoratedCache, instanceOf(InstrumentedCache.class));
+
+        assertNull(decoratedCache.get("SomeKey"));
+        verify(counterService).increment(InstrumentedCache.CACHE_METRIC_NAME_PREFIX + autoCreatingEhCacheCacheManager.getCacheName(FindCacheNames.DOCUMENTS) + InstrumentedCache.MISS_METRIC_NAME_SUFFIX);
+    }
 }
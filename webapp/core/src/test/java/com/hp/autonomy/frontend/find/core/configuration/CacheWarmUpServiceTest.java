@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.configuration;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CacheWarmUpServiceTest {
+    @Mock
+    private CacheWarmUpTask failingTask;
+
+    @Mock
+    private CacheWarmUpTask task;
+
+    @Test
+    public void outOfServiceUntilWarm() throws Exception {
+        doThrow(new IllegalStateException("IDOL unavailable")).when(failingTask).warmUp();
+        final CacheWarmUpService cacheWarmUpService = new CacheWarmUpService(Optional.of(Arrays.asList(failingTask, task)), true);
+
+        assertThat(cacheWarmUpService.health().getStatus(), is(Status.OUT_OF_SERVICE));
+
+        cacheWarmUpService.warmUp();
+
+        verify(task).warmUp();
+        assertThat(cacheWarmUpService.health().getStatus(), is(Status.UP));
+    }
+
+    @Test
+    public void tasksRunAsSystem() throws Exception {
+        final CompletableFuture<Authentication> authentication = new CompletableFuture<>();
+        doAnswer(invocation -> authentication.complete(SecurityContextHolder.getContext().getAuthentication())).when(task).warmUp();
+
+        new CacheWarmUpService(Optional.of(Collections.singletonList(task)), true).onApplicationEvent(mock(ApplicationReadyEvent.class));
+
+        assertThat(authentication.get(10, TimeUnit.SECONDS), is(CacheWarmUpService.SYSTEM_AUTHENTICATION));
+    }
+
+    @Test
+    public void upWhenDisabled() {
+        final CacheWarmUpService cacheWarmUpService = new CacheWarmUpService(Optional.empty(), false);
+        assertThat(cacheWarmUpService.health().getStatus(), is(Status.UP));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.configuration;
+
+import com.hp.autonomy.searchcomponents.core.search.QueryRestrictions;
+import com.hp.autonomy.searchcomponents.core.search.QueryRestrictionsBuilder;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CanonicalCacheKeyGeneratorTest {
+    @Mock
+    private QueryRestrictions<String> queryRestrictions;
+
+    @Mock
+    private QueryRestrictionsBuilder<QueryRestrictions<String>, String, ?> queryRestrictionsBuilder;
+
+    @Mock
+    private QueryRestrictions<String> canonicalQueryRestrictions;
+
+    private CanonicalCacheKeyGenerator keyGenerator;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Before
+    public void setUp() {
+        keyGenerator = new CanonicalCacheKeyGenerator(60);
+
+        when(queryRestrictions.toBuilder()).thenReturn((QueryRestrictionsBuilder) queryRestrictionsBuilder);
+        when(queryRestrictionsBuilder.databases(any())).thenReturn((QueryRestrictionsBuilder) queryRestrictionsBuilder);
+        when(queryRestrictionsBuilder.stateMatchIds(any())).thenReturn((QueryRestrictionsBuilder) queryRestrictionsBuilder);
+        when(queryRestrictionsBuilder.fieldText(any())).thenReturn((QueryRestrictionsBuilder) queryRestrictionsBuilder);
+        when(queryRestrictionsBuilder.minDate(any())).thenReturn((QueryRestrictionsBuilder) queryRestrictionsBuilder);
+        when(queryRestrictionsBuilder.maxDate(any())).thenReturn((QueryRestrictionsBuilder) queryRestrictionsBuilder);
+        when(queryRestrictionsBuilder.build()).thenReturn(canonicalQueryRestrictions);
+    }
+
+    @Test
+    public void canonicaliseQueryRestrictions() {
+        when(queryRestrictions.getDatabases()).thenReturn(Arrays.asList("Wookiepedia", "Archive", "News"));
+        when(queryRestrictions.getStateMatchIds()).thenReturn(Arrays.asList("token-2", "token-1"));
+        when(queryRestrictions.getFieldText()).thenReturn("  MATCH{a  b}:FIELD   AND\tEXISTS{}:OTHER ");
+        when(queryRestrictions.getMinDate()).thenReturn(new DateTime(2017, 3, 1, 12, 30, 15, 123, DateTimeZone.UTC));
+        when(queryRestrictions.getMaxDate()).thenReturn(null);
+
+        final Object[] canonicalParams = keyGenerator.canonicalise(queryRestrictions, "other");
+
+        assertThat(canonicalParams[0], is(canonicalQueryRestrictions));
+        assertThat(canonicalParams[1], is("other"));
+        verify(queryRestrictionsBuilder).databases(Arrays.asList("Archive", "News", "Wookiepedia"));
+        verify(queryRestrictionsBuilder).stateMatchIds(Arrays.asList("token-1", "token-2"));
+        verify(queryRestrictionsBuilder).fieldText("MATCH{a  b}:FIELD AND EXISTS{}:OTHER");
+        verify(queryRestrictionsBuilder).minDate(new DateTime(2017, 3, 1, 12, 30, 0, 0, DateTimeZone.UTC));
+        verify(queryRestrictionsBuilder).maxDate(null);
+    }
+
+    @Test
+    public void dateBucketingDisabled() {
+        final DateTime minDate = new DateTime(2017, 3, 1, 12, 30, 15, 123, DateTimeZone.UTC);
+        when(queryRestrictions.getMinDate()).thenReturn(minDate);
+
+        new CanonicalCacheKeyGenerator(0).canonicalise(queryRestrictions);
+
+        verify(queryRestrictionsBuilder).minDate(minDate);
+    }
+
+    @Test
+    public void roundDatesOnlyChangesDates() {
+        when(queryRestrictions.getMinDate()).thenReturn(new DateTime(2017, 3, 1, 12, 30, 15, 123, DateTimeZone.UTC));
+        when(queryRestrictions.getMaxDate()).thenReturn(new DateTime(2017, 3, 1, 13, 0, 59, 999, DateTimeZone.UTC));
+
+        assertThat(keyGenerator.roundDates(queryRestrictions), is(canonicalQueryRestrictions));
+        verify(queryRestrictionsBuilder).minDate(new DateTime(2017, 3, 1, 12, 30, 0, 0, DateTimeZone.UTC));
+        verify(queryRestrictionsBuilder).maxDate(new DateTime(2017, 3, 1, 13, 0, 0, 0, DateTimeZone.UTC));
+        verify(queryRestrictionsBuilder, never()).databases(any());
+        verify(queryRestrictionsBuilder, never()).fieldText(any());
+    }
+
+    @Test
+    public void roundDatesWithBucketingDisabled() {
+        assertThat(new CanonicalCacheKeyGenerator(0).roundDates(queryRestrictions), is(queryRestrictions));
+        verify(queryRestrictions, never()).toBuilder();
+    }
+
+    @Test
+    public void normaliseNullFieldText() {
+        assertThat(CanonicalCacheKeyGenerator.normaliseFieldText(null), is(nullValue()));
+    }
+}
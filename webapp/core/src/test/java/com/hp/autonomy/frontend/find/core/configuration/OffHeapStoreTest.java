@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.configuration;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class OffHeapStoreTest {
+    private static final String CACHE_NAME = "documents";
+
+    private final long expiresAt = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1);
+
+    @Test
+    public void roundTrip() {
+        final OffHeapStore store = new OffHeapStore(1024 * 1024);
+        store.put(CACHE_NAME, "key", "value", expiresAt);
+
+        final OffHeapStore.ExpiringValue value = store.remove(CACHE_NAME, "key");
+        assertThat(value.getValue(), is("value"));
+        assertThat(value.getExpiresAt(), is(expiresAt));
+
+        assertThat(store.remove(CACHE_NAME, "key"), is(nullValue()));
+        assertThat(store.getUsedBytes(), is(0L));
+    }
+
+    @Test
+    public void keysAreScopedToCache() {
+        final OffHeapStore store = new OffHeapStore(1024 * 1024);
+        store.put(CACHE_NAME, "key", "value", expiresAt);
+
+        assertThat(store.remove("other", "key"), is(nullValue()));
+        assertThat(store.remove(CACHE_NAME, "key"), is(notNullValue()));
+    }
+
+    @Test
+    public void expiredValuesAreNotReturned() {
+        final OffHeapStore store = new OffHeapStore(1024 * 1024);
+        store.put(CACHE_NAME, "key", "value", System.currentTimeMillis() - 1);
+
+        assertThat(store.remove(CACHE_NAME, "key"), is(nullValue()));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        final OffHeapStore probe = new OffHeapStore(1024 * 1024);
+        probe.put(CACHE_NAME, "key", "value0", expiresAt);
+        final long entrySize = probe.getUsedBytes();
+
+        final OffHeapStore store = new OffHeapStore(entrySize * 2);
+        store.put(CACHE_NAME, "key0", "value0", expiresAt);
+        store.put(CACHE_NAME, "key1", "value1", expiresAt);
+        store.put(CACHE_NAME, "key2", "value2", expiresAt);
+
+        assertThat(store.getUsedBytes(), is(lessThanOrEqualTo(entrySize * 2)));
+        assertThat(store.remove(CACHE_NAME, "key0"), is(nullValue()));
+        assertThat(store.remove(CACHE_NAME, "key2").getValue(), is("value2"));
+    }
+
+    @Test
+    public void clearRemovesOnlyNamedCache() {
+        final OffHeapStore store = new OffHeapStore(1024 * 1024);
+        store.put(CACHE_NAME, "key", "value", expiresAt);
+        store.put("other", "key", "value", expiresAt);
+
+        store.clear(CACHE_NAME);
+
+        assertThat(store.remove(CACHE_NAME, "key"), is(nullValue()));
+        assertThat(store.remove("other", "key"), is(notNullValue()));
+    }
+
+    @Test
+    public void disabledStoreHoldsNothing() {
+        final OffHeapStore store = new OffHeapStore(0);
+        store.put(CACHE_NAME, "key", "value", expiresAt);
+
+        assertThat(store.isEnabled(), is(false));
+        assertThat(store.getUsedBytes(), is(0L));
+        assertThat(store.remove(CACHE_NAME, "key"), is(nullValue()));
+    }
+
+    @Test
+    public void valuesSpanningBlocksRoundTrip() {
+        final OffHeapStore store = new OffHeapStore(1024 * 1024);
+        final String value = RandomStringUtils.randomAlphanumeric(OffHeapStore.BLOCK_SIZE * 4);
+        store.put(CACHE_NAME, "key", value, expiresAt);
+
+        assertThat(store.getUsedBytes(), is(greaterThan((long) OffHeapStore.BLOCK_SIZE)));
+        assertThat(store.remove(CACHE_NAME, "key").getValue(), is(value));
+        assertThat(store.getUsedBytes(), is(0L));
+    }
+
+    @Test
+    public void blocksAreReused() {
+        final OffHeapStore store = new OffHeapStore(OffHeapStore.BLOCK_SIZE * 4);
+
+        for (int i = 0; i < 100; i++) {
+            store.put(CACHE_NAME, "key" + i, "value" + i, expiresAt);
+            assertThat(store.remove(CACHE_NAME, "key" + i).getValue(), is("value" + i));
+        }
+
+        assertThat(store.getUsedBytes(), is(0L));
+    }
+
+    @Test
+    public void replacingValueReleasesOldBlocks() {
+        final OffHeapStore store = new OffHeapStore(1024 * 1024);
+        store.put(CACHE_NAME, "key", "value0", expiresAt);
+        final long usedBytes = store.getUsedBytes();
+
+        store.put(CACHE_NAME, "key", "value1", expiresAt);
+
+        assertThat(store.getUsedBytes(), is(usedBytes));
+        assertThat(store.remove(CACHE_NAME, "key").getValue(), is("value1"));
+    }
+
+    @Test
+    public void valuesLargerThanStoreAreIgnored() {
+        final OffHeapStore store = new OffHeapStore(OffHeapStore.BLOCK_SIZE);
+        store.put(CACHE_NAME, "key", RandomStringUtils.randomAlphanumeric(OffHeapStore.BLOCK_SIZE * 4), expiresAt);
+
+        assertThat(store.getUsedBytes(), is(0L));
+        assertThat(store.remove(CACHE_NAME, "key"), is(nullValue()));
+    }
+}
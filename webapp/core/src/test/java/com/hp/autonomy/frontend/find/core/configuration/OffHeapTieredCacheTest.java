@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.configuration;
+
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.config.CacheConfiguration;
+import net.sf.ehcache.config.Configuration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class OffHeapTieredCacheTest {
+    private static final String CACHE_NAME = "documents";
+
+    private CacheManager cacheManager;
+    private Ehcache ehcache;
+    private OffHeapStore offHeapStore;
+    private OffHeapTieredCache cache;
+
+    @Before
+    public void setUp() {
+        cacheManager = new CacheManager(new Configuration().name(getClass().getSimpleName()));
+        cacheManager.addCache(new net.sf.ehcache.Cache(new CacheConfiguration(CACHE_NAME, 1).timeToLiveSeconds(60)));
+        ehcache = cacheManager.getEhcache(CACHE_NAME);
+
+        offHeapStore = new OffHeapStore(1024 * 1024);
+        cache = new OffHeapTieredCache(ehcache, offHeapStore);
+    }
+
+    @After
+    public void tearDown() {
+        cacheManager.shutdown();
+    }
+
+    @Test
+    public void evictedValuesArePromotedFromOffHeap() {
+        cache.put("key0", "value0");
+        cache.put("key1", "value1");
+
+        assertThat(ehcache.get("key0"), is(nullValue()));
+        assertThat(cache.get("key0").get(), is("value0"));
+        assertThat(ehcache.get("key0"), is(notNullValue()));
+    }
+
+    @Test
+    public void valueLoaderReadsHeapBeforeOffHeap() {
+        cache.put("key", "heap");
+        offHeapStore.put(CACHE_NAME, "key", "off-heap", System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1));
+
+        assertThat(cache.get("key", () -> "loaded"), is("heap"));
+        assertThat(offHeapStore.remove(CACHE_NAME, "key"), is(notNullValue()));
+    }
+
+    @Test
+    public void valueLoaderPromotesFromOffHeap() {
+        cache.put("key0", "value0");
+        cache.put("key1", "value1");
+
+        assertThat(cache.get("key0", () -> "loaded"), is("value0"));
+    }
+
+    @Test
+    public void valueLoaderLoadsMissingValuesOnce() {
+        final AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.get("key", () -> "value" + loads.incrementAndGet()), is("value1"));
+        assertThat(cache.get("key", () -> "value" + loads.incrementAndGet()), is("value1"));
+        assertThat(loads.get(), is(1));
+    }
+
+    @Test
+    public void evictRemovesBothTiers() {
+        cache.put("key0", "value0");
+        cache.put("key1", "value1");
+
+        cache.evict("key0");
+        cache.evict("key1");
+
+        assertThat(cache.get("key0"), is(nullValue()));
+        assertThat(cache.get("key1"), is(nullValue()));
+    }
+
+    @Test
+    public void clearRemovesBothTiers() {
+        cache.put("key0", "value0");
+        cache.put("key1", "value1");
+
+        cache.clear();
+
+        assertThat(cache.get("key0"), is(nullValue()));
+        assertThat(cache.get("key1"), is(nullValue()));
+        assertThat(offHeapStore.getUsedBytes(), is(0L));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.configuration;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class RevalidatingCacheTest {
+    private static final String KEY = "key";
+
+    private ConcurrentMapCache delegate;
+
+    @Before
+    public void setUp() {
+        delegate = new ConcurrentMapCache("documents");
+    }
+
+    @Test(timeout = 10000L)
+    public void missesDoNotWaitForOtherCallers() {
+        final RevalidatingCache cache = new RevalidatingCache(delegate, TimeUnit.MINUTES.toMillis(1), TimeUnit.MINUTES.toMillis(10), Runnable::run);
+
+        assertThat(cache.get(KEY), is(nullValue()));
+        assertThat(cache.get(KEY), is(nullValue()));
+        assertThat(cache.get(KEY, () -> "value"), is("value"));
+    }
+
+    @Test(timeout = 10000L)
+    public void failedLoadDoesNotBlockOtherCallers() {
+        final RevalidatingCache cache = new RevalidatingCache(delegate, TimeUnit.MINUTES.toMillis(1), TimeUnit.MINUTES.toMillis(10), Runnable::run);
+
+        try {
+            cache.get(KEY, () -> {
+                throw new IllegalStateException("Backend unavailable");
+            });
+            fail("Expected the load to fail");
+        } catch (final Cache.ValueRetrievalException ignored) {
+        }
+
+        assertThat(cache.get(KEY), is(nullValue()));
+        assertThat(cache.get(KEY, () -> "value"), is("value"));
+        assertThat(cache.get(KEY).get(), is("value"));
+    }
+
+    @Test
+    public void waitingCallersLoadThemselvesAfterTimeout() {
+        final RevalidatingCache cache = new RevalidatingCache(delegate, TimeUnit.MINUTES.toMillis(1), 10L, Runnable::run);
+        delegate.put(KEY, new RevalidatingCache.StampedValue("stale", System.currentTimeMillis() - 1));
+
+        // this caller starts a refresh and never finishes it
+        assertThat(cache.get(KEY), is(nullValue()));
+        delegate.evict(KEY);
+
+        assertThat(cache.get(KEY, () -> "value"), is("value"));
+    }
+
+    @Test
+    public void staleValueIsServedWhileOneCallerRefreshes() {
+        final RevalidatingCache cache = new RevalidatingCache(delegate, TimeUnit.MINUTES.toMillis(1), TimeUnit.SECONDS.toMillis(10), Runnable::run);
+        delegate.put(KEY, new RevalidatingCache.StampedValue("stale", System.currentTimeMillis() - 1));
+
+        assertThat(cache.get(KEY), is(nullValue()));
+        assertThat(cache.get(KEY).get(), is("stale"));
+
+        cache.put(KEY, "fresh");
+        assertThat(cache.get(KEY).get(), is("fresh"));
+    }
+
+    @Test
+    public void staleValueIsRefreshedInBackgroundForValueLoaders() {
+        final RevalidatingCache cache = new RevalidatingCache(delegate, TimeUnit.MINUTES.toMillis(1), TimeUnit.SECONDS.toMillis(10), Runnable::run);
+        delegate.put(KEY, new RevalidatingCache.StampedValue("stale", System.currentTimeMillis() - 1));
+
+        assertThat(cache.get(KEY, () -> "fresh"), is("stale"));
+        assertThat(cache.get(KEY, () -> "other"), is("fresh"));
+    }
+
+    @Test
+    public void concurrentLoadersAreCoalesced() throws Exception {
+        final RevalidatingCache cache = new RevalidatingCache(delegate, TimeUnit.MINUTES.toMillis(1), TimeUnit.SECONDS.toMillis(10), Runnable::run);
+        final AtomicInteger loads = new AtomicInteger();
+        final CompletableFuture<Void> loadStarted = new CompletableFuture<>();
+        final CompletableFuture<Void> finishLoad = new CompletableFuture<>();
+
+        final CompletableFuture<Object> first = CompletableFuture.supplyAsync(() -> cache.get(KEY, () -> {
+            loads.incrementAndGet();
+            loadStarted.complete(null);
+            finishLoad.get();
+            return "value";
+        }));
+
+        loadStarted.get(10, TimeUnit.SECONDS);
+        final CompletableFuture<Object> second = CompletableFuture.supplyAsync(() -> cache.get(KEY, () -> {
+            loads.incrementAndGet();
+            return "other";
+        }));
+        finishLoad.complete(null);
+
+        assertThat(first.get(10, TimeUnit.SECONDS), is("value"));
+        assertThat(second.get(10, TimeUnit.SECONDS), is("value"));
+        assertThat(loads.get(), is(1));
+    }
+}
@@ -7,6 +7,7 @@ package com.hp.autonomy.frontend.find.core.export;
 
 import com.hp.autonomy.frontend.configuration.ConfigService;
 import com.hp.autonomy.searchcomponents.core.config.FieldInfo;
+import com.hp.autonomy.searchcomponents.core.config.FieldType;
 import com.hp.autonomy.searchcomponents.core.config.FieldsInfo;
 import com.hp.autonomy.searchcomponents.core.config.HavenSearchCapable;
 import org.junit.Before;
@@ -17,6 +18,7 @@ import org.mockito.runners.MockitoJUnitRunner;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 
@@ -79,8 +81,21 @@ public class CsvExportStrategyTest {
     @Test
     public void exportRecord() throws IOException {
         try (final ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            csvExportStrategy.exportRecord(outputStream, Arrays.asList("simple", "", "with ,", "with , and \""));
-            assertThat(outputStream.toString().trim(), is("simple,,\"with ,\",\"with , and \"\"\""));
+            try (final ExportSession session = csvExportStrategy.openSession(outputStream, Collections.emptyList(), Collections.emptyList())) {
+                session.exportRecord(Arrays.asList("simple", "", "with ,", "with , and \""));
+            }
+            assertThat(new String(outputStream.toByteArray(), StandardCharsets.UTF_8).trim(), is("\uFEFF\r\nsimple,,\"with ,\",\"with , and \"\"\""));
+        }
+    }
+
+    @Test
+    public void openSessionWritesBomAndHeader() throws IOException {
+        try (final ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            try (final ExportSession session = csvExportStrategy.openSession(outputStream, Arrays.asList("Reference", "authors"), Arrays.asList(FieldType.STRING, FieldType.STRING))) {
+                session.exportRecord(Arrays.asList("1", "Homer"));
+                session.exportRecord(Arrays.asList("2", "Hesiod"));
+            }
+            assertThat(new String(outputStream.toByteArray(), StandardCharsets.UTF_8), is("\uFEFFReference,authors\r\n1,Homer\r\n2,Hesiod\r\n"));
         }
     }
 
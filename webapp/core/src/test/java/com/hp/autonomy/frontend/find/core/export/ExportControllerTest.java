@@ -9,24 +9,47 @@ import com.hp.autonomy.frontend.find.core.web.ControllerUtils;
 import com.hp.autonomy.frontend.find.core.web.ErrorModelAndViewInfo;
 import com.hp.autonomy.frontend.find.core.web.RequestMapper;
 import com.hp.autonomy.searchcomponents.core.search.QueryRequest;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
 import java.util.Collections;
+import java.util.zip.GZIPInputStream;
 
 import static com.hp.autonomy.frontend.find.core.export.ExportController.PAGINATION_SIZE;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
 public abstract class ExportControllerTest<R extends QueryRequest<?>, E extends Exception> {
@@ -36,37 +59,159 @@ public abstract class ExportControllerTest<R extends QueryRequest<?>, E extends
     protected RequestMapper<R> requestMapper;
     @Mock
     protected ControllerUtils controllerUtils;
+    @Mock
+    protected ExportJobService exportJobService;
 
-    private ExportController<R, E> controller;
+    protected ExportController<R, E> controller;
 
-    protected abstract ExportController<R, E> constructController() throws IOException;
+    protected abstract ExportController<R, E> constructController(int exportParallelism) throws IOException;
 
     protected abstract void mockNumberOfResults(int numberOfResults) throws E;
 
     @Before
     public void setUp() throws IOException {
-        controller = constructController();
+        controller = constructController(1);
+    }
+
+    @After
+    public void tearDown() {
+        controller.destroy();
     }
 
     @Test
     public void exportToCsv() throws IOException, E {
         mockNumberOfResults(PAGINATION_SIZE);
-        controller.exportToCsv("{}", Collections.emptyList());
-        verify(exportService).export(any(OutputStream.class), any(), eq(ExportFormat.CSV), eq(Collections.emptyList()));
+        controller.exportToCsv("{}", Collections.emptyList(), ExportCompression.NONE, new MockHttpServletResponse());
+        verify(exportService).export(any(ExportSession.class), any(), eq(ExportFormat.CSV), eq(Collections.emptyList()));
+    }
+
+    @Test
+    public void exportToCsvWritesHeaders() throws IOException, E {
+        mockNumberOfResults(PAGINATION_SIZE);
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.exportToCsv("{}", Collections.emptyList(), ExportCompression.NONE, response);
+        assertThat(response.getContentType(), is(ExportFormat.CSV.getMimeType()));
+        assertThat(response.getHeader(HttpHeaders.CONTENT_DISPOSITION), containsString("query-results.csv"));
+    }
+
+    @Test
+    public void exportToNdjson() throws IOException, E {
+        mockNumberOfResults(PAGINATION_SIZE);
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.exportToNdjson("{}", Collections.emptyList(), ExportCompression.NONE, response);
+        verify(exportService).openSession(any(OutputStream.class), eq(ExportFormat.NDJSON), eq(Collections.emptyList()));
+        verify(exportService).export(any(ExportSession.class), any(), eq(ExportFormat.NDJSON), eq(Collections.emptyList()));
+        assertThat(response.getContentType(), is(ExportFormat.NDJSON.getMimeType()));
+        assertThat(response.getHeader(HttpHeaders.CONTENT_DISPOSITION), containsString("query-results.ndjson"));
+    }
+
+    @Test
+    public void exportToCsvWithGzipCompression() throws IOException, E {
+        mockNumberOfResults(PAGINATION_SIZE);
+        when(exportService.openSession(any(), any(), any())).thenAnswer(invocation -> {
+            ((OutputStream) invocation.getArguments()[0]).write("Reference\r\n".getBytes(StandardCharsets.UTF_8));
+            return mock(ExportSession.class);
+        });
+
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.exportToCsv("{}", Collections.emptyList(), ExportCompression.GZIP, response);
+
+        assertThat(response.getContentType(), is(ExportCompression.GZIP.getMimeType()));
+        assertThat(response.getHeader(HttpHeaders.CONTENT_DISPOSITION), containsString("query-results.csv.gz"));
+        try (final GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertThat(IOUtils.toString(inputStream, StandardCharsets.UTF_8), is("Reference\r\n"));
+        }
     }
 
     @Test
     public void exportToCsvNoResults() throws IOException, E {
         mockNumberOfResults(0);
-        controller.exportToCsv("{}", Collections.emptyList());
+        controller.exportToCsv("{}", Collections.emptyList(), ExportCompression.NONE, new MockHttpServletResponse());
         verify(exportService, never()).export(any(), any(), any(), any());
     }
 
     @Test
     public void exportToCsvMultipleResults() throws IOException, E {
         mockNumberOfResults(2 * PAGINATION_SIZE + 1);
-        controller.exportToCsv("{}", Collections.emptyList());
-        verify(exportService, times(3)).export(any(OutputStream.class), any(), eq(ExportFormat.CSV), eq(Collections.emptyList()));
+        controller.exportToCsv("{}", Collections.emptyList(), ExportCompression.NONE, new MockHttpServletResponse());
+        verify(exportService).openSession(any(OutputStream.class), eq(ExportFormat.CSV), eq(Collections.emptyList()));
+        verify(exportService, times(3)).export(any(ExportSession.class), any(), eq(ExportFormat.CSV), eq(Collections.emptyList()));
+    }
+
+    @Test
+    public void exportToCsvMultipleResultsInParallel() throws IOException, E {
+        controller.destroy();
+        controller = constructController(2);
+
+        mockNumberOfResults(3 * PAGINATION_SIZE);
+        doAnswer(invocation -> {
+            ((ExportSession) invocation.getArguments()[0]).exportRecord(Collections.singletonList("value"));
+            return null;
+        }).when(exportService).export(any(), any(), any(), any());
+        final ExportSession exportSession = mock(ExportSession.class);
+        when(exportService.openSession(any(), any(), any())).thenReturn(exportSession);
+
+        controller.exportToCsv("{}", Collections.emptyList(), ExportCompression.NONE, new MockHttpServletResponse());
+
+        verify(exportService, times(3)).export(argThat(not(sameInstance(exportSession))), any(), eq(ExportFormat.CSV), eq(Collections.emptyList()));
+        verify(exportSession, times(3)).exportRecord(Collections.singletonList("value"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void exportToCsvInParallelRethrowsPageErrors() throws IOException, E {
+        controller.destroy();
+        controller = constructController(2);
+
+        mockNumberOfResults(3 * PAGINATION_SIZE);
+        doThrow(new IllegalStateException()).when(exportService).export(any(), any(), any(), any());
+
+        controller.exportToCsv("{}", Collections.emptyList(), ExportCompression.NONE, new MockHttpServletResponse());
+    }
+
+    @Test
+    public void submitExportJob() throws IOException, E {
+        final ExportJob job = new ExportJob("job", "user", ExportFormat.NDJSON, ExportCompression.NONE, new File("export.ndjson"));
+        when(exportJobService.submit(eq("user"), eq(ExportFormat.NDJSON), eq(ExportCompression.NONE), any())).thenReturn(job);
+
+        assertThat(controller.submitExportJob("{}", Collections.emptyList(), ExportFormat.NDJSON, ExportCompression.NONE, principal("user")), is(job.getStatus()));
+    }
+
+    @Test
+    public void submittedExportJobTracksProgress() throws Exception {
+        mockNumberOfResults(PAGINATION_SIZE);
+        doAnswer(invocation -> {
+            ((ExportSession) invocation.getArguments()[0]).exportRecord(Collections.singletonList("value"));
+            return null;
+        }).when(exportService).export(any(), any(), any(), any());
+        when(exportService.openSession(any(), any(), any())).thenReturn(mock(ExportSession.class));
+        final ArgumentCaptor<ExportJobService.ExportJobTask> taskCaptor = ArgumentCaptor.forClass(ExportJobService.ExportJobTask.class);
+        final ExportJob job = new ExportJob("job", "user", ExportFormat.CSV, ExportCompression.NONE, new File("export.csv"));
+        when(exportJobService.submit(any(), any(), any(), taskCaptor.capture())).thenReturn(job);
+
+        controller.submitExportJob("{}", Collections.emptyList(), ExportFormat.CSV, ExportCompression.NONE, principal("user"));
+        taskCaptor.getValue().export(job, mock(OutputStream.class));
+
+        assertThat(job.getStatus().getRowsWritten(), is(1L));
+    }
+
+    @Test
+    public void downloadIncompleteExportJob() {
+        final ExportJob job = new ExportJob("job", "user", ExportFormat.CSV, ExportCompression.NONE, new File("export.csv"));
+        when(exportJobService.getJob("user", "job")).thenReturn(job);
+
+        assertThat(controller.downloadExportJob("job", principal("user")).getStatusCode(), is(HttpStatus.CONFLICT));
+    }
+
+    @Test
+    public void downloadCompleteExportJob() {
+        final ExportJob job = new ExportJob("job", "user", ExportFormat.CSV, ExportCompression.GZIP, new File("export.csv.gz"));
+        job.setState(ExportJobState.COMPLETE);
+        when(exportJobService.getJob("user", "job")).thenReturn(job);
+
+        final ResponseEntity<Resource> response = controller.downloadExportJob("job", principal("user"));
+        assertThat(response.getStatusCode(), is(HttpStatus.OK));
+        assertThat(response.getHeaders().getContentType().toString(), is(ExportCompression.GZIP.getMimeType()));
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION), containsString("query-results.csv.gz"));
     }
 
     @Test
@@ -74,4 +219,18 @@ public abstract class ExportControllerTest<R extends QueryRequest<?>, E extends
         controller.handleException(new IOException(""), new MockHttpServletRequest(), new MockHttpServletResponse());
         verify(controllerUtils).buildErrorModelAndView(any(ErrorModelAndViewInfo.class));
     }
+
+    @Test
+    public void handleExceptionAfterCommit() {
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setCommitted(true);
+        assertThat(controller.handleException(new IOException(""), new MockHttpServletRequest(), response), nullValue());
+        verify(controllerUtils, never()).buildErrorModelAndView(any(ErrorModelAndViewInfo.class));
+    }
+
+    private Principal principal(final String name) {
+        final Principal principal = mock(Principal.class);
+        when(principal.getName()).thenReturn(name);
+        return principal;
+    }
 }
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.export;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assume.assumeTrue;
+
+public class ExportJobServiceTest {
+    private ExportJobService exportJobService;
+
+    @Before
+    public void setUp() {
+        exportJobService = new ExportJobService(1, 1, 1, 60);
+    }
+
+    @After
+    public void tearDown() {
+        exportJobService.destroy();
+    }
+
+    @Test
+    public void submit() throws IOException, InterruptedException {
+        final ExportJob job = exportJobService.submit("user", ExportFormat.CSV, ExportCompression.NONE, (exportJob, outputStream) -> {
+            final ExportSession exportSession = exportJob.trackProgress(new BufferedExportSession());
+            exportSession.setResultCount(1);
+            exportSession.exportRecord(Collections.singletonList("value"));
+            outputStream.write("value".getBytes(StandardCharsets.UTF_8));
+        });
+
+        awaitCompletion(job);
+
+        assertThat(job.getState(), is(ExportJobState.COMPLETE));
+        assertThat(job.getStatus(), is(new ExportJobStatus(job.getId(), ExportJobState.COMPLETE, 1L, 1)));
+        assertThat(FileUtils.readFileToString(job.getFile(), StandardCharsets.UTF_8), is("value"));
+        assertThat(exportJobService.getJob("user", job.getId()), is(job));
+    }
+
+    @Test
+    public void compressedFileIsCompleteWhenJobIs() throws IOException, InterruptedException {
+        final ExportJob job = exportJobService.submit("user", ExportFormat.CSV, ExportCompression.GZIP, (exportJob, outputStream) ->
+                outputStream.write("value".getBytes(StandardCharsets.UTF_8)));
+
+        awaitCompletion(job);
+
+        assertThat(job.getState(), is(ExportJobState.COMPLETE));
+
+        try(final InputStream inputStream = new GZIPInputStream(new FileInputStream(job.getFile()))) {
+            assertThat(IOUtils.toString(inputStream, StandardCharsets.UTF_8), is("value"));
+        }
+    }
+
+    @Test(expected = ExportJobNotFoundException.class)
+    public void expiredJobsAreRemoved() throws IOException, InterruptedException {
+        final ExportJobService expiringJobService = new ExportJobService(1, 1, 1, 0);
+
+        try {
+            final ExportJob job = expiringJobService.submit("user", ExportFormat.CSV, ExportCompression.NONE, (exportJob, outputStream) -> {});
+            awaitCompletion(job);
+            Thread.sleep(10);
+
+            expiringJobService.removeExpiredJobs();
+            assertThat(job.getFile().exists(), is(false));
+
+            expiringJobService.getJob("user", job.getId());
+        } finally {
+            expiringJobService.destroy();
+        }
+    }
+
+    @Test
+    public void failedTask() throws IOException, InterruptedException {
+        final ExportJob job = exportJobService.submit("user", ExportFormat.CSV, ExportCompression.NONE, (exportJob, outputStream) -> {
+            throw new IOException("Could not export");
+        });
+
+        awaitCompletion(job);
+
+        assertThat(job.getState(), is(ExportJobState.FAILED));
+    }
+
+    @Test(expected = ExportJobNotFoundException.class)
+    public void getJobOfAnotherUser() throws IOException, InterruptedException {
+        final ExportJob job = exportJobService.submit("user", ExportFormat.CSV, ExportCompression.NONE, (exportJob, outputStream) -> {});
+        awaitCompletion(job);
+
+        exportJobService.getJob("another user", job.getId());
+    }
+
+    @Test(expected = ExportJobNotFoundException.class)
+    public void cancel() throws IOException, InterruptedException {
+        final ExportJob job = exportJobService.submit("user", ExportFormat.CSV, ExportCompression.NONE, (exportJob, outputStream) -> {});
+        awaitCompletion(job);
+
+        exportJobService.cancel("user", job.getId());
+        assertThat(job.getFile().exists(), is(false));
+
+        exportJobService.getJob("user", job.getId());
+    }
+
+    @Test
+    public void cancelledJobCountsUntilItsTaskExits() throws IOException, InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        // blocking I/O carries on regardless of the interrupt
+        final ExportJob job = exportJobService.submit("user", ExportFormat.CSV, ExportCompression.NONE, (exportJob, outputStream) -> Uninterruptibles.awaitUninterruptibly(latch));
+        awaitState(job, ExportJobState.RUNNING);
+
+        exportJobService.cancel("user", job.getId());
+        assertThat(job.getFile().exists(), is(true));
+
+        try {
+            exportJobService.submit("user", ExportFormat.CSV, ExportCompression.NONE, (exportJob, outputStream) -> {});
+            throw new AssertionError("Expected a new job to be rejected while the cancelled one is still running");
+        } catch(final ExportJobRejectedException ignored) {
+            // expected
+        }
+
+        latch.countDown();
+        awaitFileDeleted(job);
+
+        awaitCompletion(exportJobService.submit("user", ExportFormat.CSV, ExportCompression.NONE, (exportJob, outputStream) -> {}));
+    }
+
+    @Test
+    public void cancelledQueuedJobNeverCreatesItsFile() throws IOException, InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final ExportJob runningJob = exportJobService.submit("another user", ExportFormat.CSV, ExportCompression.NONE, (exportJob, outputStream) -> latch.await());
+        final ExportJob queuedJob = exportJobService.submit("user", ExportFormat.CSV, ExportCompression.NONE, (exportJob, outputStream) -> {});
+
+        exportJobService.cancel("user", queuedJob.getId());
+        assertThat(queuedJob.getFile().exists(), is(false));
+
+        latch.countDown();
+        awaitCompletion(runningJob);
+        Thread.sleep(100);
+
+        assertThat(queuedJob.getFile().exists(), is(false));
+        assertThat(queuedJob.getState(), is(ExportJobState.CANCELLED));
+    }
+
+    @Test
+    public void filesAreOnlyReadableByOwner() throws IOException, InterruptedException {
+        final ExportJob job = exportJobService.submit("user", ExportFormat.CSV, ExportCompression.NONE, (exportJob, outputStream) -> {});
+        awaitCompletion(job);
+
+        final Path file = job.getFile().toPath();
+        assumeTrue(Files.getFileStore(file).supportsFileAttributeView(PosixFileAttributeView.class));
+
+        assertThat(Files.getPosixFilePermissions(file), is(EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE)));
+        assertThat(Files.getPosixFilePermissions(file.getParent()), is(EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_EXECUTE)));
+    }
+
+    @Test
+    public void jobsAreCappedPerUser() throws IOException, InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final ExportJob job = exportJobService.submit("user", ExportFormat.CSV, ExportCompression.NONE, (exportJob, outputStream) -> latch.await());
+
+        try {
+            exportJobService.submit("user", ExportFormat.CSV, ExportCompression.NONE, (exportJob, outputStream) -> {});
+            throw new AssertionError("Expected second job for the same user to be rejected");
+        } catch(final ExportJobRejectedException ignored) {
+            // expected
+        }
+
+        latch.countDown();
+        awaitCompletion(job);
+
+        // the first job has finished, so the user can export again
+        awaitCompletion(exportJobService.submit("user", ExportFormat.CSV, ExportCompression.NONE, (exportJob, outputStream) -> {}));
+    }
+
+    private void awaitState(final ExportJob job, final ExportJobState state) throws InterruptedException {
+        final long timeout = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+
+        while(job.getState() != state) {
+            if(System.currentTimeMillis() > timeout) {
+                throw new AssertionError("Export job did not reach state " + state);
+            }
+
+            Thread.sleep(10);
+        }
+    }
+
+    private void awaitFileDeleted(final ExportJob job) throws InterruptedException {
+        final long timeout = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+
+        while(job.getFile().exists()) {
+            if(System.currentTimeMillis() > timeout) {
+                throw new AssertionError("Export file was not deleted");
+            }
+
+            Thread.sleep(10);
+        }
+    }
+
+    private void awaitCompletion(final ExportJob job) throws InterruptedException {
+        final long timeout = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+
+        while(job.getState().isActive()) {
+            if(System.currentTimeMillis() > timeout) {
+                throw new AssertionError("Export job did not complete");
+            }
+
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.export;
+
+import com.hp.autonomy.frontend.find.core.export.ExportPagination.ExportPage;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class ExportPaginationTest {
+    private static final int DEFAULT_PAGE_SIZE = 1000;
+
+    @Test
+    public void getPageSizeForAllFields() {
+        assertThat(ExportPagination.getPageSize(Collections.emptyList(), DEFAULT_PAGE_SIZE), is(DEFAULT_PAGE_SIZE));
+        assertThat(ExportPagination.getPageSize(null, DEFAULT_PAGE_SIZE), is(DEFAULT_PAGE_SIZE));
+    }
+
+    @Test
+    public void getPageSizeForNarrowSelection() {
+        assertThat(ExportPagination.getPageSize(Collections.singletonList("REFERENCE"), DEFAULT_PAGE_SIZE), is(ExportPagination.MAX_PAGE_SIZE));
+    }
+
+    @Test
+    public void getPageSizeForWideSelection() {
+        final List<String> selectedFieldIds = new ArrayList<>();
+        for(int i = 0; i < 100; i++) {
+            selectedFieldIds.add("field" + i);
+        }
+
+        assertThat(ExportPagination.getPageSize(selectedFieldIds, DEFAULT_PAGE_SIZE), is(ExportPagination.MIN_PAGE_SIZE));
+    }
+
+    @Test
+    public void getPageSizeShrinksAsSelectionWidens() {
+        assertThat(ExportPagination.getPageSize(Arrays.asList("REFERENCE", "TITLE"), DEFAULT_PAGE_SIZE),
+                greaterThan(ExportPagination.getPageSize(Arrays.asList("REFERENCE", "TITLE", "DATE", "WEIGHT", "SUMMARY", "authors", "categories"), DEFAULT_PAGE_SIZE)));
+    }
+
+    @Test
+    public void getPagesNoResults() {
+        assertThat(ExportPagination.getPages(0, DEFAULT_PAGE_SIZE), is(empty()));
+    }
+
+    @Test
+    public void getPagesAcrossPageBoundary() {
+        assertThat(ExportPagination.getPages(2001, DEFAULT_PAGE_SIZE), contains(
+                new ExportPage(1, 1000),
+                new ExportPage(1001, 2000),
+                new ExportPage(2001, 2001)
+        ));
+    }
+
+    @Test
+    public void getPagesExactMultiple() {
+        assertThat(ExportPagination.getPages(2000, DEFAULT_PAGE_SIZE), contains(
+                new ExportPage(1, 1000),
+                new ExportPage(1001, 2000)
+        ));
+    }
+
+    @Test
+    public void getPagesNearIntegerLimit() {
+        final List<ExportPage> pages = ExportPagination.getPages(Integer.MAX_VALUE, Integer.MAX_VALUE - 1);
+        assertThat(pages, contains(
+                new ExportPage(1, Integer.MAX_VALUE - 1),
+                new ExportPage(Integer.MAX_VALUE, Integer.MAX_VALUE)
+        ));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getPagesInvalidPageSize() {
+        ExportPagination.getPages(10, 0);
+    }
+
+    @Test
+    public void randomisedPagesCoverEveryResultOnce() {
+        final Random random = new Random(20170413L);
+
+        for(int run = 0; run < 500; run++) {
+            final int resultCount = random.nextInt(20000);
+            final int pageSize = 1 + random.nextInt(3000);
+
+            final List<ExportPage> pages = ExportPagination.getPages(resultCount, pageSize);
+            // Stub backend applying start and max results as an absolute window onto results 1..resultCount
+            final List<Integer> exported = new ArrayList<>();
+            for(final ExportPage page : pages) {
+                assertThat(page.getSize(), lessThanOrEqualTo(pageSize));
+
+                for(int position = page.getStart(); position <= Math.min(page.getEnd(), resultCount); position++) {
+                    exported.add(position);
+                }
+            }
+
+            assertThat("resultCount=" + resultCount + ", pageSize=" + pageSize, exported.size(), is(resultCount));
+            for(int i = 0; i < exported.size(); i++) {
+                assertThat(exported.get(i), is(i + 1));
+            }
+        }
+    }
+}
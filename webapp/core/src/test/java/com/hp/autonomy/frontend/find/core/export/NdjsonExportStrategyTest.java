@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.core.export;
+
+import com.hp.autonomy.frontend.configuration.ConfigService;
+import com.hp.autonomy.searchcomponents.core.config.FieldInfo;
+import com.hp.autonomy.searchcomponents.core.config.FieldType;
+import com.hp.autonomy.searchcomponents.core.config.FieldsInfo;
+import com.hp.autonomy.searchcomponents.core.config.HavenSearchCapable;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class NdjsonExportStrategyTest {
+    @Mock
+    private ConfigService<HavenSearchCapable> configService;
+    @Mock
+    private HavenSearchCapable config;
+
+    private NdjsonExportStrategy ndjsonExportStrategy;
+
+    @Before
+    public void setUp() {
+        when(configService.getConfig()).thenReturn(config);
+        when(config.getFieldsInfo()).thenReturn(FieldsInfo.builder()
+                .populateResponseMap("authors", FieldInfo.<String>builder()
+                        .id("authors")
+                        .name("AUTHOR")
+                        .type(FieldType.STRING)
+                        .build())
+                .populateResponseMap("books", FieldInfo.<Double>builder()
+                        .id("books")
+                        .name("BOOKS")
+                        .type(FieldType.NUMBER)
+                        .build())
+                .build());
+
+        ndjsonExportStrategy = new NdjsonExportStrategy(configService);
+    }
+
+    @Test
+    public void writeHeader() {
+        assertThat(ndjsonExportStrategy.writeHeader(), is(false));
+    }
+
+    @Test
+    public void getFieldTypes() {
+        final MetadataNode metadataNode = mock(MetadataNode.class);
+        when(metadataNode.getName()).thenReturn("DATE");
+        when(metadataNode.getFieldType()).thenReturn(FieldType.DATE);
+
+        assertThat(ndjsonExportStrategy.getFieldTypes(new MetadataNode[]{metadataNode}, Collections.emptyList()), contains(FieldType.DATE, FieldType.STRING, FieldType.NUMBER));
+        assertThat(ndjsonExportStrategy.getFieldTypes(new MetadataNode[]{metadataNode}, Collections.singletonList("books")), contains(FieldType.NUMBER));
+    }
+
+    @Test
+    public void exportTypedRecords() throws IOException {
+        try (final ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            try (final ExportSession session = ndjsonExportStrategy.openSession(outputStream,
+                    Arrays.asList("Reference", "Weight", "epic", "authors"),
+                    Arrays.asList(FieldType.STRING, FieldType.NUMBER, FieldType.BOOLEAN, FieldType.STRING))) {
+                session.exportRecord(Arrays.asList("1", "0.51", "true", "Homer"));
+                session.exportRecord(Arrays.asList("2", "", "maybe", "with \"quotes\""));
+            }
+
+            assertThat(new String(outputStream.toByteArray(), StandardCharsets.UTF_8), is(
+                    "{\"Reference\":\"1\",\"Weight\":0.51,\"epic\":true,\"authors\":\"Homer\"}\n" +
+                    "{\"Reference\":\"2\",\"Weight\":null,\"epic\":\"maybe\",\"authors\":\"with \\\"quotes\\\"\"}\n"));
+        }
+    }
+
+    @Test
+    public void exportCombinedNumericValuesAsString() throws IOException {
+        try (final ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            try (final ExportSession session = ndjsonExportStrategy.openSession(outputStream, Collections.singletonList("books"), Collections.singletonList(FieldType.NUMBER))) {
+                session.exportRecord(Collections.singletonList(ndjsonExportStrategy.combineValues(Arrays.asList("12", "24"))));
+            }
+
+            assertThat(new String(outputStream.toByteArray(), StandardCharsets.UTF_8), is("{\"books\":\"12, 24\"}\n"));
+        }
+    }
+
+    @Test
+    public void getExportFormat() {
+        assertThat(ndjsonExportStrategy.getExportFormat(), is(ExportFormat.NDJSON));
+    }
+}
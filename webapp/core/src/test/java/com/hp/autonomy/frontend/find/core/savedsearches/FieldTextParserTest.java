@@ -89,4 +89,29 @@ public class FieldTextParserTest {
         assertThat(fieldToValues, hasEntry(is("YEAR"), arrayContaining("1066", "1485")));
         assertThat(fieldToValues, hasEntry(is("DATE"), arrayContaining("123456789e", "123456791e")));
     }
+
+    @Test
+    public void toFieldTextIsIndependentOfValueAndRangeOrder() {
+        final FieldAndValue dog = new FieldAndValue("SPECIES", "dog");
+        final FieldAndValue cat = new FieldAndValue("SPECIES", "cat");
+        final FieldAndValue white = new FieldAndValue("COLOUR", "white");
+
+        final ParametricRange laterYears = new ParametricRange("YEAR", 1485, 1603, ParametricRange.Type.Numeric);
+        final ParametricRange earlierYears = new ParametricRange("YEAR", 1066, 1485, ParametricRange.Type.Numeric);
+        final ParametricRange date = new ParametricRange("DATE", 123456789L, 123456791L, ParametricRange.Type.Date);
+
+        when(savedSearch.getParametricValues()).thenReturn(ImmutableSet.of(dog, cat, white));
+        when(savedSearch.getParametricRanges()).thenReturn(ImmutableSet.of(laterYears, earlierYears, date));
+        final String fieldText = fieldTextParser.toFieldText(savedSearch);
+
+        when(savedSearch.getParametricValues()).thenReturn(ImmutableSet.of(white, cat, dog));
+        when(savedSearch.getParametricRanges()).thenReturn(ImmutableSet.of(date, earlierYears, laterYears));
+        assertThat(fieldTextParser.toFieldText(savedSearch), is(fieldText));
+
+        // fields are in name order, values within a field in natural order, and ranges by field then bounds
+        assertThat(fieldText, containsString("MATCH{cat,dog}:SPECIES"));
+        assertThat(fieldText.indexOf(":COLOUR"), lessThan(fieldText.indexOf(":SPECIES")));
+        assertThat(fieldText.indexOf(":DATE"), lessThan(fieldText.indexOf("NRANGE{1066,1485}:YEAR")));
+        assertThat(fieldText.indexOf("NRANGE{1066,1485}:YEAR"), lessThan(fieldText.indexOf("NRANGE{1485,1603}:YEAR")));
+    }
 }
@@ -12,19 +12,26 @@ import com.hp.autonomy.frontend.configuration.server.HostAndPort;
 import com.hp.autonomy.frontend.find.core.beanconfiguration.AppConfiguration;
 import com.hp.autonomy.frontend.find.core.beanconfiguration.RedisCondition;
 import com.hp.autonomy.frontend.find.core.web.FindCacheNames;
+import com.hp.autonomy.frontend.find.hod.configuration.CompressingRedisSerializer;
+import com.hp.autonomy.frontend.find.hod.configuration.DigestRedisKeySerializer;
 import com.hp.autonomy.frontend.find.hod.configuration.HodFindConfig;
+import com.hp.autonomy.frontend.find.hod.configuration.NearCacheRedisCacheManager;
 import com.hp.autonomy.frontend.find.hod.web.HodFindCacheNames;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.DefaultRedisCachePrefix;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.MessageListener;
 import org.springframework.data.redis.connection.RedisSentinelConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.session.data.redis.config.ConfigureNotifyKeyspaceEventsAction;
 import org.springframework.session.data.redis.config.ConfigureRedisAction;
 import org.springframework.session.data.redis.config.annotation.web.http.EnableRedisHttpSession;
@@ -36,6 +43,16 @@ import java.util.Map;
 @EnableRedisHttpSession
 public class RedisConfiguration {
     private static final int DEFAULT_EXPIRATION = 30 * 60;
+    private static final String COMPRESSION_THRESHOLD_PROPERTY_KEY = "find.cache.redis.compressionThreshold";
+    private static final int COMPRESSION_THRESHOLD_DEFAULT = 1024;
+    private static final String COMPRESSION_THRESHOLD_PROPERTY = "${" + COMPRESSION_THRESHOLD_PROPERTY_KEY + ':' + COMPRESSION_THRESHOLD_DEFAULT + '}';
+    private static final String NEAR_CACHE_SIZE_PROPERTY_KEY = "find.cache.redis.nearCacheSize";
+    private static final int NEAR_CACHE_SIZE_DEFAULT = 0;
+    private static final String NEAR_CACHE_SIZE_PROPERTY = "${" + NEAR_CACHE_SIZE_PROPERTY_KEY + ':' + NEAR_CACHE_SIZE_DEFAULT + '}';
+    private static final String NEAR_CACHE_ENABLED_EXPRESSION = NEAR_CACHE_SIZE_PROPERTY + " > 0";
+    private static final String NEAR_CACHE_SECONDS_PROPERTY_KEY = "find.cache.redis.nearCacheSeconds";
+    private static final int NEAR_CACHE_SECONDS_DEFAULT = 30;
+    private static final String NEAR_CACHE_SECONDS_PROPERTY = "${" + NEAR_CACHE_SECONDS_PROPERTY_KEY + ':' + NEAR_CACHE_SECONDS_DEFAULT + '}';
 
     @Autowired
     private ConfigService<HodFindConfig> configService;
@@ -43,6 +60,15 @@ public class RedisConfiguration {
     @Value(AppConfiguration.GIT_COMMIT_PROPERTY)
     private String commit;
 
+    @Value(COMPRESSION_THRESHOLD_PROPERTY)
+    private int compressionThreshold;
+
+    @Value(NEAR_CACHE_SIZE_PROPERTY)
+    private int nearCacheSize;
+
+    @Value(NEAR_CACHE_SECONDS_PROPERTY)
+    private int nearCacheSeconds;
+
     @Bean
     public JedisConnectionFactory redisConnectionFactory() {
         final RedisConfig config = configService.getConfig().getRedis();
@@ -75,7 +101,10 @@ public class RedisConfiguration {
 
     @Bean
     public CacheManager cacheManager() {
-        final RedisCacheManager cacheManager = new RedisCacheManager(cachingRedisTemplate());
+        // Each node keeps its own near caches, invalidated by the other nodes over pub/sub
+        final RedisCacheManager cacheManager = nearCacheSize > 0
+                ? new NearCacheRedisCacheManager(cachingRedisTemplate(), getCacheInvalidationChannel(), nearCacheSize, nearCacheSeconds)
+                : new RedisCacheManager(cachingRedisTemplate());
         cacheManager.setUsePrefix(true);
         cacheManager.setCachePrefix(new DefaultRedisCachePrefix(":cache:" + commit + ':'));
 
@@ -89,13 +118,29 @@ public class RedisConfiguration {
     public RedisTemplate<Object, Object> cachingRedisTemplate() {
         final RedisTemplate<Object, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(redisConnectionFactory());
+        // The cache manager uses a key prefix, so never needs to read keys back
+        template.setKeySerializer(new DigestRedisKeySerializer());
+        template.setValueSerializer(new CompressingRedisSerializer(compressionThreshold));
         return template;
     }
 
+    // Only near caches listen for invalidations, so without them there is no need for another connection
+    @Bean
+    @ConditionalOnExpression(NEAR_CACHE_ENABLED_EXPRESSION)
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer() {
+        final RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory());
+        container.addMessageListener((MessageListener) cacheManager(), new ChannelTopic(getCacheInvalidationChannel()));
+        return container;
+    }
+
     @Bean
     public ConfigureRedisAction configureRedisAction() {
         // The config action might not be available in a secure redis (eg: Azure)
         return configService.getConfig().getRedis().getAutoConfigure() ? new ConfigureNotifyKeyspaceEventsAction() : ConfigureRedisAction.NO_OP;
     }
 
+    private String getCacheInvalidationChannel() {
+        return ":cache-invalidation:" + commit;
+    }
 }
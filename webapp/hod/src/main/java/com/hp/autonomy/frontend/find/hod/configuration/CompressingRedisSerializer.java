@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.hod.configuration;
+
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Serializes cached values with Java serialization, deflating those above a size threshold. Cached documents and
+ * parametric values are highly repetitive, so typically shrink to a fraction of their serialized size.
+ * <p>
+ * Each value is prefixed with a byte recording whether it was compressed, so the threshold can be changed without
+ * making existing entries unreadable.
+ */
+public class CompressingRedisSerializer implements RedisSerializer<Object> {
+    private static final byte UNCOMPRESSED = 0;
+    private static final byte DEFLATED = 1;
+
+    private final RedisSerializer<Object> serializer = new JdkSerializationRedisSerializer();
+    private final int compressionThreshold;
+
+    /**
+     * @param compressionThreshold serialized size in bytes at and above which values are compressed
+     */
+    public CompressingRedisSerializer(final int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(final Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+
+        final byte[] bytes = serializer.serialize(value);
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bytes.length + 1);
+
+        if (bytes.length < compressionThreshold) {
+            outputStream.write(UNCOMPRESSED);
+            outputStream.write(bytes, 0, bytes.length);
+            return outputStream.toByteArray();
+        }
+
+        outputStream.write(DEFLATED);
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+        try (final DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(outputStream, deflater)) {
+            deflaterOutputStream.write(bytes);
+        } catch (final IOException e) {
+            throw new SerializationException("Could not compress cached value", e);
+        } finally {
+            deflater.end();
+        }
+
+        return outputStream.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(final byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+
+        if (bytes[0] == UNCOMPRESSED) {
+            return serializer.deserialize(Arrays.copyOfRange(bytes, 1, bytes.length));
+        } else if (bytes[0] == DEFLATED) {
+            try (final InputStream inputStream = new InflaterInputStream(new ByteArrayInputStream(bytes, 1, bytes.length - 1))) {
+                final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bytes.length * 4);
+                final byte[] buffer = new byte[4096];
+                int read;
+
+                while ((read = inputStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, read);
+                }
+
+                return serializer.deserialize(outputStream.toByteArray());
+            } catch (final IOException e) {
+                throw new SerializationException("Could not decompress cached value", e);
+            }
+        } else {
+            throw new SerializationException("Unknown cached value format " + bytes[0]);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.hod.configuration;
+
+import com.google.common.hash.Hashing;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Serializes cache keys to the SHA-256 digest of their Java serialized form. Keys built from whole query requests
+ * serialize to several kilobytes; the digest is a fixed 32 bytes.
+ * <p>
+ * Keys cannot be read back, so this is only suitable for cache managers which use a key prefix and so never list keys.
+ */
+public class DigestRedisKeySerializer implements RedisSerializer<Object> {
+    private final RedisSerializer<Object> serializer = new JdkSerializationRedisSerializer();
+
+    @Override
+    public byte[] serialize(final Object key) throws SerializationException {
+        return key == null ? new byte[0] : Hashing.sha256().hashBytes(serializer.serialize(key)).asBytes();
+    }
+
+    @Override
+    public Object deserialize(final byte[] bytes) throws SerializationException {
+        throw new SerializationException("Cache keys are one-way digests and cannot be deserialized");
+    }
+}
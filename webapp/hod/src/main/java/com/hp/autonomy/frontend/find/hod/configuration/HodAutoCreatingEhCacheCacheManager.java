@@ -7,11 +7,13 @@ package com.hp.autonomy.frontend.find.hod.configuration;
 
 import com.hp.autonomy.frontend.find.core.beanconfiguration.InMemoryCondition;
 import com.hp.autonomy.frontend.find.core.configuration.AutoCreatingEhCacheCacheManager;
+import com.hp.autonomy.frontend.find.core.configuration.OffHeapStore;
 import com.hp.autonomy.frontend.find.hod.web.HodFindCacheNames;
 import com.hp.autonomy.hod.caching.HodCacheNameResolver;
 import net.sf.ehcache.CacheManager;
 import net.sf.ehcache.config.CacheConfiguration;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.CounterService;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.stereotype.Component;
 
@@ -20,9 +22,11 @@ import org.springframework.stereotype.Component;
 public class HodAutoCreatingEhCacheCacheManager extends AutoCreatingEhCacheCacheManager {
     private final HodCacheNameResolver cacheNameResolver;
 
+    @SuppressWarnings("ConstructorWithTooManyParameters")
     @Autowired
-    public HodAutoCreatingEhCacheCacheManager(final CacheManager cacheManager, final CacheConfiguration defaults, final HodCacheNameResolver cacheNameResolver) {
-        super(cacheManager, HodFindCacheNames.CACHE_EXPIRES, defaults);
+    public HodAutoCreatingEhCacheCacheManager(final CacheManager cacheManager, final CacheConfiguration defaults, final HodCacheNameResolver cacheNameResolver, final CounterService counterService, final OffHeapStore offHeapStore) {
+        // Caches are per user, so they all share the cache manager's heap pool rather than having budgets of their own
+        super(cacheManager, HodFindCacheNames.CACHE_EXPIRES, defaults, counterService, offHeapStore);
         this.cacheNameResolver = cacheNameResolver;
     }
 
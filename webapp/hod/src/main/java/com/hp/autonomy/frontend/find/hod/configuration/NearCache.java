@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.hod.configuration;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.Callable;
+import java.util.function.BiConsumer;
+
+/**
+ * {@link Cache} decorator which keeps recently used entries in a local {@link NearCacheStore} in front of a remote
+ * cache.
+ * <p>
+ * Local entries are keyed by the remote key bytes, so that changes made on other nodes can be invalidated by key.
+ * Puts, evictions and clears made through this cache are published to the invalidation listener. A put is always
+ * published rather than first checking whether it overwrites an entry, as publishing costs less than another round
+ * trip to the remote cache. Local entries also expire after a short time, which bounds how stale they can be if an
+ * invalidation is lost.
+ */
+public class NearCache implements Cache {
+    private final Cache delegate;
+    private final RedisSerializer<Object> keySerializer;
+    private final NearCacheStore localStore;
+    private final BiConsumer<String, byte[]> invalidationListener;
+
+    /**
+     * @param delegate             the remote cache
+     * @param keySerializer        the remote cache's key serializer
+     * @param localStore           the local entries, which may be shared with other near caches
+     * @param invalidationListener called with the cache name and key bytes when an entry is put or evicted, or
+     *                             with null key bytes when the cache is cleared
+     */
+    public NearCache(final Cache delegate,
+                     final RedisSerializer<Object> keySerializer,
+                     final NearCacheStore localStore,
+                     final BiConsumer<String, byte[]> invalidationListener) {
+        this.delegate = delegate;
+        this.keySerializer = keySerializer;
+        this.localStore = localStore;
+        this.invalidationListener = invalidationListener;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(final Object key) {
+        final byte[] localKey = localKey(key);
+        final ValueWrapper localValue = localStore.get(getName(), localKey);
+
+        if (localValue != null) {
+            return localValue;
+        }
+
+        final ValueWrapper value = delegate.get(key);
+
+        if (value != null) {
+            localStore.put(getName(), localKey, value);
+        }
+
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T get(final Object key, final Class<T> type) {
+        final ValueWrapper value = get(key);
+
+        if (value == null) {
+            return null;
+        } else if (type != null && !type.isInstance(value.get())) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value.get());
+        } else {
+            return (T) value.get();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T get(final Object key, final Callable<T> valueLoader) {
+        final byte[] localKey = localKey(key);
+        final ValueWrapper localValue = localStore.get(getName(), localKey);
+
+        if (localValue != null) {
+            return (T) localValue.get();
+        }
+
+        final T value = delegate.get(key, valueLoader);
+        localStore.put(getName(), localKey, new SimpleValueWrapper(value));
+        return value;
+    }
+
+    @Override
+    public void put(final Object key, final Object value) {
+        final byte[] localKey = localKey(key);
+        delegate.put(key, value);
+        invalidationListener.accept(getName(), localKey);
+        localStore.put(getName(), localKey, new SimpleValueWrapper(value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(final Object key, final Object value) {
+        final ValueWrapper existingValue = delegate.putIfAbsent(key, value);
+        localStore.put(getName(), localKey(key), existingValue == null ? new SimpleValueWrapper(value) : existingValue);
+        return existingValue;
+    }
+
+    @Override
+    public void evict(final Object key) {
+        final byte[] localKey = localKey(key);
+        delegate.evict(key);
+        localStore.invalidate(getName(), localKey);
+        invalidationListener.accept(getName(), localKey);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        localStore.invalidate(getName(), null);
+        invalidationListener.accept(getName(), null);
+    }
+
+    private byte[] localKey(final Object key) {
+        return keySerializer.serialize(key);
+    }
+}
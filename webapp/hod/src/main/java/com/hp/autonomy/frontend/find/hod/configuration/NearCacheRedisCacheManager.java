@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.hod.configuration;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * {@link RedisCacheManager} which puts a {@link NearCache} in front of each Redis cache, all sharing one size-bounded
+ * {@link NearCacheStore}. Changes are published on a Redis channel so that other nodes can drop their local copies;
+ * register this as a listener on that channel.
+ */
+@Slf4j
+public class NearCacheRedisCacheManager extends RedisCacheManager implements MessageListener {
+    private final String nodeId = UUID.randomUUID().toString();
+    private final RedisOperations<Object, Object> redisOperations;
+    private final String channel;
+    private final NearCacheStore nearCacheStore;
+
+    /**
+     * @param redisOperations         template for the caches and the invalidation channel
+     * @param channel                 the invalidation channel
+     * @param maximumSize             maximum number of local entries across all caches
+     * @param expireAfterWriteSeconds how long local entries are kept for
+     */
+    public NearCacheRedisCacheManager(final RedisOperations<Object, Object> redisOperations, final String channel, final long maximumSize, final long expireAfterWriteSeconds) {
+        super(redisOperations);
+        this.redisOperations = redisOperations;
+        this.channel = channel;
+        nearCacheStore = new NearCacheStore(maximumSize, expireAfterWriteSeconds);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected Cache decorateCache(final Cache cache) {
+        return new NearCache(super.decorateCache(cache), (RedisSerializer<Object>) redisOperations.getKeySerializer(), nearCacheStore, this::publishInvalidation);
+    }
+
+    @Override
+    public void onMessage(final Message message, final byte[] pattern) {
+        final Object body;
+
+        try {
+            body = redisOperations.getValueSerializer().deserialize(message.getBody());
+        } catch (final SerializationException e) {
+            log.warn("Ignoring unreadable cache invalidation", e);
+            return;
+        }
+
+        if (body instanceof CacheInvalidation) {
+            final CacheInvalidation invalidation = (CacheInvalidation) body;
+
+            if (!nodeId.equals(invalidation.getNodeId())) {
+                nearCacheStore.invalidate(invalidation.getCacheName(), invalidation.getKey());
+            }
+        }
+    }
+
+    private void publishInvalidation(final String cacheName, final byte[] key) {
+        redisOperations.convertAndSend(channel, new CacheInvalidation(nodeId, cacheName, key));
+    }
+
+    @Data
+    static class CacheInvalidation implements Serializable {
+        private static final long serialVersionUID = -2415794263520157816L;
+
+        private final String nodeId;
+        private final String cacheName;
+        private final byte[] key;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.hod.configuration;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.Data;
+import org.springframework.cache.Cache.ValueWrapper;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local entries for all of the {@link NearCache}s on a node, keyed by cache name and remote key bytes. The store is
+ * shared so that its size bounds the total number of local entries, however many caches (for example per user caches)
+ * there are. The least recently used entries are dropped first.
+ */
+public class NearCacheStore {
+    private final Cache<StoreKey, ValueWrapper> entries;
+
+    /**
+     * @param maximumSize             maximum number of local entries across all caches
+     * @param expireAfterWriteSeconds how long local entries are kept for
+     */
+    public NearCacheStore(final long maximumSize, final long expireAfterWriteSeconds) {
+        entries = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    public ValueWrapper get(final String cacheName, final byte[] key) {
+        return entries.getIfPresent(new StoreKey(cacheName, ByteBuffer.wrap(key)));
+    }
+
+    public void put(final String cacheName, final byte[] key, final ValueWrapper value) {
+        entries.put(new StoreKey(cacheName, ByteBuffer.wrap(key)), value);
+    }
+
+    /**
+     * Drops a local entry
+     *
+     * @param cacheName the cache the entry belongs to
+     * @param key       the serialized key, or null to drop all of the cache's entries
+     */
+    public void invalidate(final String cacheName, final byte[] key) {
+        if (key == null) {
+            entries.asMap().keySet().removeIf(storeKey -> storeKey.getCacheName().equals(cacheName));
+        } else {
+            entries.invalidate(new StoreKey(cacheName, ByteBuffer.wrap(key)));
+        }
+    }
+
+    long size() {
+        return entries.size();
+    }
+
+    @Data
+    private static class StoreKey {
+        private final String cacheName;
+        private final ByteBuffer key;
+    }
+}
@@ -7,7 +7,10 @@ package com.hp.autonomy.frontend.find.hod.export;
 
 import com.hp.autonomy.frontend.find.core.export.ExportController;
 import com.hp.autonomy.frontend.find.core.export.ExportFormat;
+import com.hp.autonomy.frontend.find.core.export.ExportJobService;
+import com.hp.autonomy.frontend.find.core.export.ExportPagination;
 import com.hp.autonomy.frontend.find.core.export.ExportService;
+import com.hp.autonomy.frontend.find.core.export.ExportSession;
 import com.hp.autonomy.frontend.find.core.web.ControllerUtils;
 import com.hp.autonomy.frontend.find.core.web.RequestMapper;
 import com.hp.autonomy.hod.client.api.textindex.query.search.Print;
@@ -17,32 +20,35 @@ import com.hp.autonomy.searchcomponents.hod.search.HodQueryRequest;
 import com.hp.autonomy.searchcomponents.hod.search.HodSearchResult;
 import com.hp.autonomy.types.requests.Documents;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 
-import java.io.OutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 @Controller
 class HodExportController extends ExportController<HodQueryRequest, HodErrorException> {
 
     private final HodDocumentsService documentsService;
-    private final ExportService<HodQueryRequest, HodErrorException> exportService;
 
     @Autowired
     public HodExportController(final RequestMapper<HodQueryRequest> requestMapper,
                                final ControllerUtils controllerUtils,
                                final HodDocumentsService documentsService,
-                               final ExportService<HodQueryRequest, HodErrorException> exportService) {
-        super(requestMapper, controllerUtils);
+                               final ExportService<HodQueryRequest, HodErrorException> exportService,
+                               final ExportJobService exportJobService,
+                               @Value(EXPORT_PARALLELISM_PROPERTY) final int exportParallelism) {
+        super(requestMapper, controllerUtils, exportService, exportJobService, exportParallelism);
         this.documentsService = documentsService;
-        this.exportService = exportService;
     }
 
     @Override
-    protected void export(final OutputStream outputStream,
+    protected void export(final ExportSession exportSession,
                           final HodQueryRequest queryRequest,
                           final ExportFormat exportFormat,
-                          final Collection<String> selectedFieldNames) throws HodErrorException {
+                          final Collection<String> selectedFieldNames) throws IOException, HodErrorException {
         final HodQueryRequest queryRequestForCount = queryRequest.toBuilder()
                 .maxResults(1)
                 .print(Print.no_results.name())
@@ -50,12 +56,20 @@ class HodExportController extends ExportController<HodQueryRequest, HodErrorExce
         final Documents<HodSearchResult> searchResult = documentsService.queryTextIndex(queryRequestForCount);
         final int totalResults = Math.min(Math.min(searchResult.getTotalResults(), queryRequest.getMaxResults()), HodDocumentsService.HOD_MAX_RESULTS);
 
-        for (int i = 0; i < totalResults; i += PAGINATION_SIZE) {
-            final HodQueryRequest paginatedQueryRequest = queryRequest.toBuilder()
-                    .start(i + 1)
-                    .maxResults(Math.min(i + PAGINATION_SIZE, HodDocumentsService.HOD_MAX_RESULTS))
-                    .build();
-            exportService.export(outputStream, paginatedQueryRequest, exportFormat, selectedFieldNames);
+        final List<HodQueryRequest> pageRequests = new ArrayList<>();
+
+        // The documents service can create a state token, but Haven OnDemand's text index query has no equivalent of
+        // IDOL's StateMatchID to restrict a query to it (which is also why comparisons are IDOL only), so unlike IDOL
+        // each page re-runs the query. Each page is streamed to the export session before the next is written, so only
+        // one page of results is held at a time.
+        // totalResults is already capped at HOD_MAX_RESULTS, so no page extends past it
+        for (final ExportPagination.ExportPage page : ExportPagination.getPages(totalResults, PAGINATION_SIZE)) {
+            pageRequests.add(queryRequest.toBuilder()
+                    .start(page.getStart())
+                    .maxResults(page.getEnd())
+                    .build());
         }
+
+        exportPages(exportSession, pageRequests, exportFormat, selectedFieldNames);
     }
 }
@@ -7,6 +7,7 @@ package com.hp.autonomy.frontend.find.hod.export;
 
 import com.hp.autonomy.frontend.find.core.export.ExportFormat;
 import com.hp.autonomy.frontend.find.core.export.ExportService;
+import com.hp.autonomy.frontend.find.core.export.ExportSession;
 import com.hp.autonomy.frontend.find.core.export.ExportStrategy;
 import com.hp.autonomy.hod.client.error.HodErrorException;
 import com.hp.autonomy.searchcomponents.core.config.FieldInfo;
@@ -19,16 +20,13 @@ import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Component
 class HodExportService implements ExportService<HodQueryRequest, HodErrorException> {
@@ -47,39 +45,29 @@ class HodExportService implements ExportService<HodQueryRequest, HodErrorExcepti
     }
 
     @Override
-    public void export(final OutputStream outputStream, final HodQueryRequest queryRequest, final ExportFormat exportFormat, final Collection<String> selectedFieldIds) throws HodErrorException {
+    public ExportSession openSession(final OutputStream outputStream, final ExportFormat exportFormat, final Collection<String> selectedFieldIds) throws IOException {
+        final ExportStrategy exportStrategy = exportStrategies.get(exportFormat);
+        return exportStrategy.openSession(outputStream,
+                exportStrategy.getFieldNames(HodMetadataNode.values(), selectedFieldIds),
+                exportStrategy.getFieldTypes(HodMetadataNode.values(), selectedFieldIds));
+    }
+
+    @Override
+    public void export(final ExportSession exportSession, final HodQueryRequest queryRequest, final ExportFormat exportFormat, final Collection<String> selectedFieldIds) throws HodErrorException {
         final ExportStrategy exportStrategy = exportStrategies.get(exportFormat);
         final List<String> fieldIds = exportStrategy.getFieldNames(HodMetadataNode.values(), selectedFieldIds);
         final Documents<HodSearchResult> documents = documentsService.queryTextIndex(queryRequest.toBuilder().printFields(fieldIds).build());
 
-        try {
-            //Caution: outputStream should not be written to before call to prependOutput().
-            exportStrategy.prependOutput(outputStream);
-
-            if (exportStrategy.writeHeader()) {
-                exportStrategy.exportRecord(outputStream, fieldIds);
-            }
-
-            final List<Function<HodSearchResult, String>> exportMetadataFunctions = Arrays.stream(HodMetadataNode.values())
-                    .filter(node -> selectedFieldIds.isEmpty() || selectedFieldIds.contains(node.getName()))
-                    .map(node -> (Function<HodSearchResult, String>) hodSearchResult -> {
-                        final Object value = node.getGetter().apply(hodSearchResult);
-                        return value == null ? "" : value.toString();
-                    })
-                    .collect(Collectors.toList());
+        final List<Function<HodSearchResult, String>> columnExtractors = getColumnExtractors(exportStrategy, selectedFieldIds);
 
+        try {
             for (final HodSearchResult searchResult : documents.getDocuments()) {
-                final Stream<String> metadataStream = exportMetadataFunctions.stream()
-                        .map(extractor -> extractor.apply(searchResult));
+                final List<String> record = new ArrayList<>(columnExtractors.size());
+                for (final Function<HodSearchResult, String> columnExtractor : columnExtractors) {
+                    record.add(columnExtractor.apply(searchResult));
+                }
 
-                final Stream<String> nonMetadataStream = exportStrategy.getConfiguredFieldsById().values().stream()
-                        .filter(configuredField -> selectedFieldIds.isEmpty() || selectedFieldIds.contains(configuredField.getId()))
-                        .map(configuredField -> {
-                            final FieldInfo<?> fieldInfo = searchResult.getFieldMap().get(configuredField.getId());
-                            return exportStrategy.combineValues(getValuesAsStrings(fieldInfo));
-                        });
-
-                exportStrategy.exportRecord(outputStream, Stream.concat(metadataStream, nonMetadataStream).collect(Collectors.toList()));
+                exportSession.exportRecord(record);
             }
         } catch (final IOException e) {
             //noinspection ProhibitedExceptionThrown
@@ -87,10 +75,42 @@ class HodExportService implements ExportService<HodQueryRequest, HodErrorExcepti
         }
     }
 
-    private List<String> getValuesAsStrings(final FieldInfo<?> fieldInfo) {
-        return fieldInfo != null ? fieldInfo.getValues().stream()
-                // prevents NullPointerException if the data set contains an incorrectly formatted date
-                .filter(Objects::nonNull)
-                .map(Object::toString).collect(Collectors.toList()) : Collections.emptyList();
+    // Resolves the exported columns once per page, so that writing a row is a single pass over the extractors
+    private List<Function<HodSearchResult, String>> getColumnExtractors(final ExportStrategy exportStrategy, final Collection<String> selectedFieldIds) {
+        final List<Function<HodSearchResult, String>> columnExtractors = new ArrayList<>();
+
+        for (final HodMetadataNode node : HodMetadataNode.values()) {
+            if (selectedFieldIds.isEmpty() || selectedFieldIds.contains(node.getName())) {
+                columnExtractors.add(hodSearchResult -> {
+                    final Object value = node.getGetter().apply(hodSearchResult);
+                    return value == null ? "" : value.toString();
+                });
+            }
+        }
+
+        for (final FieldInfo<?> configuredField : exportStrategy.getConfiguredFieldsById().values()) {
+            if (selectedFieldIds.isEmpty() || selectedFieldIds.contains(configuredField.getId())) {
+                final String id = configuredField.getId();
+                columnExtractors.add(hodSearchResult -> exportStrategy.combineValues(getValuesAsStrings(hodSearchResult.getFieldMap().get(id))));
+            }
+        }
+
+        return columnExtractors;
+    }
+
+    private static List<String> getValuesAsStrings(final FieldInfo<?> fieldInfo) {
+        if (fieldInfo == null) {
+            return Collections.emptyList();
+        }
+
+        final List<String> values = new ArrayList<>(fieldInfo.getValues().size());
+        for (final Object value : fieldInfo.getValues()) {
+            // prevents NullPointerException if the data set contains an incorrectly formatted date
+            if (value != null) {
+                values.add(value.toString());
+            }
+        }
+
+        return values;
     }
 }
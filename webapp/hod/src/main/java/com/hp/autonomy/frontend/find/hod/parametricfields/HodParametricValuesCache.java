@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.hod.parametricfields;
+
+import com.hp.autonomy.frontend.find.core.configuration.CanonicalCacheKeyGenerator;
+import com.hp.autonomy.frontend.find.core.parametricfields.ParametricValuesCache;
+import com.hp.autonomy.frontend.find.core.web.FindCacheNames;
+import com.hp.autonomy.hod.caching.CachingConfiguration;
+import com.hp.autonomy.hod.client.error.HodErrorException;
+import com.hp.autonomy.searchcomponents.hod.parametricvalues.HodParametricRequest;
+import com.hp.autonomy.searchcomponents.hod.parametricvalues.HodParametricValuesService;
+import com.hp.autonomy.types.idol.responses.RecursiveField;
+import com.hp.autonomy.types.requests.idol.actions.tags.QueryTagInfo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+
+@Service
+class HodParametricValuesCache implements ParametricValuesCache<HodParametricRequest, HodErrorException> {
+    private final HodParametricValuesService parametricValuesService;
+    private final CanonicalCacheKeyGenerator canonicalCacheKeyGenerator;
+
+    @Autowired
+    public HodParametricValuesCache(final HodParametricValuesService parametricValuesService,
+                                    final CanonicalCacheKeyGenerator canonicalCacheKeyGenerator) {
+        this.parametricValuesService = parametricValuesService;
+        this.canonicalCacheKeyGenerator = canonicalCacheKeyGenerator;
+    }
+
+    @Override
+    @Cacheable(value = FindCacheNames.PARAMETRIC_VALUES, sync = true, cacheResolver = CachingConfiguration.PER_USER_CACHE_RESOLVER_NAME, keyGenerator = CanonicalCacheKeyGenerator.BEAN_NAME)
+    public Set<QueryTagInfo> getParametricValues(final HodParametricRequest parametricRequest) throws HodErrorException {
+        return parametricValuesService.getParametricValues(canonicalCacheKeyGenerator.roundDates(parametricRequest));
+    }
+
+    @Override
+    @Cacheable(value = FindCacheNames.DEPENDENT_PARAMETRIC_VALUES, sync = true, cacheResolver = CachingConfiguration.PER_USER_CACHE_RESOLVER_NAME, keyGenerator = CanonicalCacheKeyGenerator.BEAN_NAME)
+    public List<RecursiveField> getDependentParametricValues(final HodParametricRequest parametricRequest) throws HodErrorException {
+        return parametricValuesService.getDependentParametricValues(canonicalCacheKeyGenerator.roundDates(parametricRequest));
+    }
+}
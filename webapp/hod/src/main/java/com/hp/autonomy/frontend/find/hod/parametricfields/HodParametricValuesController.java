@@ -5,6 +5,7 @@
 
 package com.hp.autonomy.frontend.find.hod.parametricfields;
 
+import com.hp.autonomy.frontend.find.core.parametricfields.ParametricValuesCache;
 import com.hp.autonomy.frontend.find.core.parametricfields.ParametricValuesController;
 import com.hp.autonomy.hod.client.api.resource.ResourceName;
 import com.hp.autonomy.hod.client.error.HodErrorException;
@@ -34,9 +35,10 @@ class HodParametricValuesController extends ParametricValuesController<HodQueryR
     @SuppressWarnings("TypeMayBeWeakened")
     @Autowired
     public HodParametricValuesController(final HodParametricValuesService parametricValuesService,
+                                         final ParametricValuesCache<HodParametricRequest, HodErrorException> parametricValuesCache,
                                          final ObjectFactory<HodQueryRestrictionsBuilder> queryRestrictionsBuilderFactory,
                                          final ObjectFactory<HodParametricRequestBuilder> parametricRequestBuilderFactory) {
-        super(parametricValuesService, queryRestrictionsBuilderFactory, parametricRequestBuilderFactory);
+        super(parametricValuesService, parametricValuesCache, queryRestrictionsBuilderFactory, parametricRequestBuilderFactory);
     }
 
     @RequestMapping(method = RequestMethod.GET)
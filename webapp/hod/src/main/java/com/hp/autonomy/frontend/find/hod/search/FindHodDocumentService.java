@@ -6,6 +6,7 @@
 package com.hp.autonomy.frontend.find.hod.search;
 
 import com.hp.autonomy.frontend.configuration.ConfigService;
+import com.hp.autonomy.frontend.find.core.configuration.CanonicalCacheKeyGenerator;
 import com.hp.autonomy.frontend.find.core.web.FindCacheNames;
 import com.hp.autonomy.frontend.find.hod.configuration.HodFindConfig;
 import com.hp.autonomy.hod.caching.CachingConfiguration;
@@ -37,6 +38,7 @@ class FindHodDocumentService implements HodDocumentsService {
     private final HodDocumentsService documentsService;
     private final ObjectFactory<HodDatabasesRequestBuilder> databasesRequestBuilderFactory;
     private final ConfigService<HodFindConfig> findConfigService;
+    private final CanonicalCacheKeyGenerator canonicalCacheKeyGenerator;
 
     @Autowired
     public FindHodDocumentService(
@@ -44,17 +46,22 @@ class FindHodDocumentService implements HodDocumentsService {
             @Qualifier(DOCUMENTS_SERVICE_BEAN_NAME)
             final HodDocumentsService documentsService,
             final ObjectFactory<HodDatabasesRequestBuilder> databasesRequestBuilderFactory,
-            final ConfigService<HodFindConfig> configService
+            final ConfigService<HodFindConfig> configService,
+            final CanonicalCacheKeyGenerator canonicalCacheKeyGenerator
     ) {
         this.databasesService = databasesService;
         this.documentsService = documentsService;
         this.databasesRequestBuilderFactory = databasesRequestBuilderFactory;
         findConfigService = configService;
+        this.canonicalCacheKeyGenerator = canonicalCacheKeyGenerator;
     }
 
     @Override
-    @Cacheable(value = FindCacheNames.DOCUMENTS, cacheResolver = CachingConfiguration.PER_USER_CACHE_RESOLVER_NAME)
-    public Documents<HodSearchResult> queryTextIndex(final HodQueryRequest queryRequest) throws HodErrorException {
+    @Cacheable(value = FindCacheNames.DOCUMENTS, sync = true, cacheResolver = CachingConfiguration.PER_USER_CACHE_RESOLVER_NAME, keyGenerator = CanonicalCacheKeyGenerator.BEAN_NAME)
+    public Documents<HodSearchResult> queryTextIndex(final HodQueryRequest request) throws HodErrorException {
+        // execute the request the cache key describes
+        final HodQueryRequest queryRequest = canonicalCacheKeyGenerator.roundDates(request);
+
         try {
             return documentsService.queryTextIndex(queryRequest);
         } catch (final HodErrorException e) {
@@ -97,9 +104,9 @@ class FindHodDocumentService implements HodDocumentsService {
     }
 
     @Override
-    @Cacheable(value = FindCacheNames.SIMILAR_DOCUMENTS, cacheResolver = CachingConfiguration.PER_USER_CACHE_RESOLVER_NAME)
+    @Cacheable(value = FindCacheNames.SIMILAR_DOCUMENTS, sync = true, cacheResolver = CachingConfiguration.PER_USER_CACHE_RESOLVER_NAME, keyGenerator = CanonicalCacheKeyGenerator.BEAN_NAME)
     public Documents<HodSearchResult> findSimilar(final HodSuggestRequest suggestRequest) throws HodErrorException {
-        return documentsService.findSimilar(suggestRequest);
+        return documentsService.findSimilar(canonicalCacheKeyGenerator.roundDates(suggestRequest));
     }
 
     @Override
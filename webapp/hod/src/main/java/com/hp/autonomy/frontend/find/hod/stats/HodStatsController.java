@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.hod.stats;
+
+import com.hp.autonomy.frontend.find.core.beanconfiguration.BiConfiguration;
+import org.joda.time.DateTime;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping(HodStatsController.BASE_PATH)
+@ConditionalOnProperty(BiConfiguration.BI_PROPERTY)
+class HodStatsController {
+    static final String BASE_PATH = "/api/admin/stats";
+    static final String SUMMARIES_PATH = "/summaries";
+    static final String CURRENT_PATH = "/current";
+    static final String HOURS_PARAM = "hours";
+
+    private final HodStatsService statsService;
+    private final StatsSummaryRepository repository;
+
+    @Autowired
+    HodStatsController(final HodStatsService statsService, final StatsSummaryRepository repository) {
+        this.statsService = statsService;
+        this.repository = repository;
+    }
+
+    @RequestMapping(value = SUMMARIES_PATH, method = RequestMethod.GET)
+    public List<StatsSummary> getSummaries(@RequestParam(value = HOURS_PARAM, defaultValue = "24") final int hours) {
+        return repository.findByPeriodEndAfterOrderByPeriodEndDesc(DateTime.now().minusHours(hours));
+    }
+
+    @RequestMapping(value = CURRENT_PATH, method = RequestMethod.GET)
+    public List<StatsSummary> getCurrentSummaries() {
+        return statsService.getCurrentSummaries();
+    }
+}
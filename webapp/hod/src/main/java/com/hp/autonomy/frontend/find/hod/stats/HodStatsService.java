@@ -1,20 +1,161 @@
 /*
- * Copyright 2014-2016 Hewlett-Packard Development Company, L.P.
+ * Copyright 2014-2017 Hewlett-Packard Development Company, L.P.
  * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
  */
 
 package com.hp.autonomy.frontend.find.hod.stats;
 
 import com.hp.autonomy.frontend.find.core.stats.Event;
+import com.hp.autonomy.frontend.find.core.stats.FindEvent;
 import com.hp.autonomy.frontend.find.core.stats.StatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.joda.time.DateTime;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Aggregates events in memory, per query text, and rolls them up into a {@link StatsSummary} per query at the end of
+ * each summary period. Summaries are saved if the application has a database.
+ * <p>
+ * Recording an event costs a map lookup and a couple of striped counter increments. To bound memory, queries seen
+ * after the per-period limit has been reached are counted together.
+ * <p>
+ * A period is summarised on the roll-up after the one which ended it, rather than as it is swapped out, so that events
+ * which looked up the period just before the swap have finished recording by the time its counters are read.
+ */
+@Slf4j
 @Service
 public class HodStatsService implements StatsService {
+    private static final String MAX_QUERIES_PROPERTY_KEY = "find.stats.maxQueries";
+    private static final int MAX_QUERIES_DEFAULT = 1000;
+    private static final String MAX_QUERIES_PROPERTY = "${" + MAX_QUERIES_PROPERTY_KEY + ':' + MAX_QUERIES_DEFAULT + '}';
+    private static final String SUMMARY_INTERVAL_PROPERTY_KEY = "find.stats.summaryInterval";
+    private static final long SUMMARY_INTERVAL_DEFAULT = 3600000L;
+    private static final String SUMMARY_INTERVAL_PROPERTY = "${" + SUMMARY_INTERVAL_PROPERTY_KEY + ':' + SUMMARY_INTERVAL_DEFAULT + '}';
+
+    private final Optional<StatsSummaryRepository> repository;
+    private final int maxQueries;
+    private final AtomicReference<Period> currentPeriod = new AtomicReference<>(new Period(DateTime.now()));
+    private Period endedPeriod;
+
+    @Autowired
+    public HodStatsService(final Optional<StatsSummaryRepository> repository, @Value(MAX_QUERIES_PROPERTY) final int maxQueries) {
+        this.repository = repository;
+        this.maxQueries = maxQueries;
+    }
 
     @Override
     public void recordEvent(final Event event) {
-        // TODO: implement this
+        if (event instanceof FindEvent) {
+            currentPeriod.get().getQueryStats(((FindEvent) event).getSearch()).record(event);
+        }
+    }
+
+    /**
+     * @return summaries of the events recorded so far in the current period
+     */
+    public List<StatsSummary> getCurrentSummaries() {
+        return currentPeriod.get().summarise(DateTime.now());
+    }
+
+    /**
+     * Ends the current period, saving the summaries of the period ended by the previous roll-up
+     */
+    @Scheduled(fixedRateString = SUMMARY_INTERVAL_PROPERTY, initialDelayString = SUMMARY_INTERVAL_PROPERTY)
+    public synchronized void rollUp() {
+        final Period period = endedPeriod;
+        endedPeriod = endCurrentPeriod();
+
+        if (period != null) {
+            save(period.summarise());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void destroy() {
+        final List<StatsSummary> summaries = new ArrayList<>();
+
+        if (endedPeriod != null) {
+            summaries.addAll(endedPeriod.summarise());
+        }
+
+        summaries.addAll(endCurrentPeriod().summarise());
+        endedPeriod = null;
+
+        save(summaries);
     }
 
+    private Period endCurrentPeriod() {
+        final DateTime now = DateTime.now();
+        final Period period = currentPeriod.getAndSet(new Period(now));
+        period.end = now;
+        return period;
+    }
+
+    private void save(final List<StatsSummary> summaries) {
+        if (repository.isPresent() && !summaries.isEmpty()) {
+            repository.get().save(summaries);
+        }
+
+        log.debug("Rolled up stats for {} queries", summaries.size());
+    }
+
+    private class Period {
+        private final DateTime start;
+        private final ConcurrentMap<String, QueryStats> queries = new ConcurrentHashMap<>();
+        private final QueryStats otherQueries = new QueryStats();
+        private DateTime end;
+
+        private Period(final DateTime start) {
+            this.start = start;
+        }
+
+        private QueryStats getQueryStats(final String search) {
+            if (search == null) {
+                return otherQueries;
+            }
+
+            // get before putIfAbsent, so that the common case does not lock
+            final QueryStats stats = queries.get(search);
+
+            if (stats != null) {
+                return stats;
+            } else if (queries.size() >= maxQueries) {
+                return otherQueries;
+            } else {
+                final QueryStats newStats = new QueryStats();
+                final QueryStats existingStats = queries.putIfAbsent(search, newStats);
+                return existingStats == null ? newStats : existingStats;
+            }
+        }
+
+        private List<StatsSummary> summarise() {
+            return summarise(end);
+        }
+
+        private List<StatsSummary> summarise(final DateTime end) {
+            final List<StatsSummary> summaries = new ArrayList<>(queries.size() + 1);
+
+            for (final Map.Entry<String, QueryStats> entry : queries.entrySet()) {
+                summaries.add(entry.getValue().toSummary(entry.getKey(), start, end));
+            }
+
+            if (!otherQueries.isEmpty()) {
+                summaries.add(otherQueries.toSummary(null, start, end));
+            }
+
+            return summaries;
+        }
+    }
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.hod.stats;
+
+import com.hp.autonomy.frontend.find.core.stats.AbandonmentEvent;
+import com.hp.autonomy.frontend.find.core.stats.ClickThroughEvent;
+import com.hp.autonomy.frontend.find.core.stats.Event;
+import com.hp.autonomy.frontend.find.core.stats.PageEvent;
+import org.joda.time.DateTime;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Event counts for one query text over one summary period. Recording an event only touches striped counters, so
+ * concurrent requests for the same query do not contend.
+ */
+class QueryStats {
+    static final int HISTOGRAM_SIZE = 10;
+
+    private final LongAdder pageEvents = new LongAdder();
+    private final LongAdder clickThroughs = new LongAdder();
+    private final LongAdder abandonments = new LongAdder();
+    private final StatsHistogram pages = new StatsHistogram(HISTOGRAM_SIZE);
+    private final StatsHistogram clickPositions = new StatsHistogram(HISTOGRAM_SIZE);
+
+    void record(final Event event) {
+        if (event instanceof ClickThroughEvent) {
+            clickThroughs.increment();
+            clickPositions.record(((ClickThroughEvent) event).getPosition());
+        } else if (event instanceof PageEvent) {
+            pageEvents.increment();
+            pages.record(((PageEvent) event).getPage());
+        } else if (event instanceof AbandonmentEvent) {
+            abandonments.increment();
+        }
+    }
+
+    boolean isEmpty() {
+        return pageEvents.sum() == 0 && clickThroughs.sum() == 0 && abandonments.sum() == 0;
+    }
+
+    StatsSummary toSummary(final String search, final DateTime periodStart, final DateTime periodEnd) {
+        final StatsSummary summary = new StatsSummary();
+        summary.setPeriodStart(periodStart);
+        summary.setPeriodEnd(periodEnd);
+        summary.setSearch(search);
+        summary.setPageEvents(pageEvents.sum());
+        summary.setClickThroughs(clickThroughs.sum());
+        summary.setAbandonments(abandonments.sum());
+        summary.setPageHistogram(pages.toString());
+        summary.setClickPositionHistogram(clickPositions.toString());
+        return summary;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.hod.stats;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Counts small positive integers, such as result positions or page numbers, in one bucket per value. Values beyond the
+ * last bucket are counted in it.
+ */
+class StatsHistogram {
+    private final LongAdder[] buckets;
+
+    StatsHistogram(final int size) {
+        buckets = new LongAdder[size];
+
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    void record(final int value) {
+        buckets[Math.max(Math.min(value, buckets.length), 1) - 1].increment();
+    }
+
+    /**
+     * @return the counts in bucket order, separated by commas
+     */
+    @Override
+    public String toString() {
+        return Arrays.stream(buckets).map(bucket -> String.valueOf(bucket.sum())).collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.hod.stats;
+
+import com.hp.autonomy.frontend.find.core.savedsearches.SavedSearch;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Type;
+import org.joda.time.DateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Page, click-through and abandonment counts for one query text over one summary period. The histograms hold the
+ * number of page events for each results page, and of click-throughs for each result position, separated by commas;
+ * the last bucket also counts every later page or position.
+ * <p>
+ * Queries seen after the per-period limit has been reached are summarised together, with a null search.
+ */
+@Entity
+@Table(name = StatsSummary.Table.NAME)
+@Data
+@NoArgsConstructor
+public class StatsSummary {
+    @Id
+    @Column(name = Table.Column.ID)
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = Table.Column.PERIOD_START)
+    @Type(type = SavedSearch.JADIRA_TYPE_NAME)
+    private DateTime periodStart;
+
+    @Column(name = Table.Column.PERIOD_END)
+    @Type(type = SavedSearch.JADIRA_TYPE_NAME)
+    private DateTime periodEnd;
+
+    private String search;
+
+    @Column(name = Table.Column.PAGE_EVENTS)
+    private long pageEvents;
+
+    @Column(name = Table.Column.CLICK_THROUGHS)
+    private long clickThroughs;
+
+    private long abandonments;
+
+    @Column(name = Table.Column.PAGE_HISTOGRAM)
+    private String pageHistogram;
+
+    @Column(name = Table.Column.CLICK_POSITION_HISTOGRAM)
+    private String clickPositionHistogram;
+
+    public interface Table {
+        String NAME = "stats_summaries";
+
+        interface Column {
+            String ID = "stats_summary_id";
+            String PERIOD_START = "period_start";
+            String PERIOD_END = "period_end";
+            String PAGE_EVENTS = "page_events";
+            String CLICK_THROUGHS = "click_throughs";
+            String PAGE_HISTOGRAM = "page_histogram";
+            String CLICK_POSITION_HISTOGRAM = "click_position_histogram";
+        }
+    }
+}
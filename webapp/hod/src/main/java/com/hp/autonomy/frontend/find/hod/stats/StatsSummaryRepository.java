@@ -0,0 +1,15 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.hod.stats;
+
+import org.joda.time.DateTime;
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.List;
+
+public interface StatsSummaryRepository extends CrudRepository<StatsSummary, Long> {
+    List<StatsSummary> findByPeriodEndAfterOrderByPeriodEndDesc(DateTime periodEnd);
+}
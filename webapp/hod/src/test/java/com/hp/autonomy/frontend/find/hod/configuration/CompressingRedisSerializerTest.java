@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.hod.configuration;
+
+import org.junit.Test;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class CompressingRedisSerializerTest {
+    private final CompressingRedisSerializer serializer = new CompressingRedisSerializer(1024);
+
+    @Test
+    public void smallValuesRoundTrip() {
+        assertThat(serializer.deserialize(serializer.serialize("value")), is("value"));
+    }
+
+    @Test
+    public void largeValuesRoundTrip() {
+        final List<Map<String, String>> documents = documents();
+        assertThat(serializer.deserialize(serializer.serialize(documents)), is(documents));
+    }
+
+    @Test
+    public void largeValuesAreSmallerThanJavaSerialization() {
+        final List<Map<String, String>> documents = documents();
+        final int jdkSize = new JdkSerializationRedisSerializer().serialize(documents).length;
+
+        assertThat(serializer.serialize(documents).length, is(lessThan(jdkSize / 2)));
+    }
+
+    @Test
+    public void nullRoundTrips() {
+        assertThat(serializer.deserialize(serializer.serialize(null)), is(nullValue()));
+    }
+
+    @Test(expected = SerializationException.class)
+    public void unknownFormatIsRejected() {
+        serializer.deserialize(new byte[]{42, 0, 0});
+    }
+
+    private List<Map<String, String>> documents() {
+        final List<Map<String, String>> documents = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            final Map<String, String> document = new LinkedHashMap<>();
+            document.put("reference", "http://example.com/documents/" + i);
+            document.put("title", "Quarterly report " + i);
+            document.put("summary", "Revenue for the quarter was in line with expectations across all regions.");
+            documents.add(document);
+        }
+
+        return documents;
+    }
+}
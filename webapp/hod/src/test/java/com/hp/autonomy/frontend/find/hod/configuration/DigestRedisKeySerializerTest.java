@@ -0,0 +1,32 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.hod.configuration;
+
+import org.junit.Test;
+import org.springframework.cache.interceptor.SimpleKey;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+public class DigestRedisKeySerializerTest {
+    private final DigestRedisKeySerializer serializer = new DigestRedisKeySerializer();
+
+    @Test
+    public void equalKeysHaveEqualDigests() {
+        assertThat(serializer.serialize(new SimpleKey("query", 30)), is(serializer.serialize(new SimpleKey("query", 30))));
+    }
+
+    @Test
+    public void differentKeysHaveDifferentDigests() {
+        assertThat(serializer.serialize(new SimpleKey("query", 30)), is(not(serializer.serialize(new SimpleKey("query", 31)))));
+    }
+
+    @Test
+    public void digestsAreFixedLength() {
+        assertThat(serializer.serialize(new SimpleKey("query", 30)).length, is(32));
+    }
+}
@@ -6,6 +6,7 @@
 package com.hp.autonomy.frontend.find.hod.configuration;
 
 import com.hp.autonomy.frontend.find.core.configuration.AbstractAutoCreatingEhCacheCacheManagerTest;
+import com.hp.autonomy.frontend.find.core.configuration.OffHeapStore;
 import com.hp.autonomy.hod.caching.HodCacheNameResolver;
 import net.sf.ehcache.config.CacheConfiguration;
 import org.junit.Test;
@@ -19,7 +20,7 @@ public class HodAutoCreatingEhCacheCacheManagerTest extends AbstractAutoCreating
 
     @Override
     public void setUp() {
-        autoCreatingEhCacheCacheManager = new HodAutoCreatingEhCacheCacheManager(cacheManager, new CacheConfiguration(), cacheNameResolver);
+        autoCreatingEhCacheCacheManager = new HodAutoCreatingEhCacheCacheManager(cacheManager, new CacheConfiguration(), cacheNameResolver, counterService, new OffHeapStore(0));
     }
 
     @Test
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.hod.configuration;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class NearCacheRedisCacheManagerTest {
+    private static final String CHANNEL = "cache-invalidation";
+    private static final String KEY = "key";
+
+    @Mock
+    private RedisOperations<Object, Object> redisOperations;
+
+    @Mock
+    private RedisSerializer<Object> valueSerializer;
+
+    @Mock
+    private Message message;
+
+    private final DigestRedisKeySerializer keySerializer = new DigestRedisKeySerializer();
+
+    private NearCacheRedisCacheManager cacheManager;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Before
+    public void setUp() {
+        when(redisOperations.getKeySerializer()).thenReturn((RedisSerializer) keySerializer);
+        when(redisOperations.getValueSerializer()).thenReturn((RedisSerializer) valueSerializer);
+
+        cacheManager = new NearCacheRedisCacheManager(redisOperations, CHANNEL, 2, 60);
+    }
+
+    @Test
+    public void cachesAreNearCaches() {
+        assertThat(cacheManager.decorateCache(remoteCache("documents", "value")), instanceOf(NearCache.class));
+    }
+
+    @Test
+    public void localEntriesAreBoundedAcrossCaches() {
+        final Cache documents = remoteCache("documents", "value");
+        final Cache parametricValues = remoteCache("parametric-values", "value");
+        final Cache nearDocuments = cacheManager.decorateCache(documents);
+        final Cache nearParametricValues = cacheManager.decorateCache(parametricValues);
+
+        nearDocuments.get(KEY);
+        nearParametricValues.get(KEY);
+        nearParametricValues.get("other key");
+
+        // the least recently used entry has been dropped to make room
+        nearDocuments.get(KEY);
+        verify(documents, times(2)).get(KEY);
+    }
+
+    @Test
+    public void invalidationFromOtherNodeDropsLocalEntry() {
+        final Cache documents = remoteCache("documents", "value");
+        final Cache nearDocuments = cacheManager.decorateCache(documents);
+        nearDocuments.get(KEY);
+
+        receive(new NearCacheRedisCacheManager.CacheInvalidation("other node", "documents", keySerializer.serialize(KEY)));
+        nearDocuments.get(KEY);
+
+        verify(documents, times(2)).get(KEY);
+    }
+
+    @Test
+    public void invalidationFromThisNodeIsIgnored() {
+        final Cache documents = remoteCache("documents", "value");
+        final Cache nearDocuments = cacheManager.decorateCache(documents);
+
+        nearDocuments.put(KEY, "new value");
+
+        final ArgumentCaptor<Object> invalidationCaptor = ArgumentCaptor.forClass(Object.class);
+        verify(redisOperations).convertAndSend(eq(CHANNEL), invalidationCaptor.capture());
+        receive(invalidationCaptor.getValue());
+
+        assertThat(nearDocuments.get(KEY).get(), is("new value"));
+        verify(documents, never()).get(KEY);
+    }
+
+    @Test
+    public void unreadableInvalidationIsIgnored() {
+        when(valueSerializer.deserialize(any(byte[].class))).thenThrow(new SerializationException("bad"));
+        cacheManager.onMessage(message, null);
+    }
+
+    private Cache remoteCache(final String name, final Object value) {
+        final Cache cache = mock(Cache.class);
+        when(cache.getName()).thenReturn(name);
+        when(cache.get(any())).thenReturn(new SimpleValueWrapper(value));
+        return cache;
+    }
+
+    private void receive(final Object invalidation) {
+        final byte[] body = {1};
+        when(message.getBody()).thenReturn(body);
+        when(valueSerializer.deserialize(body)).thenReturn(invalidation);
+
+        cacheManager.onMessage(message, null);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.hod.configuration;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.function.BiConsumer;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class NearCacheTest {
+    private static final String CACHE_NAME = "documents";
+    private static final String KEY = "key";
+
+    @Mock
+    private Cache delegate;
+
+    @Mock
+    private BiConsumer<String, byte[]> invalidationListener;
+
+    private final DigestRedisKeySerializer keySerializer = new DigestRedisKeySerializer();
+
+    private NearCache nearCache;
+
+    @Before
+    public void setUp() {
+        when(delegate.getName()).thenReturn(CACHE_NAME);
+        nearCache = new NearCache(delegate, keySerializer, new NearCacheStore(100, 60), invalidationListener);
+    }
+
+    @Test
+    public void repeatedGetsAreServedLocally() {
+        when(delegate.get(KEY)).thenReturn(new SimpleValueWrapper("value"));
+
+        assertThat(nearCache.get(KEY).get(), is("value"));
+        assertThat(nearCache.get(KEY).get(), is("value"));
+        verify(delegate, times(1)).get(KEY);
+    }
+
+    @Test
+    public void missesAreNotCachedLocally() {
+        assertThat(nearCache.get(KEY), is(nullValue()));
+        assertThat(nearCache.get(KEY), is(nullValue()));
+        verify(delegate, times(2)).get(KEY);
+    }
+
+    @Test
+    public void putPublishesInvalidation() {
+        nearCache.put(KEY, "value");
+
+        verify(delegate).put(KEY, "value");
+        verify(delegate, never()).putIfAbsent(KEY, "value");
+        verify(invalidationListener).accept(CACHE_NAME, keySerializer.serialize(KEY));
+        assertThat(nearCache.get(KEY).get(), is("value"));
+    }
+
+    @Test
+    public void evictPublishesInvalidation() {
+        nearCache.put(KEY, "value");
+        nearCache.evict(KEY);
+
+        verify(delegate).evict(KEY);
+        verify(invalidationListener).accept(CACHE_NAME, keySerializer.serialize(KEY));
+        assertThat(nearCache.get(KEY), is(nullValue()));
+    }
+
+    @Test
+    public void clearPublishesInvalidation() {
+        nearCache.clear();
+
+        verify(delegate).clear();
+        verify(invalidationListener).accept(eq(CACHE_NAME), isNull(byte[].class));
+    }
+
+    @Test
+    public void remoteInvalidationDropsLocalEntry() {
+        final NearCacheStore localStore = new NearCacheStore(100, 60);
+        nearCache = new NearCache(delegate, keySerializer, localStore, invalidationListener);
+        when(delegate.get(KEY)).thenReturn(new SimpleValueWrapper("value"));
+        nearCache.get(KEY);
+
+        localStore.invalidate(CACHE_NAME, keySerializer.serialize(KEY));
+        nearCache.get(KEY);
+
+        verify(delegate, times(2)).get(KEY);
+    }
+}
@@ -5,6 +5,7 @@
 
 package com.hp.autonomy.frontend.find.hod.export;
 
+import com.hp.autonomy.frontend.find.core.export.ExportCompression;
 import com.hp.autonomy.frontend.find.core.export.ExportController;
 import com.hp.autonomy.frontend.find.core.export.ExportControllerTest;
 import com.hp.autonomy.hod.client.error.HodErrorException;
@@ -12,7 +13,10 @@ import com.hp.autonomy.searchcomponents.hod.search.HodDocumentsService;
 import com.hp.autonomy.searchcomponents.hod.search.HodQueryRequest;
 import com.hp.autonomy.searchcomponents.hod.search.HodQueryRequestBuilder;
 import com.hp.autonomy.types.requests.Documents;
+import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
+import org.springframework.mock.web.MockHttpServletResponse;
 
 import java.io.IOException;
 import java.util.Collections;
@@ -20,9 +24,16 @@ import java.util.Collections;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class HodExportControllerTest extends ExportControllerTest<HodQueryRequest, HodErrorException> {
+    // Matches ExportController.PAGINATION_SIZE, which is not visible outside the controller hierarchy
+    private static final int PAGE_SIZE = 1000;
+
     @Mock
     private HodDocumentsService documentsService;
     @Mock
@@ -31,7 +42,7 @@ public class HodExportControllerTest extends ExportControllerTest<HodQueryReques
     private HodQueryRequestBuilder queryRequestBuilder;
 
     @Override
-    protected ExportController<HodQueryRequest, HodErrorException> constructController() throws IOException {
+    protected ExportController<HodQueryRequest, HodErrorException> constructController(final int exportParallelism) throws IOException {
         when(requestMapper.parseQueryRequest(any())).thenReturn(queryRequest);
         when(queryRequest.toBuilder()).thenReturn(queryRequestBuilder);
         when(queryRequestBuilder.start(anyInt())).thenReturn(queryRequestBuilder);
@@ -41,11 +52,34 @@ public class HodExportControllerTest extends ExportControllerTest<HodQueryReques
 
         when(queryRequest.getMaxResults()).thenReturn(Integer.MAX_VALUE);
 
-        return new HodExportController(requestMapper, controllerUtils, documentsService, exportService);
+        return new HodExportController(requestMapper, controllerUtils, documentsService, exportService, exportJobService, exportParallelism);
     }
 
     @Override
     protected void mockNumberOfResults(final int numberOfResults) throws HodErrorException {
         when(documentsService.queryTextIndex(any())).thenReturn(new Documents<>(Collections.emptyList(), numberOfResults, null, null, null, null));
     }
+
+    @Test
+    public void exportToCsvRequestsConsecutivePages() throws IOException, HodErrorException {
+        mockNumberOfResults(2 * PAGE_SIZE + 1);
+        controller.exportToCsv("{}", Collections.emptyList(), ExportCompression.NONE, new MockHttpServletResponse());
+
+        final InOrder inOrder = inOrder(queryRequestBuilder);
+        inOrder.verify(queryRequestBuilder).start(1);
+        inOrder.verify(queryRequestBuilder).maxResults(PAGE_SIZE);
+        inOrder.verify(queryRequestBuilder).start(PAGE_SIZE + 1);
+        inOrder.verify(queryRequestBuilder).maxResults(2 * PAGE_SIZE);
+        inOrder.verify(queryRequestBuilder).start(2 * PAGE_SIZE + 1);
+        inOrder.verify(queryRequestBuilder).maxResults(2 * PAGE_SIZE + 1);
+    }
+
+    @Test
+    public void exportToCsvStopsAtHodMaxResults() throws IOException, HodErrorException {
+        mockNumberOfResults(HodDocumentsService.HOD_MAX_RESULTS + PAGE_SIZE);
+        controller.exportToCsv("{}", Collections.emptyList(), ExportCompression.NONE, new MockHttpServletResponse());
+
+        verify(queryRequestBuilder, times(1)).maxResults(HodDocumentsService.HOD_MAX_RESULTS);
+        verify(exportService, times((HodDocumentsService.HOD_MAX_RESULTS + PAGE_SIZE - 1) / PAGE_SIZE)).export(any(), any(), any(), eq(Collections.emptyList()));
+    }
 }
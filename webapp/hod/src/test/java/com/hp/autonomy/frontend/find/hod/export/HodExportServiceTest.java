@@ -7,6 +7,7 @@ package com.hp.autonomy.frontend.find.hod.export;
 
 import com.google.common.collect.ImmutableMap;
 import com.hp.autonomy.frontend.find.core.export.ExportFormat;
+import com.hp.autonomy.frontend.find.core.export.ExportSession;
 import com.hp.autonomy.frontend.find.core.export.ExportStrategy;
 import com.hp.autonomy.frontend.find.core.export.MetadataNode;
 import com.hp.autonomy.hod.client.error.HodErrorException;
@@ -31,6 +32,8 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
@@ -46,6 +49,8 @@ public class HodExportServiceTest {
     @Mock
     private ExportStrategy exportStrategy;
     @Mock
+    private ExportSession exportSession;
+    @Mock
     private OutputStream outputStream;
 
     private List<String> fieldNames;
@@ -77,9 +82,14 @@ public class HodExportServiceTest {
     }
 
     @Test
-    public void export() throws IOException, HodErrorException {
-        when(exportStrategy.writeHeader()).thenReturn(true);
+    public void openSession() throws IOException {
+        when(exportStrategy.openSession(outputStream, fieldNames, Collections.emptyList())).thenReturn(exportSession);
+
+        assertThat(hodExportService.openSession(outputStream, ExportFormat.CSV, Collections.emptyList()), is(exportSession));
+    }
 
+    @Test
+    public void export() throws IOException, HodErrorException {
         final HodSearchResult result1 = HodSearchResult.builder()
                 .reference("1")
                 .index("ClassicalDomain:GreekLiterature")
@@ -109,8 +119,28 @@ public class HodExportServiceTest {
         final Documents<HodSearchResult> results = new Documents<>(Arrays.asList(result1, result2), 2, null, null, null, null);
         when(documentsService.queryTextIndex(Matchers.any())).thenReturn(results);
 
-        hodExportService.export(outputStream, queryRequest, ExportFormat.CSV, Collections.emptyList());
-        verify(exportStrategy, times(3)).exportRecord(eq(outputStream), anyListOf(String.class));
+        hodExportService.export(exportSession, queryRequest, ExportFormat.CSV, Collections.emptyList());
+        verify(exportSession, times(2)).exportRecord(anyListOf(String.class));
+    }
+
+    @Test
+    public void exportSelectedColumnsInOrder() throws IOException, HodErrorException {
+        when(exportStrategy.combineValues(anyListOf(String.class))).thenAnswer(invocation -> String.join(", ", (List<String>) invocation.getArguments()[0]));
+
+        final HodSearchResult result = HodSearchResult.builder()
+                .reference("2")
+                .index("ClassicalDomain:GreekLiterature")
+                .fieldMap(ImmutableMap.of("categories", FieldInfo.builder()
+                        .id("categories")
+                        .name("category")
+                        .values(Arrays.asList("Epic Literature", null, "Cosmogony"))
+                        .build()))
+                .build();
+        when(documentsService.queryTextIndex(Matchers.any())).thenReturn(new Documents<>(Arrays.asList(result, result), 2, null, null, null, null));
+
+        hodExportService.export(exportSession, queryRequest, ExportFormat.CSV, Arrays.asList(HodMetadataNode.REFERENCE.getName(), "categories"));
+        verify(exportSession, times(2)).exportRecord(Arrays.asList("2", "Epic Literature, Cosmogony"));
+        verify(exportStrategy, times(1)).getConfiguredFieldsById();
     }
 
     private FieldInfo<?> fieldInfo(final String id, final String name, final FieldType type, final Object value) {
@@ -124,28 +154,22 @@ public class HodExportServiceTest {
     }
 
     @Test
-    public void exportEmptyResultSetWithHeader() throws IOException, HodErrorException {
-        when(exportStrategy.writeHeader()).thenReturn(true);
+    public void exportEmptyResultSet() throws IOException, HodErrorException {
         when(documentsService.queryTextIndex(Matchers.any())).thenReturn(new Documents<>(Collections.emptyList(), 0, null, null, null, null));
 
-        hodExportService.export(outputStream, queryRequest, ExportFormat.CSV, Collections.emptyList());
-        verify(exportStrategy).exportRecord(outputStream, fieldNames);
-    }
-
-    @Test
-    public void exportEmptyResultSetWithoutHeader() throws IOException, HodErrorException {
-        when(documentsService.queryTextIndex(Matchers.any())).thenReturn(new Documents<>(Collections.emptyList(), 0, null, null, null, null));
-
-        hodExportService.export(outputStream, queryRequest, ExportFormat.CSV, Collections.emptyList());
-        verify(exportStrategy, never()).exportRecord(eq(outputStream), anyListOf(String.class));
+        hodExportService.export(exportSession, queryRequest, ExportFormat.CSV, Collections.emptyList());
+        verify(exportSession, never()).exportRecord(anyListOf(String.class));
     }
 
     @Test(expected = RuntimeException.class)
     public void unexpectedError() throws IOException, HodErrorException {
-        when(exportStrategy.writeHeader()).thenReturn(true);
-        when(documentsService.queryTextIndex(Matchers.any())).thenReturn(new Documents<>(Collections.emptyList(), 0, null, null, null, null));
-        doThrow(new IOException("")).when(exportStrategy).exportRecord(eq(outputStream), anyListOf(String.class));
+        final HodSearchResult result = HodSearchResult.builder()
+                .reference("1")
+                .fieldMap(Collections.emptyMap())
+                .build();
+        when(documentsService.queryTextIndex(Matchers.any())).thenReturn(new Documents<>(Collections.singletonList(result), 1, null, null, null, null));
+        doThrow(new IOException("")).when(exportSession).exportRecord(anyListOf(String.class));
 
-        hodExportService.export(outputStream, queryRequest, ExportFormat.CSV, Collections.emptyList());
+        hodExportService.export(exportSession, queryRequest, ExportFormat.CSV, Collections.emptyList());
     }
 }
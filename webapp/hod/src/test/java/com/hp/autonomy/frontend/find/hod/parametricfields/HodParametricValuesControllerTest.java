@@ -5,6 +5,7 @@
 
 package com.hp.autonomy.frontend.find.hod.parametricfields;
 
+import com.hp.autonomy.frontend.find.core.configuration.CanonicalCacheKeyGenerator;
 import com.hp.autonomy.frontend.find.core.parametricfields.AbstractParametricValuesControllerTest;
 import com.hp.autonomy.hod.client.api.resource.ResourceName;
 import com.hp.autonomy.hod.client.error.HodErrorException;
@@ -46,7 +47,7 @@ public class HodParametricValuesControllerTest extends AbstractParametricValuesC
 
     @Override
     protected HodParametricValuesController newControllerInstance() {
-        return new HodParametricValuesController(hodParametricValuesService, queryRestrictionsBuilderFactory, parametricRequestBuilderFactory);
+        return new HodParametricValuesController(hodParametricValuesService, new HodParametricValuesCache(hodParametricValuesService, new CanonicalCacheKeyGenerator(0)), queryRestrictionsBuilderFactory, parametricRequestBuilderFactory);
     }
 
     @Override
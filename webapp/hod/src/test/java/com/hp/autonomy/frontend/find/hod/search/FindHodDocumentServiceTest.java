@@ -6,6 +6,7 @@
 package com.hp.autonomy.frontend.find.hod.search;
 
 import com.hp.autonomy.frontend.configuration.ConfigService;
+import com.hp.autonomy.frontend.find.core.configuration.CanonicalCacheKeyGenerator;
 import com.hp.autonomy.frontend.find.hod.configuration.HodConfig;
 import com.hp.autonomy.frontend.find.hod.configuration.HodFindConfig;
 import com.hp.autonomy.hod.client.api.resource.ResourceName;
@@ -89,7 +90,7 @@ public class FindHodDocumentServiceTest {
         when(queryRestrictions.toBuilder()).thenReturn(queryRestrictionsBuilder);
         when(queryRestrictionsBuilder.databases(any())).thenReturn(queryRestrictionsBuilder);
 
-        findDocumentsService = new FindHodDocumentService(databasesService, documentsService, databasesRequestBuilderFactory, findConfigService);
+        findDocumentsService = new FindHodDocumentService(databasesService, documentsService, databasesRequestBuilderFactory, findConfigService, new CanonicalCacheKeyGenerator(0));
 
         final QueryManipulationConfig config = QueryManipulationConfig.builder()
                 .profile("SomeProfile")
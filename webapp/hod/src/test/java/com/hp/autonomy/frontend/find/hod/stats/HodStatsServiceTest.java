@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.hod.stats;
+
+import com.hp.autonomy.frontend.find.core.stats.AbandonmentEvent;
+import com.hp.autonomy.frontend.find.core.stats.ClickThroughEvent;
+import com.hp.autonomy.frontend.find.core.stats.ClickType;
+import com.hp.autonomy.frontend.find.core.stats.PageEvent;
+import com.hpe.bigdata.frontend.spring.authentication.AuthenticationInformationRetriever;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class HodStatsServiceTest {
+    @Mock
+    private StatsSummaryRepository repository;
+
+    @Mock
+    private AuthenticationInformationRetriever<?, Principal> authenticationInformationRetriever;
+
+    @Mock
+    private Principal principal;
+
+    @Captor
+    private ArgumentCaptor<List<StatsSummary>> summariesCaptor;
+
+    private HodStatsService statsService;
+
+    @Before
+    public void setUp() {
+        when(authenticationInformationRetriever.getPrincipal()).thenReturn(principal);
+        when(principal.getName()).thenReturn("Batman");
+
+        statsService = new HodStatsService(Optional.of(repository), 2);
+    }
+
+    @Test
+    public void rollUpSavesSummaryPerQuery() {
+        statsService.recordEvent(new PageEvent("bats", 1, authenticationInformationRetriever));
+        statsService.recordEvent(new PageEvent("bats", 2, authenticationInformationRetriever));
+        statsService.recordEvent(new ClickThroughEvent("bats", ClickType.preview, 3, authenticationInformationRetriever));
+        statsService.recordEvent(new ClickThroughEvent("bats", ClickType.original, 30, authenticationInformationRetriever));
+        statsService.recordEvent(new AbandonmentEvent("cats", ClickType.original, authenticationInformationRetriever));
+
+        statsService.rollUp();
+        assertThat(statsService.getCurrentSummaries(), hasSize(0));
+        verify(repository, never()).save(anyListOf(StatsSummary.class));
+
+        statsService.rollUp();
+
+        verify(repository).save(summariesCaptor.capture());
+
+        final Map<String, StatsSummary> summaries = summariesCaptor.getValue().stream().collect(Collectors.toMap(StatsSummary::getSearch, Function.identity()));
+        assertThat(summaries.size(), is(2));
+
+        final StatsSummary bats = summaries.get("bats");
+        assertThat(bats.getPageEvents(), is(2L));
+        assertThat(bats.getClickThroughs(), is(2L));
+        assertThat(bats.getPageHistogram(), is("1,1,0,0,0,0,0,0,0,0"));
+        assertThat(bats.getClickPositionHistogram(), is("0,0,1,0,0,0,0,0,0,1"));
+
+        assertThat(summaries.get("cats").getAbandonments(), is(1L));
+    }
+
+    @Test
+    public void destroySavesEndedAndCurrentPeriods() {
+        statsService.recordEvent(new PageEvent("bats", 1, authenticationInformationRetriever));
+        statsService.rollUp();
+        statsService.recordEvent(new PageEvent("cats", 1, authenticationInformationRetriever));
+
+        statsService.destroy();
+
+        verify(repository).save(summariesCaptor.capture());
+
+        final List<StatsSummary> summaries = summariesCaptor.getValue();
+        assertThat(summaries, hasSize(2));
+        assertThat(summaries.get(0).getSearch(), is("bats"));
+        assertThat(summaries.get(1).getSearch(), is("cats"));
+    }
+
+    @Test
+    public void queriesOverLimitAreCountedTogether() {
+        statsService.recordEvent(new PageEvent("bats", 1, authenticationInformationRetriever));
+        statsService.recordEvent(new PageEvent("cats", 1, authenticationInformationRetriever));
+        statsService.recordEvent(new PageEvent("rats", 1, authenticationInformationRetriever));
+        statsService.recordEvent(new PageEvent("gnats", 1, authenticationInformationRetriever));
+
+        final List<StatsSummary> summaries = statsService.getCurrentSummaries();
+        assertThat(summaries, hasSize(3));
+
+        final StatsSummary otherQueries = summaries.get(2);
+        assertThat(otherQueries.getSearch(), is(nullValue()));
+        assertThat(otherQueries.getPageEvents(), is(2L));
+    }
+
+    @Test
+    public void nothingSavedWithoutEvents() {
+        statsService.rollUp();
+        statsService.rollUp();
+        verify(repository, never()).save(anyListOf(StatsSummary.class));
+    }
+}
@@ -32,6 +32,7 @@ import com.hpe.bigdata.frontend.spring.authentication.AuthenticationInformationR
 import org.apache.http.client.HttpClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.ImportResource;
@@ -39,6 +40,9 @@ import org.springframework.context.annotation.Primary;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 
 @Configuration
+// Applies to the search components' caches as well as Find's own, as it always has for HoD; without it the
+// IdolAutoCreatingEhCacheCacheManager and the IDOL expiries in FindCacheNames were never used
+@EnableCaching
 @ImportResource("required-statistics.xml")
 public class IdolConfiguration {
     @SuppressWarnings("SpringJavaAutowiringInspection")
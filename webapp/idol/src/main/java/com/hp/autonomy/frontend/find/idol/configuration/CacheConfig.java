@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.idol.configuration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.hp.autonomy.frontend.configuration.ConfigException;
+import com.hp.autonomy.frontend.find.core.web.FindCacheNames;
+import lombok.Data;
+import net.sf.ehcache.config.MemoryUnit;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-cache heap budgets for the in-memory caches, keyed on cache name. Budgets are either sizes such as "64M" or
+ * percentages of the total cache heap such as "10%". Caches which are not configured keep their default budgets from
+ * {@link FindCacheNames#CACHE_MAX_HEAP}, and caches without a budget share whatever the others leave free.
+ */
+@Data
+public class CacheConfig {
+    private final Map<String, String> maxHeap;
+
+    public CacheConfig(@JsonProperty("maxHeap") final Map<String, String> maxHeap) {
+        this.maxHeap = maxHeap;
+    }
+
+    public CacheConfig merge(final CacheConfig other) {
+        if(other == null || other.maxHeap == null) {
+            return this;
+        } else if(maxHeap == null) {
+            return other;
+        } else {
+            final Map<String, String> mergedMaxHeap = new HashMap<>(other.maxHeap);
+            mergedMaxHeap.putAll(maxHeap);
+            return new CacheConfig(mergedMaxHeap);
+        }
+    }
+
+    public void basicValidate(final String configSection) throws ConfigException {
+        if(maxHeap != null) {
+            for(final Map.Entry<String, String> entry : maxHeap.entrySet()) {
+                if(!isValidSize(entry.getValue())) {
+                    throw new ConfigException(configSection, "Invalid heap size " + entry.getValue() + " for cache " + entry.getKey());
+                }
+            }
+        }
+
+        // ehcache would otherwise only reject this when the caches are created
+        final int totalPercentage = totalPercentage(budgets());
+
+        if(totalPercentage > 100) {
+            throw new ConfigException(configSection, "Cache heap percentages add up to " + totalPercentage + "%, which is more than 100%");
+        }
+    }
+
+    /**
+     * Checks that the budgets fit in a cache heap pool of the given size, counting the default budgets of caches which
+     * are not configured and the size of any budgets which are not percentages.
+     *
+     * @param poolBytes the size of the cache manager's heap pool, set by find.cache.maxHeap
+     */
+    public void validateHeapPool(final String configSection, final long poolBytes) throws ConfigException {
+        basicValidate(configSection);
+
+        final Map<String, String> budgets = budgets();
+        long budgetBytes = poolBytes / 100 * totalPercentage(budgets);
+
+        for(final String budget : budgets.values()) {
+            if(!isPercentage(budget)) {
+                budgetBytes += MemoryUnit.parseSizeInBytes(budget);
+            }
+        }
+
+        if(budgetBytes > poolBytes) {
+            throw new ConfigException(configSection, "Cache heap budgets add up to " + budgetBytes + " bytes, which is more than the cache heap of " + poolBytes + " bytes");
+        }
+    }
+
+    /**
+     * @return the budget of each cache which has one, taking the default for caches which are not configured
+     */
+    private Map<String, String> budgets() {
+        final Map<String, String> budgets = new HashMap<>(FindCacheNames.CACHE_MAX_HEAP);
+
+        if(maxHeap != null) {
+            budgets.putAll(maxHeap);
+        }
+
+        return budgets;
+    }
+
+    private static int totalPercentage(final Map<String, String> budgets) {
+        int totalPercentage = 0;
+
+        for(final String budget : budgets.values()) {
+            if(isPercentage(budget)) {
+                totalPercentage += parsePercentage(budget);
+            }
+        }
+
+        return totalPercentage;
+    }
+
+    private static boolean isPercentage(final String size) {
+        return size.endsWith("%");
+    }
+
+    private static int parsePercentage(final String size) {
+        return Integer.parseInt(size.substring(0, size.length() - 1));
+    }
+
+    private static boolean isValidSize(final String size) {
+        if(StringUtils.isBlank(size)) {
+            return false;
+        }
+
+        try {
+            if(isPercentage(size)) {
+                final int percentage = parsePercentage(size);
+                return percentage > 0 && percentage <= 100;
+            } else {
+                return MemoryUnit.parseSizeInBytes(size) > 0;
+            }
+        } catch(final IllegalArgumentException ignored) {
+            return false;
+        }
+    }
+}
@@ -5,21 +5,57 @@
 
 package com.hp.autonomy.frontend.find.idol.configuration;
 
+import com.hp.autonomy.frontend.configuration.ConfigException;
+import com.hp.autonomy.frontend.configuration.ConfigService;
 import com.hp.autonomy.frontend.find.core.beanconfiguration.InMemoryCondition;
 import com.hp.autonomy.frontend.find.core.configuration.AutoCreatingEhCacheCacheManager;
+import com.hp.autonomy.frontend.find.core.configuration.OffHeapStore;
 import com.hp.autonomy.frontend.find.core.web.FindCacheNames;
 import net.sf.ehcache.CacheManager;
 import net.sf.ehcache.config.CacheConfiguration;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.CounterService;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import java.util.Optional;
+
 @Component
 @Conditional(InMemoryCondition.class)
 public class IdolAutoCreatingEhCacheCacheManager extends AutoCreatingEhCacheCacheManager {
+    private final ConfigService<IdolFindConfig> configService;
+
+    @SuppressWarnings("ConstructorWithTooManyParameters")
     @Autowired
-    public IdolAutoCreatingEhCacheCacheManager(final CacheManager cacheManager, final CacheConfiguration defaults) {
-        super(cacheManager, FindCacheNames.CACHE_EXPIRES, defaults);
+    public IdolAutoCreatingEhCacheCacheManager(final CacheManager cacheManager, final CacheConfiguration defaults, final CounterService counterService, final OffHeapStore offHeapStore, final ConfigService<IdolFindConfig> configService) {
+        super(cacheManager, FindCacheNames.CACHE_EXPIRES, defaults, counterService, offHeapStore);
+        this.configService = configService;
+    }
+
+    /**
+     * Checks that the heap budgets fit in the cache manager's pool at startup, rather than when a cache is first used
+     */
+    @PostConstruct
+    public void validateHeapBudgets() throws ConfigException {
+        final long poolBytes = getCacheManager().getConfiguration().getMaxBytesLocalHeap();
+
+        if(poolBytes > 0) {
+            final CacheConfig cacheConfig = Optional.ofNullable(configService.getConfig())
+                    .map(IdolFindConfig::getCache)
+                    .orElse(new CacheConfig(null));
+
+            cacheConfig.validateHeapPool("cache", poolBytes);
+        }
+    }
+
+    @Override
+    protected String getMaxHeap(final String cacheName) {
+        return Optional.ofNullable(configService.getConfig())
+                .map(IdolFindConfig::getCache)
+                .map(CacheConfig::getMaxHeap)
+                .map(maxHeap -> maxHeap.get(cacheName))
+                .orElse(FindCacheNames.CACHE_MAX_HEAP.get(cacheName));
     }
 
     @Override
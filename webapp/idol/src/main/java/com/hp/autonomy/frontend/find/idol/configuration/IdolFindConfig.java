@@ -59,6 +59,7 @@ public class IdolFindConfig extends AbstractConfig<IdolFindConfig> implements Us
     private final Integer minScore;
     private final StatsServerConfig statsServer;
     private final Integer topicMapMaxResults;
+    private final CacheConfig cache;
     @Singular
     private final Collection<ParametricDisplayValues> parametricDisplayValues;
 
@@ -80,6 +81,7 @@ public class IdolFindConfig extends AbstractConfig<IdolFindConfig> implements Us
                         .statsServer(statsServer == null ? other.statsServer : statsServer.merge(other.statsServer))
                         .parametricDisplayValues(CollectionUtils.isEmpty(parametricDisplayValues) ? other.parametricDisplayValues : parametricDisplayValues)
                         .topicMapMaxResults(topicMapMaxResults == null ? other.topicMapMaxResults : topicMapMaxResults)
+                        .cache(cache == null ? other.cache : cache.merge(other.cache))
                         .build())
                 .orElse(this);
     }
@@ -133,6 +135,10 @@ public class IdolFindConfig extends AbstractConfig<IdolFindConfig> implements Us
         if(answerServer != null) {
             answerServer.basicValidate("AnswerServer");
         }
+
+        if(cache != null) {
+            cache.basicValidate("cache");
+        }
     }
 
     @JsonIgnore
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.idol.databases;
+
+import com.hp.autonomy.frontend.find.core.configuration.CacheWarmUpTask;
+import com.hp.autonomy.frontend.find.core.databases.DatabasesController;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches the list of indexes, which is the same for every user
+ */
+@Component
+class IdolDatabasesCacheWarmUpTask implements CacheWarmUpTask {
+    private final IdolDatabasesController databasesController;
+
+    @Autowired
+    IdolDatabasesCacheWarmUpTask(final IdolDatabasesController databasesController) {
+        this.databasesController = databasesController;
+    }
+
+    @Override
+    public String getName() {
+        return DatabasesController.GET_DATABASES_PATH;
+    }
+
+    @Override
+    public void warmUp() throws Exception {
+        databasesController.getDatabases();
+    }
+}
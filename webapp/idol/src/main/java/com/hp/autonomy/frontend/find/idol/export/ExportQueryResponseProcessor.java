@@ -9,6 +9,7 @@ import com.autonomy.aci.client.services.AciErrorException;
 import com.autonomy.aci.client.services.ProcessorException;
 import com.autonomy.aci.client.services.impl.AbstractStAXProcessor;
 import com.autonomy.aci.client.services.impl.ErrorProcessor;
+import com.hp.autonomy.frontend.find.core.export.ExportSession;
 import com.hp.autonomy.frontend.find.core.export.ExportStrategy;
 import com.hp.autonomy.searchcomponents.core.config.FieldInfo;
 import com.hp.autonomy.searchcomponents.core.config.FieldType;
@@ -17,32 +18,49 @@ import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.events.XMLEvent;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.util.*;
-
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes each hit in a query response to an {@link ExportSession}. Element names are resolved to export columns once
+ * for each distinct name rather than once per element, and values are collected into lists which are reused from one
+ * hit to the next.
+ */
 @SuppressWarnings("serial")
 class ExportQueryResponseProcessor extends AbstractStAXProcessor<Void> {
     private static final String HIT_NODE_NAME = "autn:hit";
-
-    private static final Map<String, IdolMetadataNode> METADATA_NODES = new HashMap<>();
-
-    static {
-        for(final IdolMetadataNode metadataNode : IdolMetadataNode.values()) {
-            METADATA_NODES.put(metadataNode.getNodeName(), metadataNode);
-        }
-    }
+    // Marks element names which do not correspond to an exported column
+    private static final Column NO_COLUMN = new Column(-1, null);
 
     private final ExportStrategy exportStrategy;
-    private final OutputStream outputStream;
+    private final ExportSession exportSession;
     private final Map<String, FieldInfo<?>> configuredFields;
-    private final Collection<String> selectedFieldIds;
-
-    ExportQueryResponseProcessor(final ExportStrategy exportStrategy, final OutputStream outputStream, final Collection<String> selectedFieldIds) {
-        this.outputStream = outputStream;
-        this.selectedFieldIds = selectedFieldIds;
-
+    private final Map<String, Integer> columnIndexes = new HashMap<>();
+    private final Map<String, Column> columnsByNodeName = new HashMap<>();
+    private final List<String>[] columnValues;
+    private final List<String> record;
+
+    @SuppressWarnings("unchecked")
+    ExportQueryResponseProcessor(final ExportStrategy exportStrategy, final ExportSession exportSession, final Collection<String> selectedFieldIds) {
+        this.exportSession = exportSession;
         this.exportStrategy = exportStrategy;
         configuredFields = exportStrategy.getConfiguredFieldsByName();
+
+        final List<String> fieldNames = exportStrategy.getFieldNames(IdolMetadataNode.values(), selectedFieldIds);
+        columnValues = new List[fieldNames.size()];
+        record = new ArrayList<>(fieldNames.size());
+
+        for(int i = 0; i < fieldNames.size(); i++) {
+            columnIndexes.putIfAbsent(fieldNames.get(i), i);
+            columnValues[i] = new ArrayList<>();
+        }
+
+        for(final IdolMetadataNode metadataNode : IdolMetadataNode.values()) {
+            columnsByNodeName.put(metadataNode.getNodeName(), column(metadataNode.getDisplayName(), metadataNode.getFieldType()));
+        }
     }
 
     @Override
@@ -53,21 +71,12 @@ class ExportQueryResponseProcessor extends AbstractStAXProcessor<Void> {
                 processErrorResponse(aciResponse);
             }
 
-            final Collection<String> fieldNames = exportStrategy.getFieldNames(IdolMetadataNode.values(), selectedFieldIds);
-
-            //Caution: outputStream should not be written to before call to prependOutput().
-            exportStrategy.prependOutput(outputStream);
-
-            if(exportStrategy.writeHeader()) {
-                exportStrategy.exportRecord(outputStream, fieldNames);
-            }
-
             while(aciResponse.hasNext()) {
                 final int eventType = aciResponse.next();
 
                 if(XMLEvent.START_ELEMENT == eventType) {
                     if(HIT_NODE_NAME.equals(aciResponse.getLocalName())) {
-                        parseHit(fieldNames, aciResponse);
+                        parseHit(aciResponse);
                     }
                 }
             }
@@ -77,49 +86,66 @@ class ExportQueryResponseProcessor extends AbstractStAXProcessor<Void> {
         return null;
     }
 
-    private void parseHit(final Collection<String> fieldNames, final XMLStreamReader aciResponse) throws XMLStreamException, IOException {
-        final Map<String, List<String>> valueMap = new HashMap<>();
+    private void parseHit(final XMLStreamReader aciResponse) throws XMLStreamException, IOException {
+        for(final List<String> values : columnValues) {
+            values.clear();
+        }
+
         int eventType;
 
         while(aciResponse.hasNext() && !((eventType = aciResponse.next()) == XMLEvent.END_ELEMENT && HIT_NODE_NAME.equals(aciResponse.getLocalName()))) {
             if(XMLEvent.START_ELEMENT == eventType) {
-                final String nodeName = aciResponse.getLocalName();
-                final IdolMetadataNode metadataNode = METADATA_NODES.get(nodeName);
-                final FieldInfo<?> fieldInfo = configuredFields.get(nodeName.toLowerCase());
-
-                if(metadataNode != null || fieldInfo != null) {
-                    final FieldType fieldType;
-                    final String id;
-
-                    if(metadataNode != null) {
-                        id = metadataNode.getDisplayName();
-                        fieldType = metadataNode.getFieldType();
-                    } else {
-                        id = fieldInfo.getId();
-                        fieldType = fieldInfo.getType();
-                    }
+                final Column column = getColumn(aciResponse.getLocalName());
 
-                    final Object value = fieldType.parseValue(fieldType.getType(), aciResponse.getElementText().trim());
-                    addValueToMap(valueMap, id, value == null ? "" : value.toString());
+                if(column != NO_COLUMN) {
+                    columnValues[column.index].add(column.parse(aciResponse.getElementText().trim()));
                 }
             }
         }
 
-        final Collection<String> values = new ArrayList<>(fieldNames.size());
+        record.clear();
+
+        for(final List<String> values : columnValues) {
+            record.add(exportStrategy.combineValues(values));
+        }
+
+        exportSession.exportRecord(record);
+    }
+
+    private Column getColumn(final String nodeName) {
+        Column column = columnsByNodeName.get(nodeName);
 
-        for(final String fieldName : fieldNames) {
-            final List<String> fieldValues = valueMap.get(fieldName);
-            values.add(exportStrategy.combineValues(fieldValues));
+        if(column == null) {
+            final FieldInfo<?> fieldInfo = configuredFields.get(nodeName.toLowerCase());
+            column = fieldInfo == null ? NO_COLUMN : column(fieldInfo.getId(), fieldInfo.getType());
+            columnsByNodeName.put(nodeName, column);
         }
 
-        exportStrategy.exportRecord(outputStream, values);
+        return column;
+    }
+
+    private Column column(final String fieldName, final FieldType fieldType) {
+        final Integer index = columnIndexes.get(fieldName);
+        return index == null ? NO_COLUMN : new Column(index, fieldType);
     }
 
-    private void addValueToMap(final Map<String, List<String>> valueMap, final String name, final String value) {
-        if(!valueMap.containsKey(name)) {
-            valueMap.put(name, new ArrayList<>());
+    private static class Column {
+        private final int index;
+        private final FieldType fieldType;
+
+        private Column(final int index, final FieldType fieldType) {
+            this.index = index;
+            this.fieldType = fieldType;
         }
 
-        valueMap.get(name).add(value);
+        private String parse(final String text) {
+            // String values would come back unchanged, so avoid the round trip
+            if(fieldType == FieldType.STRING) {
+                return text;
+            }
+
+            final Object value = fieldType.parseValue(fieldType.getType(), text);
+            return value == null ? "" : value.toString();
+        }
     }
-}
\ No newline at end of file
+}
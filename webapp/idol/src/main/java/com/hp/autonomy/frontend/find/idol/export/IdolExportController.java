@@ -8,39 +8,45 @@ package com.hp.autonomy.frontend.find.idol.export;
 import com.autonomy.aci.client.services.AciErrorException;
 import com.hp.autonomy.frontend.find.core.export.ExportController;
 import com.hp.autonomy.frontend.find.core.export.ExportFormat;
+import com.hp.autonomy.frontend.find.core.export.ExportJobService;
+import com.hp.autonomy.frontend.find.core.export.ExportPagination;
 import com.hp.autonomy.frontend.find.core.export.ExportService;
+import com.hp.autonomy.frontend.find.core.export.ExportSession;
 import com.hp.autonomy.frontend.find.core.web.ControllerUtils;
 import com.hp.autonomy.frontend.find.core.web.RequestMapper;
 import com.hp.autonomy.searchcomponents.core.search.StateTokenAndResultCount;
 import com.hp.autonomy.searchcomponents.idol.search.IdolDocumentsService;
 import com.hp.autonomy.searchcomponents.idol.search.IdolQueryRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 
-import java.io.OutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 @Controller
 class IdolExportController extends ExportController<IdolQueryRequest, AciErrorException> {
 
     private final IdolDocumentsService documentsService;
-    private final ExportService<IdolQueryRequest, AciErrorException> exportService;
 
     @Autowired
     public IdolExportController(final RequestMapper<IdolQueryRequest> requestMapper,
                                 final ControllerUtils controllerUtils,
                                 final IdolDocumentsService documentsService,
-                                final ExportService<IdolQueryRequest, AciErrorException> exportService) {
-        super(requestMapper, controllerUtils);
+                                final ExportService<IdolQueryRequest, AciErrorException> exportService,
+                                final ExportJobService exportJobService,
+                                @Value(EXPORT_PARALLELISM_PROPERTY) final int exportParallelism) {
+        super(requestMapper, controllerUtils, exportService, exportJobService, exportParallelism);
         this.documentsService = documentsService;
-        this.exportService = exportService;
     }
 
     @Override
-    protected void export(final OutputStream outputStream,
+    protected void export(final ExportSession exportSession,
                           final IdolQueryRequest queryRequest,
                           final ExportFormat exportFormat,
-                          final Collection<String> selectedFieldNames) throws AciErrorException {
+                          final Collection<String> selectedFieldNames) throws IOException, AciErrorException {
         final StateTokenAndResultCount stateTokenAndResultCount = documentsService.getStateTokenAndResultCount(queryRequest.getQueryRestrictions(), queryRequest.getMaxResults(), false);
 
         final IdolQueryRequest queryRequestWithStateToken = queryRequest.toBuilder()
@@ -49,12 +55,17 @@ class IdolExportController extends ExportController<IdolQueryRequest, AciErrorEx
                         .build())
                 .build();
 
-        for (int i = 0; i < stateTokenAndResultCount.getResultCount(); i += PAGINATION_SIZE) {
-            final IdolQueryRequest paginatedQueryRequest = queryRequestWithStateToken.toBuilder()
-                    .start(i + 1)
-                    .maxResults(i + PAGINATION_SIZE)
-                    .build();
-            exportService.export(outputStream, paginatedQueryRequest, exportFormat, selectedFieldNames);
+        final int pageSize = ExportPagination.getPageSize(selectedFieldNames, PAGINATION_SIZE);
+        final List<IdolQueryRequest> pageRequests = new ArrayList<>();
+
+        // IDOL's MaxResults is the absolute position of the last result, not the number of results in the page
+        for (final ExportPagination.ExportPage page : ExportPagination.getPages(stateTokenAndResultCount.getResultCount(), pageSize)) {
+            pageRequests.add(queryRequestWithStateToken.toBuilder()
+                    .start(page.getStart())
+                    .maxResults(page.getEnd())
+                    .build());
         }
+
+        exportPages(exportSession, pageRequests, exportFormat, selectedFieldNames);
     }
 }
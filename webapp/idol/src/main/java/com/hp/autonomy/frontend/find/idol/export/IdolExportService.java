@@ -9,6 +9,7 @@ import com.autonomy.aci.client.services.AciErrorException;
 import com.autonomy.aci.client.util.AciParameters;
 import com.hp.autonomy.frontend.find.core.export.ExportFormat;
 import com.hp.autonomy.frontend.find.core.export.ExportService;
+import com.hp.autonomy.frontend.find.core.export.ExportSession;
 import com.hp.autonomy.frontend.find.core.export.ExportStrategy;
 import com.hp.autonomy.searchcomponents.core.search.QueryRequest;
 import com.hp.autonomy.searchcomponents.idol.configuration.AciServiceRetriever;
@@ -18,13 +19,22 @@ import com.hp.autonomy.types.requests.idol.actions.query.QueryActions;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Collection;
 import java.util.EnumMap;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @Component
 class IdolExportService implements ExportService<IdolQueryRequest, AciErrorException> {
+    private static final String PRINT_PARAM = "Print";
+    private static final String PRINT_FIELDS_PARAM = "PrintFields";
+    private static final String SUMMARY_PARAM = "Summary";
+    private static final String PRINT_FIELDS = "Fields";
+    private static final String PRINT_NO_RESULTS = "NoResults";
+    private static final String SUMMARY_OFF = "Off";
+
     private final HavenSearchAciParameterHandler parameterHandler;
     private final AciServiceRetriever aciServiceRetriever;
     private final Map<ExportFormat, ExportStrategy> exportStrategies;
@@ -43,7 +53,15 @@ class IdolExportService implements ExportService<IdolQueryRequest, AciErrorExcep
     }
 
     @Override
-    public void export(final OutputStream outputStream, final IdolQueryRequest queryRequest, final ExportFormat exportFormat, final Collection<String> selectedFieldIds) throws AciErrorException {
+    public ExportSession openSession(final OutputStream outputStream, final ExportFormat exportFormat, final Collection<String> selectedFieldIds) throws IOException {
+        final ExportStrategy exportStrategy = exportStrategies.get(exportFormat);
+        return exportStrategy.openSession(outputStream,
+                exportStrategy.getFieldNames(IdolMetadataNode.values(), selectedFieldIds),
+                exportStrategy.getFieldTypes(IdolMetadataNode.values(), selectedFieldIds));
+    }
+
+    @Override
+    public void export(final ExportSession exportSession, final IdolQueryRequest queryRequest, final ExportFormat exportFormat, final Collection<String> selectedFieldIds) throws AciErrorException {
         final AciParameters aciParameters = new AciParameters(QueryActions.Query.name());
 
         parameterHandler.addSearchRestrictions(aciParameters, queryRequest.getQueryRestrictions());
@@ -53,6 +71,28 @@ class IdolExportService implements ExportService<IdolQueryRequest, AciErrorExcep
         }
 
         final ExportStrategy exportStrategy = exportStrategies.get(exportFormat);
-        aciServiceRetriever.getAciService(queryRequest.getQueryType()).executeAction(aciParameters, new ExportQueryResponseProcessor(exportStrategy, outputStream, selectedFieldIds));
+        addExportOutputParameters(aciParameters, exportStrategy, selectedFieldIds);
+
+        aciServiceRetriever.getAciService(queryRequest.getQueryType()).executeAction(aciParameters, new ExportQueryResponseProcessor(exportStrategy, exportSession, selectedFieldIds));
+    }
+
+    // Only ask IDOL for the fields being exported, so that the size of each hit does not depend on the size of the
+    // document content
+    private void addExportOutputParameters(final AciParameters aciParameters, final ExportStrategy exportStrategy, final Collection<String> selectedFieldIds) {
+        final String printFields = exportStrategy.getConfiguredFieldsById().values().stream()
+                .filter(field -> selectedFieldIds.isEmpty() || selectedFieldIds.contains(field.getId()))
+                .flatMap(field -> field.getNames().stream())
+                .collect(Collectors.joining(","));
+
+        if(printFields.isEmpty()) {
+            aciParameters.put(PRINT_PARAM, PRINT_NO_RESULTS);
+        } else {
+            aciParameters.put(PRINT_PARAM, PRINT_FIELDS);
+            aciParameters.put(PRINT_FIELDS_PARAM, printFields);
+        }
+
+        if(!selectedFieldIds.isEmpty() && !selectedFieldIds.contains(IdolMetadataNode.SUMMARY.getName())) {
+            aciParameters.put(SUMMARY_PARAM, SUMMARY_OFF);
+        }
     }
 }
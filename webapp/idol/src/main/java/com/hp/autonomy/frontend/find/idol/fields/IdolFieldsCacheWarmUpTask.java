@@ -0,0 +1,36 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.idol.fields;
+
+import com.hp.autonomy.frontend.find.core.configuration.CacheWarmUpTask;
+import com.hp.autonomy.frontend.find.core.fields.FieldsController;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches the parametric, numeric and date field lists, which are the same for every user
+ */
+@Component
+class IdolFieldsCacheWarmUpTask implements CacheWarmUpTask {
+    private final IdolFieldsController fieldsController;
+
+    @Autowired
+    IdolFieldsCacheWarmUpTask(final IdolFieldsController fieldsController) {
+        this.fieldsController = fieldsController;
+    }
+
+    @Override
+    public String getName() {
+        return FieldsController.FIELDS_PATH;
+    }
+
+    @Override
+    public void warmUp() throws Exception {
+        fieldsController.getParametricFields();
+        fieldsController.getParametricNumericFields();
+        fieldsController.getParametricDateFields();
+    }
+}
@@ -7,12 +7,15 @@ package com.hp.autonomy.frontend.find.idol.metrics;
 
 import com.autonomy.aci.client.transport.AciParameter;
 import com.autonomy.aci.client.transport.AciServerDetails;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.hp.autonomy.searchcomponents.idol.annotations.IdolService;
 import com.hp.autonomy.searchcomponents.idol.exceptions.AciErrorExceptionAspect;
 import com.hp.autonomy.types.requests.idol.actions.params.ActionParams;
 import com.hp.autonomy.types.requests.idol.actions.query.params.QueryParams;
 import com.hp.autonomy.types.requests.idol.actions.tags.params.GetQueryTagValuesParams;
 import com.hp.autonomy.types.requests.idol.actions.user.UserActions;
+import lombok.Data;
 import org.apache.commons.lang3.StringUtils;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
@@ -27,6 +30,11 @@ import org.springframework.util.StopWatch;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -34,6 +42,11 @@ import static com.hp.autonomy.frontend.find.core.metrics.MetricsConfiguration.*;
 
 /**
  * Default implementation of {@link AciErrorExceptionAspect}
+ * <p>
+ * In the default detailed mode, each IDOL request is submitted as a metric named after all of its parameters. In
+ * histogram mode, requests are instead recorded in a Dropwizard {@link Timer} per server, action and outcome, whose
+ * percentiles are estimated from a bounded sample. The number of these timers is capped, so that unexpected actions
+ * cannot grow the registry without limit.
  */
 @SuppressWarnings("ProhibitedExceptionDeclared")
 @Aspect
@@ -45,20 +58,40 @@ class PerformanceMonitoringAspect {
     static final char CLASS_METHOD_SEPARATOR = ':';
     static final String PARAMETER_SEPARATOR = "&";
     static final char NAME_VALUE_SEPARATOR = '=';
+    static final String TIMER_METRIC_TYPE = "timer";
+    static final String FAILED_METRIC_NAME_SUFFIX = METRIC_NAME_SEPARATOR + "failed";
+    static final String OTHER_ACTION = "other";
+    static final String UNKNOWN_ACTION = "unknown";
+    static final int MAX_TIMERS = 500;
+
+    private static final String IDOL_REQUEST_METRICS_PROPERTY_KEY = "find.metrics.idolRequests";
+    private static final String IDOL_REQUEST_METRICS_DEFAULT = "DETAILED";
+    private static final String IDOL_REQUEST_METRICS_PROPERTY = "${" + IDOL_REQUEST_METRICS_PROPERTY_KEY + ':' + IDOL_REQUEST_METRICS_DEFAULT + '}';
 
     private static final Pattern ILLEGAL_COMPONENT_CHARACTERS = Pattern.compile("\\.");
     private static final Pattern ILLEGAL_CHARACTERS = Pattern.compile("[/\\\\]");
     private static final String ILLEGAL_CHARACTER_REPLACEMENT = "_";
     private static final String VALUE_PLACEHOLDER = "[any]";
+    private static final Set<String> USER_ACTIONS = Arrays.stream(UserActions.values())
+            .map(Enum::name)
+            .collect(Collectors.toCollection(() -> new TreeSet<>(String.CASE_INSENSITIVE_ORDER)));
+
+    private final ConcurrentMap<TimerKey, Timer> timers = new ConcurrentHashMap<>();
 
     private final GaugeService gaugeService;
+    private final MetricRegistry metricRegistry;
     private final String metricType;
+    private final IdolRequestMetrics idolRequestMetrics;
 
     @Autowired
     public PerformanceMonitoringAspect(final GaugeService gaugeService,
-                                       @Value(FIND_METRICS_TYPE_PROPERTY) final String metricType) {
+                                       final MetricRegistry metricRegistry,
+                                       @Value(FIND_METRICS_TYPE_PROPERTY) final String metricType,
+                                       @Value(IDOL_REQUEST_METRICS_PROPERTY) final IdolRequestMetrics idolRequestMetrics) {
         this.gaugeService = gaugeService;
+        this.metricRegistry = metricRegistry;
         this.metricType = metricType;
+        this.idolRequestMetrics = idolRequestMetrics;
     }
 
     @Around("@within(idolService)")
@@ -77,6 +110,10 @@ class PerformanceMonitoringAspect {
             final ProceedingJoinPoint joinPoint,
             final AciServerDetails serverDetails,
             final Collection<? extends AciParameter> parameters) throws Throwable {
+        if (idolRequestMetrics == IdolRequestMetrics.HISTOGRAM) {
+            return timeIdolRequest(joinPoint, serverDetails, parameters);
+        }
+
         final StringBuilder metricNameBuilder = new StringBuilder(metricType)
                 .append(IDOL_REQUEST_METRIC_NAME_PREFIX)
                 .append(sanitiseMetricNameComponent(serverDetails.getHost()))
@@ -109,6 +146,55 @@ class PerformanceMonitoringAspect {
         }
     }
 
+    private Object timeIdolRequest(
+            final ProceedingJoinPoint joinPoint,
+            final AciServerDetails serverDetails,
+            final Iterable<? extends AciParameter> parameters) throws Throwable {
+        String action = UNKNOWN_ACTION;
+
+        for (final AciParameter parameter : parameters) {
+            if (ActionParams.Action.name().equalsIgnoreCase(parameter.getName()) && StringUtils.isNotEmpty(parameter.getValue())) {
+                action = parameter.getValue();
+                break;
+            }
+        }
+
+        if (USER_ACTIONS.contains(action)) {
+            return joinPoint.proceed();
+        }
+
+        final long start = System.nanoTime();
+        boolean failed = true;
+
+        try {
+            final Object result = joinPoint.proceed();
+            failed = false;
+            return result;
+        } finally {
+            getTimer(new TimerKey(serverDetails.getHost(), serverDetails.getPort(), action, failed))
+                    .update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer getTimer(final TimerKey key) {
+        final Timer timer = timers.get(key);
+
+        if (timer != null) {
+            return timer;
+        }
+
+        // the metric name is only built the first time a key is seen
+        final TimerKey boundedKey = timers.size() < MAX_TIMERS ? key : new TimerKey(key.getHost(), key.getPort(), OTHER_ACTION, key.isFailed());
+        return timers.computeIfAbsent(boundedKey, k -> metricRegistry.timer(sanitiseMetricName(TIMER_METRIC_TYPE
+                + IDOL_REQUEST_METRIC_NAME_PREFIX
+                + sanitiseMetricNameComponent(k.getHost())
+                + METRIC_NAME_SEPARATOR
+                + k.getPort()
+                + METRIC_NAME_SEPARATOR
+                + sanitiseMetricNameComponent(k.getAction())
+                + (k.isFailed() ? FAILED_METRIC_NAME_SUFFIX : ""))));
+    }
+
     private String sanitiseMetricName(final CharSequence metricNameBuilder) {
         return ILLEGAL_CHARACTERS.matcher(metricNameBuilder).replaceAll(ILLEGAL_CHARACTER_REPLACEMENT);
     }
@@ -122,4 +208,20 @@ class PerformanceMonitoringAspect {
                 ? VALUE_PLACEHOLDER
                 : value;
     }
+
+    /**
+     * How IDOL requests are recorded
+     */
+    enum IdolRequestMetrics {
+        DETAILED,
+        HISTOGRAM
+    }
+
+    @Data
+    private static class TimerKey {
+        private final String host;
+        private final int port;
+        private final String action;
+        private final boolean failed;
+    }
 }
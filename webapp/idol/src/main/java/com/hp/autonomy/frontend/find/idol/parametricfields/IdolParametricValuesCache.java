@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.idol.parametricfields;
+
+import com.autonomy.aci.client.services.AciErrorException;
+import com.hp.autonomy.frontend.find.core.configuration.CanonicalCacheKeyGenerator;
+import com.hp.autonomy.frontend.find.core.parametricfields.ParametricValuesCache;
+import com.hp.autonomy.frontend.find.core.web.FindCacheNames;
+import com.hp.autonomy.frontend.find.idol.search.SecurityInfoCacheKeyGenerator;
+import com.hp.autonomy.searchcomponents.idol.parametricvalues.IdolParametricRequest;
+import com.hp.autonomy.searchcomponents.idol.parametricvalues.IdolParametricValuesService;
+import com.hp.autonomy.types.idol.responses.RecursiveField;
+import com.hp.autonomy.types.requests.idol.actions.tags.QueryTagInfo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+
+@Service
+class IdolParametricValuesCache implements ParametricValuesCache<IdolParametricRequest, AciErrorException> {
+    private final IdolParametricValuesService parametricValuesService;
+    private final CanonicalCacheKeyGenerator canonicalCacheKeyGenerator;
+
+    @Autowired
+    public IdolParametricValuesCache(final IdolParametricValuesService parametricValuesService,
+                                     final CanonicalCacheKeyGenerator canonicalCacheKeyGenerator) {
+        this.parametricValuesService = parametricValuesService;
+        this.canonicalCacheKeyGenerator = canonicalCacheKeyGenerator;
+    }
+
+    @Override
+    @Cacheable(value = FindCacheNames.PARAMETRIC_VALUES, sync = true, keyGenerator = SecurityInfoCacheKeyGenerator.BEAN_NAME)
+    public Set<QueryTagInfo> getParametricValues(final IdolParametricRequest parametricRequest) throws AciErrorException {
+        return parametricValuesService.getParametricValues(canonicalCacheKeyGenerator.roundDates(parametricRequest));
+    }
+
+    @Override
+    @Cacheable(value = FindCacheNames.DEPENDENT_PARAMETRIC_VALUES, sync = true, keyGenerator = SecurityInfoCacheKeyGenerator.BEAN_NAME)
+    public List<RecursiveField> getDependentParametricValues(final IdolParametricRequest parametricRequest) throws AciErrorException {
+        return parametricValuesService.getDependentParametricValues(canonicalCacheKeyGenerator.roundDates(parametricRequest));
+    }
+}
@@ -6,6 +6,7 @@
 package com.hp.autonomy.frontend.find.idol.parametricfields;
 
 import com.autonomy.aci.client.services.AciErrorException;
+import com.hp.autonomy.frontend.find.core.parametricfields.ParametricValuesCache;
 import com.hp.autonomy.frontend.find.core.parametricfields.ParametricValuesController;
 import com.hp.autonomy.searchcomponents.idol.parametricvalues.IdolParametricRequest;
 import com.hp.autonomy.searchcomponents.idol.parametricvalues.IdolParametricRequestBuilder;
@@ -33,9 +34,10 @@ class IdolParametricValuesController extends ParametricValuesController<IdolQuer
     @SuppressWarnings("TypeMayBeWeakened")
     @Autowired
     public IdolParametricValuesController(final IdolParametricValuesService parametricValuesService,
+                                          final ParametricValuesCache<IdolParametricRequest, AciErrorException> parametricValuesCache,
                                           final ObjectFactory<IdolQueryRestrictionsBuilder> queryRestrictionsBuilderFactory,
                                           final ObjectFactory<IdolParametricRequestBuilder> parametricRequestBuilderFactory) {
-        super(parametricValuesService, queryRestrictionsBuilderFactory, parametricRequestBuilderFactory);
+        super(parametricValuesService, parametricValuesCache, queryRestrictionsBuilderFactory, parametricRequestBuilderFactory);
     }
 
     @RequestMapping(method = RequestMethod.GET)
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.idol.search;
+
+import com.autonomy.aci.client.services.AciErrorException;
+import com.hp.autonomy.frontend.find.core.configuration.CanonicalCacheKeyGenerator;
+import com.hp.autonomy.frontend.find.core.web.FindCacheNames;
+import com.hp.autonomy.searchcomponents.core.search.StateTokenAndResultCount;
+import com.hp.autonomy.searchcomponents.idol.search.IdolDocumentsService;
+import com.hp.autonomy.searchcomponents.idol.search.IdolGetContentRequest;
+import com.hp.autonomy.searchcomponents.idol.search.IdolQueryRequest;
+import com.hp.autonomy.searchcomponents.idol.search.IdolQueryRestrictions;
+import com.hp.autonomy.searchcomponents.idol.search.IdolSearchResult;
+import com.hp.autonomy.searchcomponents.idol.search.IdolSuggestRequest;
+import com.hp.autonomy.types.requests.Documents;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Caches query and suggest results in the same way as the HoD documents service. Entries are keyed on the user's
+ * security info as well as the request (see {@link SecurityInfoCacheKeyGenerator}) so documents are never shared
+ * between users with different permissions. Cached requests are executed with their dates rounded as they are in the
+ * key.
+ */
+@Primary
+@Service
+class FindIdolDocumentsService implements IdolDocumentsService {
+    private final IdolDocumentsService documentsService;
+    private final CanonicalCacheKeyGenerator canonicalCacheKeyGenerator;
+
+    @Autowired
+    public FindIdolDocumentsService(
+            @Qualifier(DOCUMENTS_SERVICE_BEAN_NAME)
+            final IdolDocumentsService documentsService,
+            final CanonicalCacheKeyGenerator canonicalCacheKeyGenerator
+    ) {
+        this.documentsService = documentsService;
+        this.canonicalCacheKeyGenerator = canonicalCacheKeyGenerator;
+    }
+
+    @Override
+    @Cacheable(value = FindCacheNames.DOCUMENTS, sync = true, keyGenerator = SecurityInfoCacheKeyGenerator.BEAN_NAME)
+    public Documents<IdolSearchResult> queryTextIndex(final IdolQueryRequest queryRequest) throws AciErrorException {
+        return documentsService.queryTextIndex(canonicalCacheKeyGenerator.roundDates(queryRequest));
+    }
+
+    @Override
+    @Cacheable(value = FindCacheNames.SIMILAR_DOCUMENTS, sync = true, keyGenerator = SecurityInfoCacheKeyGenerator.BEAN_NAME)
+    public Documents<IdolSearchResult> findSimilar(final IdolSuggestRequest suggestRequest) throws AciErrorException {
+        return documentsService.findSimilar(canonicalCacheKeyGenerator.roundDates(suggestRequest));
+    }
+
+    @Override
+    public List<IdolSearchResult> getDocumentContent(final IdolGetContentRequest getContentRequest) throws AciErrorException {
+        return documentsService.getDocumentContent(getContentRequest);
+    }
+
+    @Override
+    public String getStateToken(final IdolQueryRestrictions queryRestrictions, final int maxResults, final boolean promotions) throws AciErrorException {
+        return documentsService.getStateToken(queryRestrictions, maxResults, promotions);
+    }
+
+    @Override
+    public StateTokenAndResultCount getStateTokenAndResultCount(final IdolQueryRestrictions queryRestrictions, final int maxResults, final boolean promotions) throws AciErrorException {
+        return documentsService.getStateTokenAndResultCount(queryRestrictions, maxResults, promotions);
+    }
+}
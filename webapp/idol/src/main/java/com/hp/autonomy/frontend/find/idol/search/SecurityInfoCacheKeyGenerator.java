@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.idol.search;
+
+import com.hp.autonomy.frontend.configuration.authentication.CommunityPrincipal;
+import com.hp.autonomy.frontend.find.core.configuration.CanonicalCacheKeyGenerator;
+import com.hpe.bigdata.frontend.spring.authentication.AuthenticationInformationRetriever;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+
+/**
+ * Generates cache keys from the canonicalised method parameters and the current user's security info, which is what
+ * determines the documents IDOL will return to them.
+ */
+@Component(SecurityInfoCacheKeyGenerator.BEAN_NAME)
+public class SecurityInfoCacheKeyGenerator implements KeyGenerator {
+    public static final String BEAN_NAME = "securityInfoCacheKeyGenerator";
+
+    private final AuthenticationInformationRetriever<?, CommunityPrincipal> authenticationInformationRetriever;
+    private final CanonicalCacheKeyGenerator canonicalCacheKeyGenerator;
+
+    @Autowired
+    public SecurityInfoCacheKeyGenerator(final AuthenticationInformationRetriever<?, CommunityPrincipal> authenticationInformationRetriever,
+                                         final CanonicalCacheKeyGenerator canonicalCacheKeyGenerator) {
+        this.authenticationInformationRetriever = authenticationInformationRetriever;
+        this.canonicalCacheKeyGenerator = canonicalCacheKeyGenerator;
+    }
+
+    @Override
+    public Object generate(final Object target, final Method method, final Object... params) {
+        final CommunityPrincipal principal = authenticationInformationRetriever.getPrincipal();
+        final String securityInfo = principal == null ? null : principal.getSecurityInfo();
+
+        return new SimpleKey(securityInfo, canonicalCacheKeyGenerator.generate(target, method, params));
+    }
+}
@@ -1,14 +1,14 @@
 /*
- * Copyright 2014-2016 Hewlett-Packard Development Company, L.P.
+ * Copyright 2014-2017 Hewlett-Packard Development Company, L.P.
  * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
  */
 
 package com.hp.autonomy.frontend.find.idol.stats;
 
+import com.autonomy.aci.client.services.AciErrorException;
 import com.autonomy.aci.client.services.AciService;
 import com.autonomy.aci.client.util.AciParameters;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.hp.autonomy.frontend.configuration.ConfigService;
 import com.hp.autonomy.frontend.find.core.stats.Event;
 import com.hp.autonomy.frontend.find.core.stats.StatsService;
@@ -19,66 +19,251 @@ import com.hp.autonomy.types.requests.idol.actions.stats.params.EventParams;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.BooleanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.List;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import static com.hp.autonomy.frontend.find.core.metrics.MetricsConfiguration.METRIC_NAME_SEPARATOR;
+
+/**
+ * Sends events to StatsServer in batches.
+ * <p>
+ * Events are held in a bounded queue; when it is full, events are dropped according to the overflow policy. The queue
+ * is flushed every five seconds, or sooner once a batch's worth of events is waiting, and at most a fixed number of
+ * batches are sent at once. Batches are encoded by the {@link StatsEventEncoder}, which limits their size as well as
+ * the number of events in them.
+ * <p>
+ * Batches which fail to send are written to the {@link StatsEventSpool}, as are all new events until StatsServer is due
+ * a retry, with exponential backoff between retries. Spooled batches are replayed oldest first, a limited number per
+ * scheduled flush, so that a recovering StatsServer is not flooded.
+ * <p>
+ * A batch which StatsServer rejects with an error is not a sign that StatsServer is down, so it does not hold up other
+ * batches. It is spooled, and dropped once it has been rejected a few times.
+ */
 @Service
 @Slf4j
 class IdolStatsService implements StatsService {
+    static final String METRIC_NAME_PREFIX = "stats" + METRIC_NAME_SEPARATOR;
+    static final String DROPPED_METRIC_NAME = METRIC_NAME_PREFIX + "events" + METRIC_NAME_SEPARATOR + "dropped";
+    static final String SENT_METRIC_NAME = METRIC_NAME_PREFIX + "batches" + METRIC_NAME_SEPARATOR + "sent";
+    static final String FAILED_METRIC_NAME = METRIC_NAME_PREFIX + "batches" + METRIC_NAME_SEPARATOR + "failed";
+    static final String SPOOLED_METRIC_NAME = METRIC_NAME_PREFIX + "batches" + METRIC_NAME_SEPARATOR + "spooled";
+    static final String REPLAYED_METRIC_NAME = METRIC_NAME_PREFIX + "batches" + METRIC_NAME_SEPARATOR + "replayed";
+    static final String REJECTED_METRIC_NAME = METRIC_NAME_PREFIX + "batches" + METRIC_NAME_SEPARATOR + "rejected";
+    static final String ABANDONED_METRIC_NAME = METRIC_NAME_PREFIX + "batches" + METRIC_NAME_SEPARATOR + "abandoned";
+    static final String QUEUE_SIZE_METRIC_NAME = METRIC_NAME_PREFIX + "queue" + METRIC_NAME_SEPARATOR + "size";
+    static final String SPOOL_SIZE_METRIC_NAME = METRIC_NAME_PREFIX + "spool" + METRIC_NAME_SEPARATOR + "size";
+
+    private static final String QUEUE_SIZE_PROPERTY_KEY = "find.stats.queueSize";
+    private static final int QUEUE_SIZE_DEFAULT = 10000;
+    private static final String QUEUE_SIZE_PROPERTY = "${" + QUEUE_SIZE_PROPERTY_KEY + ':' + QUEUE_SIZE_DEFAULT + '}';
+    private static final String BATCH_SIZE_PROPERTY_KEY = "find.stats.batchSize";
+    private static final int BATCH_SIZE_DEFAULT = 500;
+    private static final String BATCH_SIZE_PROPERTY = "${" + BATCH_SIZE_PROPERTY_KEY + ':' + BATCH_SIZE_DEFAULT + '}';
+    private static final String MAX_IN_FLIGHT_PROPERTY_KEY = "find.stats.maxInFlight";
+    private static final int MAX_IN_FLIGHT_DEFAULT = 2;
+    private static final String MAX_IN_FLIGHT_PROPERTY = "${" + MAX_IN_FLIGHT_PROPERTY_KEY + ':' + MAX_IN_FLIGHT_DEFAULT + '}';
+    private static final String MAX_REPLAY_BATCHES_PROPERTY_KEY = "find.stats.spool.replayBatches";
+    private static final int MAX_REPLAY_BATCHES_DEFAULT = 10;
+    private static final String MAX_REPLAY_BATCHES_PROPERTY = "${" + MAX_REPLAY_BATCHES_PROPERTY_KEY + ':' + MAX_REPLAY_BATCHES_DEFAULT + '}';
+    private static final String OVERFLOW_POLICY_PROPERTY_KEY = "find.stats.overflowPolicy";
+    private static final String OVERFLOW_POLICY_DEFAULT = "DROP_NEWEST";
+    private static final String OVERFLOW_POLICY_PROPERTY = "${" + OVERFLOW_POLICY_PROPERTY_KEY + ':' + OVERFLOW_POLICY_DEFAULT + '}';
 
-    private final BlockingQueue<Event> queue = new LinkedBlockingQueue<>();
+    private static final long INITIAL_RETRY_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(5);
+    private static final long MAX_RETRY_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final int MAX_BACKOFF_DOUBLINGS = 16;
+    private static final int MAX_REJECTIONS = 3;
+
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("stats-flush-%d").setDaemon(true).build());
+    private final AtomicBoolean flushPending = new AtomicBoolean(false);
 
     private final AciService statsServerAciService;
     private final ProcessorFactory processorFactory;
-    private final XmlMapper xmlMapper;
+    private final StatsEventEncoder encoder;
     private final ConfigService<IdolFindConfig> configService;
+    private final CounterService counterService;
+    private final GaugeService gaugeService;
+    private final StatsEventSpool spool;
+    private final BlockingQueue<Event> queue;
+    private final int batchSize;
+    private final int maxReplayBatches;
+    private final Semaphore inFlight;
+    private final OverflowPolicy overflowPolicy;
+
+    private volatile int failures;
+    private volatile long retryAt;
 
+    private StatsEventSpool.SpooledBatch rejectedBatch;
+    private int rejections;
+
+    @SuppressWarnings("ConstructorWithTooManyParameters")
     @Autowired
     public IdolStatsService(
             final AciService statsServerAciService,
             final ProcessorFactory processorFactory,
-            final XmlMapper xmlMapper,
-            final ConfigService<IdolFindConfig> configService
+            final StatsEventEncoder encoder,
+            final ConfigService<IdolFindConfig> configService,
+            final CounterService counterService,
+            final GaugeService gaugeService,
+            final StatsEventSpool spool,
+            @Value(QUEUE_SIZE_PROPERTY) final int queueSize,
+            @Value(BATCH_SIZE_PROPERTY) final int batchSize,
+            @Value(MAX_IN_FLIGHT_PROPERTY) final int maxInFlight,
+            @Value(MAX_REPLAY_BATCHES_PROPERTY) final int maxReplayBatches,
+            @Value(OVERFLOW_POLICY_PROPERTY) final OverflowPolicy overflowPolicy
     ) {
         this.statsServerAciService = statsServerAciService;
         this.processorFactory = processorFactory;
-        this.xmlMapper = xmlMapper;
+        this.encoder = encoder;
         this.configService = configService;
+        this.counterService = counterService;
+        this.gaugeService = gaugeService;
+        this.spool = spool;
+        this.batchSize = Math.max(batchSize, 1);
+        this.maxReplayBatches = maxReplayBatches;
+        this.overflowPolicy = overflowPolicy;
+
+        queue = new ArrayBlockingQueue<>(Math.max(queueSize, 1));
+        inFlight = new Semaphore(Math.max(maxInFlight, 1));
     }
 
     @Override
     public void recordEvent(final Event event) {
         // if not enabled, throw the event away
         if (isEnabled()) {
-            queue.add(event);
+            enqueue(event);
+
+            if (queue.size() >= batchSize && flushPending.compareAndSet(false, true)) {
+                try {
+                    flushExecutor.execute(() -> {
+                        flushPending.set(false);
+                        flushQueue();
+                    });
+                } catch (final RejectedExecutionException ignored) {
+                    // shutting down; the events will be lost with the rest of the queue
+                    flushPending.set(false);
+                }
+            }
         }
     }
 
     @Scheduled(fixedRate = 5000L)
     public void drainQueue() {
-        final List<Event> eventsList = new ArrayList<>();
+        gaugeService.submit(QUEUE_SIZE_METRIC_NAME, queue.size());
+        gaugeService.submit(SPOOL_SIZE_METRIC_NAME, spool.getSize());
 
-        queue.drainTo(eventsList);
+        // it's still useful to drain the queue if stats are disabled while the app is running
+        // spooled events are kept until stats are enabled again
+        if (!isEnabled()) {
+            queue.clear();
+            return;
+        }
 
-        // if no events, no work to do
-        // if not enabled, throw the events away
-        // (it's still useful to drain the queue if stats are disabled while the app is running)
-        if (isEnabled() && !eventsList.isEmpty()) {
-            final Events events = new Events(eventsList);
+        // StatsServer recently failed, so move events out of the heap until it is due a retry
+        if (System.currentTimeMillis() < retryAt) {
+            spoolQueue();
+            return;
+        }
 
+        // spooled batches are only replayed here, so that replay is limited per period rather than growing with traffic
+        // if StatsServer is busy, leave the events queued; the queue bound protects the heap
+        if (inFlight.tryAcquire()) {
             try {
-                final String xml = xmlMapper.writeValueAsString(events);
+                if (!replaySpool()) {
+                    spoolQueue();
+                    return;
+                }
+            } finally {
+                inFlight.release();
+            }
+        }
 
-                final AciParameters parameters = new AciParameters(StatsServerActions.Event.name());
-                parameters.put(EventParams.Data.name(), xml);
+        sendQueue();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flushExecutor.shutdownNow();
+
+        // events still in the heap would be lost on shutdown, so keep them for the next start
+        spoolQueue();
+    }
+
+    /**
+     * Sends queued events early, once a batch's worth is waiting
+     */
+    private void flushQueue() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        if (System.currentTimeMillis() < retryAt) {
+            spoolQueue();
+        } else {
+            sendQueue();
+        }
+    }
+
+    private void sendQueue() {
+        while (inFlight.tryAcquire()) {
+            try {
+                final String data = nextBatch();
+
+                if (data == null) {
+                    return;
+                }
+
+                final SendResult result = send(data);
+
+                if (result == SendResult.REJECTED) {
+                    // retried from the spool a limited number of times, without holding up the rest of the queue
+                    spool(data);
+                } else if (result == SendResult.FAILED) {
+                    // stop after a failure rather than trying every remaining batch
+                    spool(data);
+                    spoolQueue();
+                    return;
+                }
+            } finally {
+                inFlight.release();
+            }
+        }
+    }
+
+    private void enqueue(final Event event) {
+        if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+            while (!queue.offer(event)) {
+                if (queue.poll() != null) {
+                    counterService.increment(DROPPED_METRIC_NAME);
+                }
+            }
+        } else if (!queue.offer(event)) {
+            counterService.increment(DROPPED_METRIC_NAME);
+        }
+    }
 
-                statsServerAciService.executeAction(parameters, processorFactory.getVoidProcessor());
-            } catch (final JsonProcessingException e) {
+    /**
+     * @return the data for the next batch of queued events, or null if the queue is empty
+     */
+    private String nextBatch() {
+        while (true) {
+            try {
+                return encoder.encode(queue, batchSize);
+            } catch (final IOException e) {
                 // includes XML errors which should only occur during development
                 // throwing won't result in the exception going anywhere useful anyway
                 log.error("Error constructing XML: ", e);
@@ -86,7 +271,123 @@ class IdolStatsService implements StatsService {
         }
     }
 
+    /**
+     * Sends up to the replay limit of spooled batches, oldest first
+     *
+     * @return false if a batch could not be sent because StatsServer is unavailable
+     */
+    private synchronized boolean replaySpool() {
+        try {
+            for (int i = 0; i < maxReplayBatches; i++) {
+                final StatsEventSpool.SpooledBatch batch = spool.peek();
+
+                if (batch == null) {
+                    return true;
+                }
+
+                final SendResult result = send(batch.getData());
+
+                if (result == SendResult.FAILED) {
+                    return false;
+                } else if (result == SendResult.REJECTED && !isRejectedTooOften(batch)) {
+                    // leave it at the head of the spool until the next scheduled flush
+                    return true;
+                }
+
+                spool.acknowledge(batch);
+                counterService.increment(result == SendResult.SENT ? REPLAYED_METRIC_NAME : REJECTED_METRIC_NAME);
+            }
+        } catch (final IOException e) {
+            log.error("Error reading stats spool", e);
+        }
+
+        return true;
+    }
+
+    /**
+     * @return true if the spooled batch has been rejected often enough that it should be dropped
+     */
+    private boolean isRejectedTooOften(final StatsEventSpool.SpooledBatch batch) {
+        if (batch.equals(rejectedBatch)) {
+            rejections++;
+        } else {
+            rejectedBatch = batch;
+            rejections = 1;
+        }
+
+        if (rejections < MAX_REJECTIONS) {
+            return false;
+        }
+
+        log.error("Dropping spooled stats events which StatsServer has rejected {} times", rejections);
+        rejectedBatch = null;
+        return true;
+    }
+
+    private void spoolQueue() {
+        String data;
+
+        while ((data = nextBatch()) != null) {
+            spool(data);
+        }
+    }
+
+    private void spool(final String data) {
+        try {
+            spool.append(data);
+            counterService.increment(SPOOLED_METRIC_NAME);
+        } catch (final IOException e) {
+            log.error("Error writing to stats spool; events have been lost", e);
+            counterService.increment(ABANDONED_METRIC_NAME);
+        }
+    }
+
+    /**
+     * @return whether the batch was sent; if StatsServer could not be reached, sending backs off exponentially
+     */
+    private SendResult send(final String data) {
+        try {
+            final AciParameters parameters = new AciParameters(StatsServerActions.Event.name());
+            parameters.put(EventParams.Data.name(), data);
+
+            statsServerAciService.executeAction(parameters, processorFactory.getVoidProcessor());
+            counterService.increment(SENT_METRIC_NAME);
+            failures = 0;
+            return SendResult.SENT;
+        } catch (final AciErrorException e) {
+            // StatsServer replied, so it is available; the problem is with this batch
+            counterService.increment(FAILED_METRIC_NAME);
+            failures = 0;
+            log.warn("StatsServer rejected stats events", e);
+            return SendResult.REJECTED;
+        } catch (final RuntimeException e) {
+            counterService.increment(FAILED_METRIC_NAME);
+            failures++;
+
+            final long delay = Math.min(INITIAL_RETRY_DELAY_MILLIS << Math.min(failures - 1, MAX_BACKOFF_DOUBLINGS), MAX_RETRY_DELAY_MILLIS);
+            retryAt = System.currentTimeMillis() + delay;
+            log.warn("Failed to send stats events; spooling them and retrying in {}ms", delay, e);
+            return SendResult.FAILED;
+        }
+    }
+
     private boolean isEnabled() {
         return BooleanUtils.isTrue(configService.getConfig().getStatsServer().getEnabled());
     }
+
+    private enum SendResult {
+        SENT,
+        // StatsServer replied with an error
+        REJECTED,
+        // StatsServer could not be reached
+        FAILED
+    }
+
+    /**
+     * What to do with a new event when the queue is full
+     */
+    enum OverflowPolicy {
+        DROP_NEWEST,
+        DROP_OLDEST
+    }
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.idol.stats;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.fasterxml.jackson.dataformat.xml.ser.ToXmlGenerator;
+import com.hp.autonomy.frontend.find.core.stats.Event;
+import net.sf.ehcache.config.MemoryUnit;
+import org.apache.commons.io.output.StringBuilderWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.xml.namespace.QName;
+import java.io.IOException;
+import java.util.Queue;
+
+/**
+ * Writes queued events to StatsServer's XML format one at a time, rather than collecting them into an {@link Events}
+ * and serializing that in one go. Each batch is cut off once it reaches the maximum size, so a burst of events is
+ * sent as several moderately sized requests instead of one very large one.
+ */
+@Component
+class StatsEventEncoder {
+    private static final String MAX_BATCH_SIZE_PROPERTY_KEY = "find.stats.maxBatchSize";
+    private static final String MAX_BATCH_SIZE_DEFAULT = "1M";
+    private static final String MAX_BATCH_SIZE_PROPERTY = "${" + MAX_BATCH_SIZE_PROPERTY_KEY + ':' + MAX_BATCH_SIZE_DEFAULT + '}';
+
+    // Must match the names in Events
+    private static final QName EVENTS_ELEMENT = new QName("events");
+    private static final String EVENT_ELEMENT = "find-event";
+
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+
+    private final XmlMapper xmlMapper;
+    private final ObjectWriter eventWriter;
+    private final int maxBatchSize;
+
+    @Autowired
+    StatsEventEncoder(final XmlMapper xmlMapper, @Value(MAX_BATCH_SIZE_PROPERTY) final String maxBatchSize) {
+        this.xmlMapper = xmlMapper;
+        this.maxBatchSize = (int) Math.min(MemoryUnit.parseSizeInBytes(maxBatchSize), Integer.MAX_VALUE);
+
+        eventWriter = xmlMapper.writerFor(Event.class);
+    }
+
+    /**
+     * Removes events from the queue and encodes them, until the batch holds the maximum number of events, reaches the
+     * maximum size (in characters), or the queue is empty
+     *
+     * @return the XML for the batch, or null if the queue was empty
+     */
+    String encode(final Queue<? extends Event> events, final int maxEvents) throws IOException {
+        Event event = events.poll();
+
+        if (event == null) {
+            return null;
+        }
+
+        final StringBuilderWriter writer = new StringBuilderWriter(Math.min(INITIAL_BUFFER_SIZE, maxBatchSize));
+
+        try (final ToXmlGenerator generator = (ToXmlGenerator) xmlMapper.getFactory().createGenerator(writer)) {
+            generator.initGenerator();
+            generator.setNextName(EVENTS_ELEMENT);
+            generator.writeStartObject();
+
+            int count = 0;
+
+            do {
+                generator.writeFieldName(EVENT_ELEMENT);
+                eventWriter.writeValue(generator, event);
+                count++;
+
+                // the generator buffers internally, so flush before checking the size of the batch
+                generator.flush();
+            } while (count < maxEvents && writer.getBuilder().length() < maxBatchSize && (event = events.poll()) != null);
+
+            generator.writeEndObject();
+        }
+
+        return writer.toString();
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.idol.stats;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.ehcache.config.MemoryUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Durable first-in first-out store for batches of stats events which could not be sent to StatsServer.
+ * <p>
+ * Batches are appended to memory-mapped segment files in the spool directory, each record being its length followed by
+ * the batch's XML. The read position is kept in a separate mapped file, so that a restarted application carries on
+ * where it left off. Segments are deleted once every record in them has been acknowledged, and the oldest segments
+ * are dropped if the spool outgrows its maximum size.
+ * <p>
+ * Nothing is created or mapped until the spool is first used, so an application with stats disabled never touches the
+ * spool directory. A record with a torn or corrupt length ends its segment, and the rest of that segment is skipped.
+ */
+@Slf4j
+@Component
+class StatsEventSpool {
+    private static final String DIRECTORY_PROPERTY_KEY = "find.stats.spool.directory";
+    private static final String DIRECTORY_DEFAULT = "${hp.find.home}/data/stats-spool";
+    private static final String DIRECTORY_PROPERTY = "${" + DIRECTORY_PROPERTY_KEY + ':' + DIRECTORY_DEFAULT + '}';
+    private static final String SEGMENT_SIZE_PROPERTY_KEY = "find.stats.spool.segmentSize";
+    private static final String SEGMENT_SIZE_DEFAULT = "16M";
+    private static final String SEGMENT_SIZE_PROPERTY = "${" + SEGMENT_SIZE_PROPERTY_KEY + ':' + SEGMENT_SIZE_DEFAULT + '}';
+    private static final String MAX_SIZE_PROPERTY_KEY = "find.stats.spool.maxSize";
+    private static final String MAX_SIZE_DEFAULT = "1G";
+    private static final String MAX_SIZE_PROPERTY = "${" + MAX_SIZE_PROPERTY_KEY + ':' + MAX_SIZE_DEFAULT + '}';
+
+    private static final String SEGMENT_FILE_PREFIX = "segment-";
+    private static final String SEGMENT_FILE_SUFFIX = ".spool";
+    private static final String POSITION_FILE_NAME = "position";
+    private static final int LENGTH_BYTES = Integer.BYTES;
+    private static final int POSITION_BYTES = Long.BYTES + Integer.BYTES;
+    private static final int CORRUPT_LENGTH = -1;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long maxSize;
+    private final NavigableMap<Long, Long> segmentSizes = new TreeMap<>();
+
+    private boolean open;
+    private MappedByteBuffer positionBuffer;
+
+    private long writeSegment;
+    private MappedByteBuffer writeBuffer;
+    private int writeOffset;
+
+    private long readSegment;
+    private MappedByteBuffer readBuffer;
+    private int readOffset;
+
+    @Autowired
+    StatsEventSpool(@Value(DIRECTORY_PROPERTY) final String directory,
+                    @Value(SEGMENT_SIZE_PROPERTY) final String segmentSize,
+                    @Value(MAX_SIZE_PROPERTY) final String maxSize) {
+        this.directory = Paths.get(directory);
+        this.segmentSize = (int) Math.min(MemoryUnit.parseSizeInBytes(segmentSize), Integer.MAX_VALUE);
+        this.maxSize = MemoryUnit.parseSizeInBytes(maxSize);
+    }
+
+    /**
+     * Adds a batch to the end of the spool, dropping the oldest batches if the spool is full
+     */
+    synchronized void append(final String data) throws IOException {
+        open();
+
+        final byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        final int recordLength = LENGTH_BYTES + bytes.length;
+
+        // Leave room for the zero length which marks the end of the segment
+        if (writeOffset + recordLength + LENGTH_BYTES > writeBuffer.capacity()) {
+            createSegment(writeSegment + 1, Math.max(segmentSize, recordLength + LENGTH_BYTES));
+        }
+
+        // Write the length last, so that a partially written record is never read
+        writeBuffer.position(writeOffset + LENGTH_BYTES);
+        writeBuffer.put(bytes);
+        writeBuffer.putInt(writeOffset, bytes.length);
+        writeBuffer.force();
+        writeOffset += recordLength;
+
+        while (getSize() > maxSize && segmentSizes.size() > 1) {
+            dropOldestSegment();
+        }
+    }
+
+    /**
+     * @return the oldest unacknowledged batch, or null if the spool is empty
+     */
+    synchronized SpooledBatch peek() throws IOException {
+        open();
+        advancePastFinishedSegments();
+        int length = recordLengthAt(readBuffer, readOffset);
+
+        if (length == CORRUPT_LENGTH) {
+            // Only the segment being written to can still be current; move writing on so that it can be skipped too
+            createSegment(writeSegment + 1, segmentSize);
+            advancePastFinishedSegments();
+            length = recordLengthAt(readBuffer, readOffset);
+        }
+
+        if (length <= 0) {
+            return null;
+        }
+
+        final byte[] bytes = new byte[length];
+        final ByteBuffer buffer = readBuffer.duplicate();
+        buffer.position(readOffset + LENGTH_BYTES);
+        buffer.get(bytes);
+        return new SpooledBatch(readSegment, readOffset, new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Removes a batch returned by {@link #peek()}, once it has been delivered. Does nothing if the batch is no longer
+     * the oldest, which happens if its segment was dropped to make room after it was read.
+     */
+    synchronized void acknowledge(final SpooledBatch batch) throws IOException {
+        open();
+
+        if (batch.getSegment() != readSegment || batch.getOffset() != readOffset) {
+            return;
+        }
+
+        final int length = recordLengthAt(readBuffer, readOffset);
+
+        if (length > 0) {
+            readOffset += LENGTH_BYTES + length;
+            savePosition();
+            advancePastFinishedSegments();
+        }
+    }
+
+    synchronized boolean isEmpty() throws IOException {
+        open();
+        return readSegment == writeSegment && readOffset >= writeOffset;
+    }
+
+    /**
+     * @return the size of the spool's segment files in bytes, or 0 if the spool has not been used yet
+     */
+    synchronized long getSize() {
+        return segmentSizes.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    private void open() throws IOException {
+        if (open) {
+            return;
+        }
+
+        Files.createDirectories(directory);
+
+        try (final DirectoryStream<Path> segmentFiles = Files.newDirectoryStream(directory, SEGMENT_FILE_PREFIX + '*' + SEGMENT_FILE_SUFFIX)) {
+            for (final Path segmentFile : segmentFiles) {
+                segmentSizes.put(parseSegmentNumber(segmentFile), Files.size(segmentFile));
+            }
+        }
+
+        positionBuffer = map(directory.resolve(POSITION_FILE_NAME), POSITION_BYTES);
+
+        if (segmentSizes.isEmpty()) {
+            createSegment(0L, segmentSize);
+        } else {
+            writeSegment = segmentSizes.lastKey();
+            writeBuffer = map(segmentPath(writeSegment), segmentSizes.get(writeSegment));
+            writeOffset = findEnd(writeBuffer);
+        }
+
+        final long savedSegment = positionBuffer.getLong(0);
+        final int savedOffset = positionBuffer.getInt(Long.BYTES);
+
+        if (segmentSizes.containsKey(savedSegment) && savedOffset >= 0 && savedOffset <= segmentSizes.get(savedSegment)) {
+            openReadSegment(savedSegment, savedOffset);
+        } else {
+            openReadSegment(segmentSizes.firstKey(), 0);
+        }
+
+        open = true;
+    }
+
+    private void advancePastFinishedSegments() throws IOException {
+        int length;
+
+        while (readSegment != writeSegment && (length = recordLengthAt(readBuffer, readOffset)) <= 0) {
+            if (length == CORRUPT_LENGTH) {
+                log.warn("Skipping corrupt stats spool records from offset {} of {}", readOffset, segmentPath(readSegment));
+            }
+
+            final long finishedSegment = readSegment;
+            openReadSegment(segmentSizes.higherKey(finishedSegment), 0);
+            deleteSegment(finishedSegment);
+        }
+    }
+
+    private void dropOldestSegment() throws IOException {
+        final Map.Entry<Long, Long> oldest = segmentSizes.firstEntry();
+        log.warn("Stats spool is over {} bytes; dropping {}", maxSize, segmentPath(oldest.getKey()));
+
+        if (oldest.getKey() == readSegment) {
+            openReadSegment(segmentSizes.higherKey(readSegment), 0);
+        }
+
+        deleteSegment(oldest.getKey());
+    }
+
+    private void createSegment(final long segment, final int size) throws IOException {
+        if (writeBuffer != null) {
+            writeBuffer.force();
+        }
+
+        writeBuffer = map(segmentPath(segment), size);
+        writeSegment = segment;
+        writeOffset = 0;
+        segmentSizes.put(segment, (long) size);
+    }
+
+    private void openReadSegment(final long segment, final int offset) throws IOException {
+        readBuffer = segment == writeSegment ? writeBuffer : map(segmentPath(segment), segmentSizes.get(segment));
+        readSegment = segment;
+        readOffset = offset;
+        savePosition();
+    }
+
+    private void deleteSegment(final long segment) throws IOException {
+        segmentSizes.remove(segment);
+
+        try {
+            Files.deleteIfExists(segmentPath(segment));
+        } catch (final IOException e) {
+            // Mapped files cannot be deleted on some platforms until the mapping is garbage collected
+            log.warn("Could not delete stats spool segment {}", segmentPath(segment), e);
+        }
+    }
+
+    private void savePosition() {
+        positionBuffer.putLong(0, readSegment);
+        positionBuffer.putInt(Long.BYTES, readOffset);
+        positionBuffer.force();
+    }
+
+    private Path segmentPath(final long segment) {
+        return directory.resolve(String.format("%s%019d%s", SEGMENT_FILE_PREFIX, segment, SEGMENT_FILE_SUFFIX));
+    }
+
+    private static long parseSegmentNumber(final Path segmentFile) {
+        final String fileName = segmentFile.getFileName().toString();
+        return Long.parseLong(fileName.substring(SEGMENT_FILE_PREFIX.length(), fileName.length() - SEGMENT_FILE_SUFFIX.length()));
+    }
+
+    /**
+     * @return the length of the record at the offset, 0 at the end of the segment, or {@link #CORRUPT_LENGTH} if the
+     * stored length could not be that of a record in the segment
+     */
+    private static int recordLengthAt(final MappedByteBuffer buffer, final int offset) {
+        if (offset + LENGTH_BYTES > buffer.capacity()) {
+            return 0;
+        }
+
+        final int length = buffer.getInt(offset);
+        return length < 0 || length > buffer.capacity() - offset - LENGTH_BYTES ? CORRUPT_LENGTH : length;
+    }
+
+    private static int findEnd(final MappedByteBuffer buffer) {
+        int offset = 0;
+        int length;
+
+        while ((length = recordLengthAt(buffer, offset)) > 0) {
+            offset += LENGTH_BYTES + length;
+        }
+
+        return offset;
+    }
+
+    private static MappedByteBuffer map(final Path path, final long size) throws IOException {
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * A spooled batch and where it is in the spool
+     */
+    @Data
+    static class SpooledBatch {
+        private final long segment;
+        private final int offset;
+        private final String data;
+    }
+}
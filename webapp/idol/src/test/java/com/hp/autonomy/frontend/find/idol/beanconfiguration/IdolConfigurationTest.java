@@ -18,6 +18,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.json.AutoConfigureJsonTesters;
 import org.springframework.boot.test.autoconfigure.json.JsonTest;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.interceptor.CacheInterceptor;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.io.File;
@@ -45,8 +46,17 @@ public class IdolConfigurationTest {
     @Autowired
     private IdolConfiguration idolConfiguration;
 
+    @SuppressWarnings("SpringJavaAutowiredMembersInspection")
+    @Autowired
+    private CacheInterceptor cacheInterceptor;
+
     @Test
     public void wiring() {
         assertNotNull(idolConfiguration);
     }
+
+    @Test
+    public void cachingEnabled() {
+        assertNotNull(cacheInterceptor);
+    }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.idol.configuration;
+
+import com.google.common.collect.ImmutableMap;
+import com.hp.autonomy.frontend.configuration.ConfigException;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CacheConfigTest {
+    @Test
+    public void merge() {
+        final CacheConfig config = new CacheConfig(Collections.singletonMap("documents", "64M"));
+        final CacheConfig defaults = new CacheConfig(ImmutableMap.of("documents", "20%", "parametric-values", "15%"));
+
+        assertThat(config.merge(defaults).getMaxHeap(), is(ImmutableMap.of("documents", "64M", "parametric-values", "15%")));
+    }
+
+    @Test
+    public void mergeNoDefaults() {
+        final CacheConfig config = new CacheConfig(Collections.singletonMap("documents", "64M"));
+        assertThat(config.merge(null), is(config));
+    }
+
+    @Test
+    public void basicValidate() throws ConfigException {
+        new CacheConfig(ImmutableMap.of("documents", "64M", "parametric-values", "15%")).basicValidate("cache");
+    }
+
+    @Test(expected = ConfigException.class)
+    public void basicValidateBadPercentage() throws ConfigException {
+        new CacheConfig(Collections.singletonMap("documents", "150%")).basicValidate("cache");
+    }
+
+    @Test(expected = ConfigException.class)
+    public void basicValidatePercentagesOver100() throws ConfigException {
+        new CacheConfig(ImmutableMap.of("documents", "60%", "parametric-values", "30%", "databases", "20%")).basicValidate("cache");
+    }
+
+    @Test
+    public void basicValidatePercentagesUpTo100() throws ConfigException {
+        new CacheConfig(ImmutableMap.of("documents", "70%", "parametric-values", "15%", "databases", "64M")).basicValidate("cache");
+    }
+
+    @Test(expected = ConfigException.class)
+    public void basicValidatePercentagesOver100WithDefaults() throws ConfigException {
+        // the documents and parametric values caches keep their default budgets of 50% between them
+        new CacheConfig(Collections.singletonMap("related-concepts", "60%")).basicValidate("cache");
+    }
+
+    @Test
+    public void validateHeapPool() throws ConfigException {
+        new CacheConfig(Collections.singletonMap("databases", "50M")).validateHeapPool("cache", 100L * 1024L * 1024L);
+    }
+
+    @Test(expected = ConfigException.class)
+    public void validateHeapPoolSizesOverPool() throws ConfigException {
+        new CacheConfig(Collections.singletonMap("databases", "60M")).validateHeapPool("cache", 100L * 1024L * 1024L);
+    }
+
+    @Test(expected = ConfigException.class)
+    public void basicValidateBadSize() throws ConfigException {
+        new CacheConfig(Collections.singletonMap("documents", "lots")).basicValidate("cache");
+    }
+}
@@ -5,12 +5,64 @@
 
 package com.hp.autonomy.frontend.find.idol.configuration;
 
+import com.hp.autonomy.frontend.configuration.ConfigException;
+import com.hp.autonomy.frontend.configuration.ConfigService;
 import com.hp.autonomy.frontend.find.core.configuration.AbstractAutoCreatingEhCacheCacheManagerTest;
+import com.hp.autonomy.frontend.find.core.configuration.OffHeapStore;
+import com.hp.autonomy.frontend.find.core.web.FindCacheNames;
+import net.sf.ehcache.Cache;
 import net.sf.ehcache.config.CacheConfiguration;
+import net.sf.ehcache.config.Configuration;
+import net.sf.ehcache.config.MemoryUnit;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class IdolAutoCreatingEhCacheCacheManagerTest extends AbstractAutoCreatingEhCacheCacheManagerTest<IdolAutoCreatingEhCacheCacheManager> {
+    @Mock
+    private ConfigService<IdolFindConfig> configService;
+
     @Override
     public void setUp() {
-        autoCreatingEhCacheCacheManager = new IdolAutoCreatingEhCacheCacheManager(cacheManager, new CacheConfiguration());
+        autoCreatingEhCacheCacheManager = new IdolAutoCreatingEhCacheCacheManager(cacheManager, new CacheConfiguration(), counterService, new OffHeapStore(0), configService);
+    }
+
+    @Test
+    public void getMissingCacheWithDefaultHeapBudget() {
+        assertThat(getAddedCacheConfiguration(FindCacheNames.PARAMETRIC_VALUES).getMaxBytesLocalHeapPercentage(), is(15));
+    }
+
+    @Test
+    public void getMissingCacheWithConfiguredHeapBudget() {
+        when(configService.getConfig()).thenReturn(IdolFindConfig.builder()
+                .cache(new CacheConfig(Collections.singletonMap(FindCacheNames.PARAMETRIC_VALUES, "64M")))
+                .build());
+
+        assertThat(getAddedCacheConfiguration(FindCacheNames.PARAMETRIC_VALUES).getMaxBytesLocalHeap(), is(64L * 1024L * 1024L));
+    }
+
+    @Test(expected = ConfigException.class)
+    public void validateHeapBudgetsAgainstPool() throws ConfigException {
+        when(cacheManager.getConfiguration()).thenReturn(new Configuration().maxBytesLocalHeap(100, MemoryUnit.MEGABYTES));
+        when(configService.getConfig()).thenReturn(IdolFindConfig.builder()
+                .cache(new CacheConfig(Collections.singletonMap(FindCacheNames.SIMILAR_DOCUMENTS, "60M")))
+                .build());
+
+        autoCreatingEhCacheCacheManager.validateHeapBudgets();
+    }
+
+    private CacheConfiguration getAddedCacheConfiguration(final String name) {
+        autoCreatingEhCacheCacheManager.getMissingCache(name);
+
+        final ArgumentCaptor<Cache> captor = ArgumentCaptor.forClass(Cache.class);
+        verify(cacheManager).addCache(captor.capture());
+        return captor.getValue().getCacheConfiguration();
     }
 }
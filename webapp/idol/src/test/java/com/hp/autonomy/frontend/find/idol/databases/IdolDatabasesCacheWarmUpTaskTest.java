@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.idol.databases;
+
+import com.autonomy.aci.client.services.AciErrorException;
+import com.hp.autonomy.frontend.find.core.databases.DatabasesController;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class IdolDatabasesCacheWarmUpTaskTest {
+    @Mock
+    private IdolDatabasesController databasesController;
+
+    private IdolDatabasesCacheWarmUpTask warmUpTask;
+
+    @Before
+    public void setUp() {
+        warmUpTask = new IdolDatabasesCacheWarmUpTask(databasesController);
+    }
+
+    @Test
+    public void getName() {
+        assertThat(warmUpTask.getName(), is(DatabasesController.GET_DATABASES_PATH));
+    }
+
+    @Test
+    public void warmUpGetsDatabases() throws Exception {
+        warmUpTask.warmUp();
+        verify(databasesController).getDatabases();
+    }
+
+    @Test(expected = AciErrorException.class)
+    public void warmUpPropagatesFailure() throws Exception {
+        when(databasesController.getDatabases()).thenThrow(new AciErrorException());
+        warmUpTask.warmUp();
+    }
+}
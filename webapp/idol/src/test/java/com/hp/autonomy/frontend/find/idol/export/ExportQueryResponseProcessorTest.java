@@ -7,8 +7,9 @@ package com.hp.autonomy.frontend.find.idol.export;
 
 import com.autonomy.aci.client.services.AciErrorException;
 import com.autonomy.aci.client.services.ProcessorException;
-import com.autonomy.aci.client.transport.AciResponseInputStream;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.hp.autonomy.frontend.find.core.export.ExportSession;
 import com.hp.autonomy.frontend.find.core.export.ExportStrategy;
 import com.hp.autonomy.frontend.find.core.export.MetadataNode;
 import com.hp.autonomy.searchcomponents.core.config.FieldInfo;
@@ -19,58 +20,74 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.anything;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.isEmptyString;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 
+@SuppressWarnings("unchecked")
 @RunWith(MockitoJUnitRunner.class)
 public class ExportQueryResponseProcessorTest {
     @Mock
     private ExportStrategy exportStrategy;
+    @Mock
+    private ExportSession exportSession;
 
-    private ByteArrayOutputStream outputStream;
     private List<String> fieldNames;
     private ExportQueryResponseProcessor processor;
 
     @Before
     public void setUp() {
-        outputStream = new ByteArrayOutputStream();
-        processor = new ExportQueryResponseProcessor(exportStrategy, outputStream, Collections.emptyList());
         fieldNames = Arrays.asList("Reference", "Database", "Summary", "Date", "categories");
         when(exportStrategy.getFieldNames(any(MetadataNode[].class), eq(Collections.emptyList()))).thenReturn(fieldNames);
-        when(exportStrategy.getConfiguredFieldsById()).thenReturn(ImmutableMap.of("CATEGORY", FieldInfo.<String>builder()
+        when(exportStrategy.getConfiguredFieldsByName()).thenReturn(ImmutableMap.of("category", FieldInfo.<String>builder()
                 .id("categories")
                 .name("CATEGORY")
                 .build()));
+        when(exportStrategy.combineValues(anyListOf(String.class))).thenAnswer(invocation -> String.join(", ", (List<String>) invocation.getArguments()[0]));
 
+        processor = new ExportQueryResponseProcessor(exportStrategy, exportSession, Collections.emptyList());
     }
 
     @Test
     public void export() throws IOException {
-        when(exportStrategy.writeHeader()).thenReturn(true);
-
         processor.process(new MockAciResponseInputStream(IdolExportServiceTest.class.getResourceAsStream("/com/hp/autonomy/frontend/find/idol/export/query-response.xml")));
-        verify(exportStrategy, times(7)).exportRecord(eq(outputStream), anyListOf(String.class));
+        verify(exportSession, times(6)).exportRecord(anyListOf(String.class));
     }
 
     @Test
-    public void exportEmptyResultSetWithHeader() throws IOException {
-        when(exportStrategy.writeHeader()).thenReturn(true);
+    public void exportValuesInFieldOrder() throws IOException {
+        final List<List<String>> records = new ArrayList<>();
+        doAnswer(invocation -> records.add(Lists.newArrayList((Iterable<String>) invocation.getArguments()[0])))
+                .when(exportSession).exportRecord(anyListOf(String.class));
 
-        processor.process(new MockAciResponseInputStream(IOUtils.toInputStream("<?xml version='1.0' encoding='UTF-8' ?>\n<autnresponse><response/></autnresponse>")));
-        verify(exportStrategy).exportRecord(outputStream, fieldNames);
+        processor.process(new MockAciResponseInputStream(IdolExportServiceTest.class.getResourceAsStream("/com/hp/autonomy/frontend/find/idol/export/query-response.xml")));
+
+        assertThat(records, hasSize(6));
+        assertThat(records.get(2), contains(
+                is("http://feeds.cbsnews.com/~r/CBSNewsMain/~3/K27NqxnuWwQ/"),
+                anything(),
+                anything(),
+                not(isEmptyString()),
+                anything()
+        ));
     }
 
     @Test
-    public void exportEmptyResultSetWithoutHeader() throws IOException {
+    public void exportEmptyResultSet() throws IOException {
         processor.process(new MockAciResponseInputStream(IOUtils.toInputStream("<?xml version='1.0' encoding='UTF-8' ?>\n<autnresponse><response/></autnresponse>")));
-        verify(exportStrategy, never()).exportRecord(eq(outputStream), anyListOf(String.class));
+        verify(exportSession, never()).exportRecord(anyListOf(String.class));
     }
 
     @Test(expected = AciErrorException.class)
@@ -82,35 +99,4 @@ public class ExportQueryResponseProcessorTest {
     public void unexpectedError() {
         processor.process(new MockAciResponseInputStream(IOUtils.toInputStream("")));
     }
-
-    private static class MockAciResponseInputStream extends AciResponseInputStream {
-        private MockAciResponseInputStream(final InputStream inputStream) {
-            super(inputStream);
-        }
-
-        @Override
-        public int getStatusCode() {
-            return 0;
-        }
-
-        @Override
-        public String getHeader(final String name) {
-            return null;
-        }
-
-        @Override
-        public String getContentEncoding() {
-            return null;
-        }
-
-        @Override
-        public long getContentLength() {
-            return 0;
-        }
-
-        @Override
-        public String getContentType() {
-            return "text/xml";
-        }
-    }
 }
@@ -35,7 +35,7 @@ public class IdolExportControllerTest extends ExportControllerTest<IdolQueryRequ
     private IdolQueryRestrictionsBuilder queryRestrictionsBuilder;
 
     @Override
-    protected ExportController<IdolQueryRequest, AciErrorException> constructController() throws IOException {
+    protected ExportController<IdolQueryRequest, AciErrorException> constructController(final int exportParallelism) throws IOException {
         when(requestMapper.parseQueryRequest(any())).thenReturn(queryRequest);
 
         when(queryRequest.toBuilder()).thenReturn(queryRequestBuilder);
@@ -49,7 +49,7 @@ public class IdolExportControllerTest extends ExportControllerTest<IdolQueryRequ
         when(queryRestrictionsBuilder.stateMatchId(anyString())).thenReturn(queryRestrictionsBuilder);
         when(queryRestrictionsBuilder.build()).thenReturn(queryRestrictions);
 
-        return new IdolExportController(requestMapper, controllerUtils, documentsService, exportService);
+        return new IdolExportController(requestMapper, controllerUtils, documentsService, exportService, exportJobService, exportParallelism);
     }
 
     @Override
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.idol.export;
+
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciParameter;
+import com.autonomy.aci.client.util.AciParameters;
+import com.hp.autonomy.frontend.find.core.export.ExportFormat;
+import com.hp.autonomy.frontend.find.core.export.ExportPagination;
+import com.hp.autonomy.frontend.find.core.export.ExportSession;
+import com.hp.autonomy.frontend.find.core.export.ExportStrategy;
+import com.hp.autonomy.frontend.find.core.export.MetadataNode;
+import com.hp.autonomy.searchcomponents.core.search.QueryRequest;
+import com.hp.autonomy.searchcomponents.idol.configuration.AciServiceRetriever;
+import com.hp.autonomy.searchcomponents.idol.search.HavenSearchAciParameterHandler;
+import com.hp.autonomy.searchcomponents.idol.search.IdolQueryRequest;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anySetOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Exports randomly sized result sets in randomly sized pages against a stub IDOL, checking that every result is
+ * exported exactly once and in order
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class IdolExportPaginationTest {
+    private static final String START_PARAM = "start";
+    private static final String MAX_RESULTS_PARAM = "maxresults";
+
+    @Mock
+    private ExportStrategy exportStrategy;
+    @Mock
+    private HavenSearchAciParameterHandler parameterHandler;
+    @Mock
+    private AciServiceRetriever aciServiceRetriever;
+    @Mock
+    private AciService aciService;
+
+    private IdolExportService idolExportService;
+    private int resultCount;
+
+    @Before
+    public void setUp() {
+        when(exportStrategy.getExportFormat()).thenReturn(ExportFormat.CSV);
+        when(exportStrategy.getFieldNames(any(MetadataNode[].class), eq(Collections.emptyList()))).thenReturn(Collections.singletonList(IdolMetadataNode.REFERENCE.getDisplayName()));
+        when(exportStrategy.combineValues(anyListOf(String.class))).thenAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            final List<String> values = (List<String>) invocation.getArguments()[0];
+            return values == null ? "" : String.join(",", values);
+        });
+        when(aciServiceRetriever.getAciService(any(QueryRequest.QueryType.class))).thenReturn(aciService);
+
+        doAnswer(invocation -> {
+            final AciParameters aciParameters = (AciParameters) invocation.getArguments()[0];
+            final IdolQueryRequest queryRequest = (IdolQueryRequest) invocation.getArguments()[1];
+            aciParameters.put(START_PARAM, String.valueOf(queryRequest.getStart()));
+            aciParameters.put(MAX_RESULTS_PARAM, String.valueOf(queryRequest.getMaxResults()));
+            return null;
+        }).when(parameterHandler).addSearchOutputParameters(any(), any());
+
+        // Stub IDOL: MaxResults is the absolute position of the last result to return
+        when(aciService.executeAction(anySetOf(AciParameter.class), any(Processor.class))).thenAnswer(invocation -> {
+            final AciParameters aciParameters = (AciParameters) invocation.getArguments()[0];
+            final Processor<?> processor = (Processor<?>) invocation.getArguments()[1];
+            final int start = Integer.parseInt(aciParameters.get(START_PARAM));
+            final int maxResults = Integer.parseInt(aciParameters.get(MAX_RESULTS_PARAM));
+
+            final StringBuilder response = new StringBuilder("<?xml version='1.0' encoding='UTF-8' ?>\n" +
+                    "<autnresponse xmlns:autn='http://schemas.autonomy.com/aci/'><action>QUERY</action><response>SUCCESS</response><responsedata>");
+            for(int position = start; position <= Math.min(maxResults, resultCount); position++) {
+                response.append("<autn:hit><autn:reference>").append(position).append("</autn:reference></autn:hit>");
+            }
+            response.append("</responsedata></autnresponse>");
+
+            return processor.process(new MockAciResponseInputStream(IOUtils.toInputStream(response.toString())));
+        });
+
+        idolExportService = new IdolExportService(parameterHandler, aciServiceRetriever, new ExportStrategy[]{exportStrategy});
+    }
+
+    @Test
+    public void randomisedPaginationExportsEveryResultOnce() {
+        final Random random = new Random(20170413L);
+
+        for(int run = 0; run < 30; run++) {
+            resultCount = random.nextInt(5000);
+            final int pageSize = 50 + random.nextInt(1500);
+
+            final RecordingExportSession exportSession = new RecordingExportSession();
+            for(final ExportPagination.ExportPage page : ExportPagination.getPages(resultCount, pageSize)) {
+                idolExportService.export(exportSession, mockPageRequest(page), ExportFormat.CSV, Collections.emptyList());
+            }
+
+            final String description = "resultCount=" + resultCount + ", pageSize=" + pageSize;
+            assertThat(description, exportSession.references.size(), is(resultCount));
+            assertThat(description, new HashSet<>(exportSession.references).size(), is(resultCount));
+            for(int i = 0; i < resultCount; i++) {
+                assertThat(description, exportSession.references.get(i), is(String.valueOf(i + 1)));
+            }
+        }
+    }
+
+    private IdolQueryRequest mockPageRequest(final ExportPagination.ExportPage page) {
+        final IdolQueryRequest queryRequest = mock(IdolQueryRequest.class);
+        when(queryRequest.getStart()).thenReturn(page.getStart());
+        when(queryRequest.getMaxResults()).thenReturn(page.getEnd());
+        when(queryRequest.getQueryType()).thenReturn(QueryRequest.QueryType.MODIFIED);
+        return queryRequest;
+    }
+
+    private static class RecordingExportSession implements ExportSession {
+        private final List<String> references = new ArrayList<>();
+
+        @Override
+        public void exportRecord(final Iterable<String> values) {
+            references.add(values.iterator().next());
+        }
+
+        @Override
+        public void close() {}
+    }
+}
@@ -8,8 +8,13 @@ package com.hp.autonomy.frontend.find.idol.export;
 import com.autonomy.aci.client.services.AciService;
 import com.autonomy.aci.client.services.Processor;
 import com.autonomy.aci.client.transport.AciParameter;
+import com.autonomy.aci.client.util.AciParameters;
+import com.google.common.collect.ImmutableMap;
 import com.hp.autonomy.frontend.find.core.export.ExportFormat;
+import com.hp.autonomy.frontend.find.core.export.ExportSession;
 import com.hp.autonomy.frontend.find.core.export.ExportStrategy;
+import com.hp.autonomy.frontend.find.core.export.MetadataNode;
+import com.hp.autonomy.searchcomponents.core.config.FieldInfo;
 import com.hp.autonomy.searchcomponents.core.search.QueryRequest;
 import com.hp.autonomy.searchcomponents.idol.configuration.AciServiceRetriever;
 import com.hp.autonomy.searchcomponents.idol.search.HavenSearchAciParameterHandler;
@@ -17,14 +22,22 @@ import com.hp.autonomy.searchcomponents.idol.search.IdolQueryRequest;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anySetOf;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -39,6 +52,8 @@ public class IdolExportServiceTest {
     @Mock
     private AciService aciService;
     @Mock
+    private ExportSession exportSession;
+    @Mock
     private OutputStream outputStream;
     @Mock
     private IdolQueryRequest queryRequest;
@@ -53,9 +68,58 @@ public class IdolExportServiceTest {
         idolExportService = new IdolExportService(parameterHandler, aciServiceRetriever, new ExportStrategy[]{exportStrategy});
     }
 
+    @Test
+    public void openSession() throws IOException {
+        final List<String> fieldNames = Collections.singletonList("Reference");
+        when(exportStrategy.getFieldNames(any(MetadataNode[].class), eq(Collections.emptyList()))).thenReturn(fieldNames);
+        when(exportStrategy.openSession(outputStream, fieldNames, Collections.emptyList())).thenReturn(exportSession);
+
+        assertThat(idolExportService.openSession(outputStream, ExportFormat.CSV, Collections.emptyList()), is(exportSession));
+    }
+
     @Test
     public void export() {
-        idolExportService.export(outputStream, queryRequest, ExportFormat.CSV, Collections.emptyList());
+        idolExportService.export(exportSession, queryRequest, ExportFormat.CSV, Collections.emptyList());
         verify(aciService).executeAction(anySetOf(AciParameter.class), any(Processor.class));
     }
+
+    @Test
+    public void exportPrintsOnlyMetadataWhenNoConfiguredFieldsAreSelected() {
+        when(exportStrategy.getConfiguredFieldsById()).thenReturn(ImmutableMap.of("categories", FieldInfo.<String>builder()
+                .id("categories")
+                .name("CATEGORY")
+                .build()));
+
+        final AciParameters aciParameters = exportAndCaptureParameters(Arrays.asList("Reference", "Summary"));
+        assertThat(aciParameters.get("Print"), is("NoResults"));
+        assertThat(aciParameters.get("PrintFields"), is(nullValue()));
+        assertThat(aciParameters.get("Summary"), is(nullValue()));
+    }
+
+    @Test
+    public void exportPrintsSelectedConfiguredFields() {
+        when(exportStrategy.getConfiguredFieldsById()).thenReturn(ImmutableMap.of(
+                "categories", FieldInfo.<String>builder()
+                        .id("categories")
+                        .name("CATEGORY")
+                        .name("SUBCATEGORY")
+                        .build(),
+                "authors", FieldInfo.<String>builder()
+                        .id("authors")
+                        .name("AUTHOR")
+                        .build()));
+
+        final AciParameters aciParameters = exportAndCaptureParameters(Arrays.asList("Reference", "categories"));
+        assertThat(aciParameters.get("Print"), is("Fields"));
+        assertThat(aciParameters.get("PrintFields"), is("CATEGORY,SUBCATEGORY"));
+        assertThat(aciParameters.get("Summary"), is("Off"));
+    }
+
+    private AciParameters exportAndCaptureParameters(final List<String> selectedFieldIds) {
+        idolExportService.export(exportSession, queryRequest, ExportFormat.CSV, selectedFieldIds);
+
+        final ArgumentCaptor<AciParameters> captor = ArgumentCaptor.forClass(AciParameters.class);
+        verify(aciService).executeAction(captor.capture(), any(Processor.class));
+        return captor.getValue();
+    }
 }
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.idol.fields;
+
+import com.hp.autonomy.frontend.find.core.fields.FieldsController;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class IdolFieldsCacheWarmUpTaskTest {
+    @Mock
+    private IdolFieldsController fieldsController;
+
+    private IdolFieldsCacheWarmUpTask warmUpTask;
+
+    @Before
+    public void setUp() {
+        warmUpTask = new IdolFieldsCacheWarmUpTask(fieldsController);
+    }
+
+    @Test
+    public void getName() {
+        assertThat(warmUpTask.getName(), is(FieldsController.FIELDS_PATH));
+    }
+
+    @Test
+    public void warmUpGetsAllFieldLists() throws Exception {
+        warmUpTask.warmUp();
+
+        verify(fieldsController).getParametricFields();
+        verify(fieldsController).getParametricNumericFields();
+        verify(fieldsController).getParametricDateFields();
+    }
+}
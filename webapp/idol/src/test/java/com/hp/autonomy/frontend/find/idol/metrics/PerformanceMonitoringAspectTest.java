@@ -5,10 +5,13 @@ import com.autonomy.aci.client.transport.AciHttpException;
 import com.autonomy.aci.client.transport.AciParameter;
 import com.autonomy.aci.client.transport.AciServerDetails;
 import com.autonomy.aci.client.util.AciParameters;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.hp.autonomy.searchcomponents.idol.annotations.IdolService;
 import com.hp.autonomy.types.requests.idol.actions.params.ActionParams;
 import com.hp.autonomy.types.requests.idol.actions.query.QueryActions;
 import com.hp.autonomy.types.requests.idol.actions.query.params.QueryParams;
+import org.aspectj.lang.ProceedingJoinPoint;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,15 +26,20 @@ import org.springframework.context.annotation.EnableAspectJAutoProxy;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.io.IOException;
+import java.util.Map;
 import java.util.Set;
 
 import static com.hp.autonomy.frontend.find.core.metrics.MetricsConfiguration.*;
 import static com.hp.autonomy.frontend.find.idol.metrics.PerformanceMonitoringAspect.*;
 import static com.hp.autonomy.frontend.find.idol.metrics.PerformanceMonitoringAspectTest.UNIQUE_PROPERTY;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.anyDouble;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @SuppressWarnings("SpringJavaAutowiredMembersInspection")
 @RunWith(SpringRunner.class)
@@ -85,6 +93,57 @@ public class PerformanceMonitoringAspectTest {
         verify(gaugeService).submit(eq(expectedMetricName), anyDouble());
     }
 
+    @SuppressWarnings("ProhibitedExceptionDeclared")
+    @Test
+    public void histogramModeRecordsTimerPerAction() throws Throwable {
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final PerformanceMonitoringAspect aspect = new PerformanceMonitoringAspect(gaugeService, metricRegistry, metricType, PerformanceMonitoringAspect.IdolRequestMetrics.HISTOGRAM);
+        final ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        final AciServerDetails serverDetails = new AciServerDetails("localhost", 5678);
+
+        for (final String text : new String[]{"cats", "dogs", "bats"}) {
+            final Set<AciParameter> parameters = new AciParameters(QueryActions.Query.name());
+            parameters.add(new AciParameter(QueryParams.Text.name(), text));
+            aspect.monitorIdolRequestPerformance(joinPoint, serverDetails, parameters);
+        }
+
+        final String expectedMetricName = TIMER_METRIC_TYPE
+                + IDOL_REQUEST_METRIC_NAME_PREFIX
+                + "localhost" + METRIC_NAME_SEPARATOR
+                + 5678 + METRIC_NAME_SEPARATOR
+                + QueryActions.Query.name();
+        final Map<String, Timer> timers = metricRegistry.getTimers();
+        assertThat(timers.size(), is(1));
+        assertThat(timers, hasKey(expectedMetricName));
+        assertThat(timers.get(expectedMetricName).getCount(), is(3L));
+    }
+
+    @SuppressWarnings("ProhibitedExceptionDeclared")
+    @Test
+    public void histogramModeBoundsTimers() throws Throwable {
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final PerformanceMonitoringAspect aspect = new PerformanceMonitoringAspect(gaugeService, metricRegistry, metricType, PerformanceMonitoringAspect.IdolRequestMetrics.HISTOGRAM);
+        final ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.proceed()).thenThrow(new IllegalStateException("IDOL unavailable"));
+        final AciServerDetails serverDetails = new AciServerDetails("localhost", 5678);
+
+        for (int i = 0; i <= MAX_TIMERS; i++) {
+            try {
+                aspect.monitorIdolRequestPerformance(joinPoint, serverDetails, new AciParameters("Action" + i));
+            } catch (final IllegalStateException ignored) {
+                // failed requests are timed separately
+            }
+        }
+
+        assertThat(metricRegistry.getTimers().size(), is(MAX_TIMERS + 1));
+        assertThat(metricRegistry.getTimers(), hasKey(TIMER_METRIC_TYPE
+                + IDOL_REQUEST_METRIC_NAME_PREFIX
+                + "localhost" + METRIC_NAME_SEPARATOR
+                + 5678 + METRIC_NAME_SEPARATOR
+                + OTHER_ACTION
+                + FAILED_METRIC_NAME_SUFFIX));
+    }
+
     @IdolService
     static class TestService {
         void testMethod() {
@@ -100,6 +159,11 @@ public class PerformanceMonitoringAspectTest {
             return new TestService();
         }
 
+        @Bean
+        MetricRegistry metricRegistry() {
+            return new MetricRegistry();
+        }
+
         @Bean
         AciHttpClient aciHttpClient() {
             return mock(AciHttpClient.class);
@@ -6,6 +6,7 @@
 package com.hp.autonomy.frontend.find.idol.parametricfields;
 
 import com.autonomy.aci.client.services.AciErrorException;
+import com.hp.autonomy.frontend.find.core.configuration.CanonicalCacheKeyGenerator;
 import com.hp.autonomy.frontend.find.core.parametricfields.AbstractParametricValuesControllerTest;
 import com.hp.autonomy.searchcomponents.core.parametricvalues.ParametricValuesService;
 import com.hp.autonomy.searchcomponents.idol.beanconfiguration.HavenSearchIdolConfiguration;
@@ -47,7 +48,7 @@ public class IdolParametricValuesControllerTest extends AbstractParametricValues
 
     @Override
     protected IdolParametricValuesController newControllerInstance() {
-        return new IdolParametricValuesController(idolParametricValuesService, queryRestrictionsBuilderFactory, parametricRequestBuilderFactory);
+        return new IdolParametricValuesController(idolParametricValuesService, new IdolParametricValuesCache(idolParametricValuesService, new CanonicalCacheKeyGenerator(0)), queryRestrictionsBuilderFactory, parametricRequestBuilderFactory);
     }
 
     @Override
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.idol.search;
+
+import com.hp.autonomy.frontend.find.core.configuration.CanonicalCacheKeyGenerator;
+import com.hp.autonomy.frontend.find.core.configuration.RevalidatingCache;
+import com.hp.autonomy.frontend.find.core.web.FindCacheNames;
+import com.hp.autonomy.searchcomponents.idol.search.IdolDocumentsService;
+import com.hp.autonomy.searchcomponents.idol.search.IdolQueryRequest;
+import com.hp.autonomy.searchcomponents.idol.search.IdolSearchResult;
+import com.hp.autonomy.types.requests.Documents;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKeyGenerator;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Calls {@link FindIdolDocumentsService} through Spring's caching interceptor, as the application does
+ */
+public class FindIdolDocumentsServiceCachingTest {
+    private static final int CALLERS = 8;
+
+    private AnnotationConfigApplicationContext context;
+    private IdolDocumentsService backendDocumentsService;
+    private IdolDocumentsService findDocumentsService;
+
+    @Before
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext(CachingTestConfiguration.class, FindIdolDocumentsService.class);
+        backendDocumentsService = context.getBean(IdolDocumentsService.DOCUMENTS_SERVICE_BEAN_NAME, IdolDocumentsService.class);
+        findDocumentsService = context.getBean(IdolDocumentsService.class);
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test(timeout = 10000L)
+    public void concurrentMissesMakeOneBackendCall() throws Exception {
+        final IdolQueryRequest queryRequest = mock(IdolQueryRequest.class);
+        final Documents<IdolSearchResult> documents = mock(Documents.class);
+        final AtomicInteger backendCalls = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+
+        when(backendDocumentsService.queryTextIndex(queryRequest)).thenAnswer(invocation -> {
+            backendCalls.incrementAndGet();
+            release.await();
+            return documents;
+        });
+
+        final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+        try {
+            final List<Future<Documents<IdolSearchResult>>> results = new ArrayList<>();
+
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> findDocumentsService.queryTextIndex(queryRequest)));
+            }
+
+            // let the other callers miss while the first is still waiting on the backend
+            Thread.sleep(200L);
+            release.countDown();
+
+            for (final Future<Documents<IdolSearchResult>> result : results) {
+                assertThat(result.get(), is(documents));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(backendCalls.get(), is(1));
+    }
+
+    @Configuration
+    @EnableCaching
+    static class CachingTestConfiguration {
+        @Bean(name = IdolDocumentsService.DOCUMENTS_SERVICE_BEAN_NAME)
+        public IdolDocumentsService backendDocumentsService() {
+            return mock(IdolDocumentsService.class);
+        }
+
+        @Bean
+        public CanonicalCacheKeyGenerator canonicalCacheKeyGenerator() {
+            return new CanonicalCacheKeyGenerator(0);
+        }
+
+        // the request is a mock, so key on it directly rather than on its canonical form
+        @Bean(name = SecurityInfoCacheKeyGenerator.BEAN_NAME)
+        public KeyGenerator securityInfoCacheKeyGenerator() {
+            return new SimpleKeyGenerator();
+        }
+
+        @Bean
+        public CacheManager cacheManager() {
+            final SimpleCacheManager cacheManager = new SimpleCacheManager();
+            cacheManager.setCaches(Arrays.asList(revalidatingCache(FindCacheNames.DOCUMENTS), revalidatingCache(FindCacheNames.SIMILAR_DOCUMENTS)));
+            return cacheManager;
+        }
+
+        private Cache revalidatingCache(final String name) {
+            return new RevalidatingCache(new ConcurrentMapCache(name), TimeUnit.MINUTES.toMillis(1), TimeUnit.SECONDS.toMillis(10), Runnable::run);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.idol.search;
+
+import com.hp.autonomy.frontend.find.core.configuration.CanonicalCacheKeyGenerator;
+import com.hp.autonomy.searchcomponents.idol.search.IdolDocumentsService;
+import com.hp.autonomy.searchcomponents.idol.search.IdolGetContentRequest;
+import com.hp.autonomy.searchcomponents.idol.search.IdolQueryRequest;
+import com.hp.autonomy.searchcomponents.idol.search.IdolQueryRestrictions;
+import com.hp.autonomy.searchcomponents.idol.search.IdolSuggestRequest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FindIdolDocumentsServiceTest {
+    @Mock
+    private IdolDocumentsService documentsService;
+
+    @Mock
+    private IdolQueryRequest queryRequest;
+
+    @Mock
+    private IdolSuggestRequest suggestRequest;
+
+    @Mock
+    private IdolGetContentRequest getContentRequest;
+
+    @Mock
+    private IdolQueryRestrictions queryRestrictions;
+
+    private IdolDocumentsService findDocumentsService;
+
+    @Before
+    public void setUp() {
+        findDocumentsService = new FindIdolDocumentsService(documentsService, new CanonicalCacheKeyGenerator(0));
+    }
+
+    @Test
+    public void queryTextIndex() {
+        findDocumentsService.queryTextIndex(queryRequest);
+        verify(documentsService).queryTextIndex(queryRequest);
+    }
+
+    @Test
+    public void findSimilar() {
+        findDocumentsService.findSimilar(suggestRequest);
+        verify(documentsService).findSimilar(suggestRequest);
+    }
+
+    @Test
+    public void getDocumentContent() {
+        findDocumentsService.getDocumentContent(getContentRequest);
+        verify(documentsService).getDocumentContent(getContentRequest);
+    }
+
+    @Test
+    public void getStateToken() {
+        findDocumentsService.getStateToken(queryRestrictions, 5, false);
+        verify(documentsService).getStateToken(queryRestrictions, 5, false);
+    }
+
+    @Test
+    public void getStateTokenAndResultCount() {
+        findDocumentsService.getStateTokenAndResultCount(queryRestrictions, 5, false);
+        verify(documentsService).getStateTokenAndResultCount(queryRestrictions, 5, false);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.idol.search;
+
+import com.hp.autonomy.frontend.configuration.authentication.CommunityPrincipal;
+import com.hp.autonomy.frontend.find.core.configuration.CanonicalCacheKeyGenerator;
+import com.hpe.bigdata.frontend.spring.authentication.AuthenticationInformationRetriever;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.lang.reflect.Method;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SecurityInfoCacheKeyGeneratorTest {
+    @Mock
+    private AuthenticationInformationRetriever<?, CommunityPrincipal> authenticationInformationRetriever;
+
+    private SecurityInfoCacheKeyGenerator keyGenerator;
+    private Method method;
+
+    @Before
+    public void setUp() throws NoSuchMethodException {
+        keyGenerator = new SecurityInfoCacheKeyGenerator(authenticationInformationRetriever, new CanonicalCacheKeyGenerator(60));
+        method = Object.class.getMethod("toString");
+    }
+
+    @Test
+    public void sameSecurityInfoAndParametersGiveEqualKeys() {
+        when(authenticationInformationRetriever.getPrincipal()).thenReturn(new CommunityPrincipal(1L, "user", "security-info"));
+        assertThat(keyGenerator.generate(this, method, "request"), is(keyGenerator.generate(this, method, "request")));
+    }
+
+    @Test
+    public void differentSecurityInfoGivesDifferentKeys() {
+        when(authenticationInformationRetriever.getPrincipal()).thenReturn(new CommunityPrincipal(1L, "user", "security-info"), new CommunityPrincipal(2L, "other-user", "other-security-info"));
+        assertThat(keyGenerator.generate(this, method, "request"), is(not(keyGenerator.generate(this, method, "request"))));
+    }
+
+    @Test
+    public void differentParametersGiveDifferentKeys() {
+        when(authenticationInformationRetriever.getPrincipal()).thenReturn(new CommunityPrincipal(1L, "user", "security-info"));
+        assertThat(keyGenerator.generate(this, method, "request"), is(not(keyGenerator.generate(this, method, "other-request"))));
+    }
+
+    @Test
+    public void anonymousUser() {
+        when(authenticationInformationRetriever.getPrincipal()).thenReturn(null);
+        assertThat(keyGenerator.generate(this, method, "request"), is(keyGenerator.generate(this, method, "request")));
+    }
+}
@@ -5,7 +5,9 @@
 
 package com.hp.autonomy.frontend.find.idol.stats;
 
+import com.autonomy.aci.client.services.AciErrorException;
 import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.services.AciServiceException;
 import com.autonomy.aci.client.util.AciParameters;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
@@ -21,12 +23,16 @@ import com.hp.autonomy.types.idol.marshalling.ProcessorFactory;
 import com.hpe.bigdata.frontend.spring.authentication.AuthenticationInformationRetriever;
 import lombok.Data;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Matchers;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
 import org.xmlunit.builder.Input;
 import org.xmlunit.input.WhitespaceStrippedSource;
 import org.xmlunit.matchers.HasXPathMatcher;
@@ -40,6 +46,10 @@ import java.util.Collections;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.xmlunit.matchers.CompareMatcher.isIdenticalTo;
@@ -66,17 +76,29 @@ public class IdolStatsServiceTest {
     @Mock
     private StatsServerConfig statsServerConfig;
 
+    @Mock
+    private CounterService counterService;
+
+    @Mock
+    private GaugeService gaugeService;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private XmlMapper xmlMapper;
+    private StatsEventSpool spool;
     private IdolStatsService statsService;
 
     @Before
-    public void setUp() {
-        final XmlMapper xmlMapper = new XmlMapper();
+    public void setUp() throws IOException {
+        xmlMapper = new XmlMapper();
+        spool = new StatsEventSpool(temporaryFolder.getRoot().getPath(), "1M", "10M");
 
         when(configService.getConfig()).thenReturn(config);
         when(config.getStatsServer()).thenReturn(statsServerConfig);
         when(statsServerConfig.getEnabled()).thenReturn(true);
 
-        statsService = new IdolStatsService(aciService, processorFactory, xmlMapper, configService);
+        statsService = createStatsService(100, 10, IdolStatsService.OverflowPolicy.DROP_NEWEST);
     }
 
     @Test
@@ -141,6 +163,128 @@ public class IdolStatsServiceTest {
         assertThat(xml, HasXPathMatcher.hasXPath("events/find-event/timestamp"));
     }
 
+    @Test
+    public void dropsNewestEventsWhenFull() throws IOException {
+        statsService = createStatsService(2, 10, IdolStatsService.OverflowPolicy.DROP_NEWEST);
+
+        final String xml = submitEvent(Arrays.asList(new SimpleEvent("Steve", 1L), new SimpleEvent("Bob", 2L), new SimpleEvent("Jim", 3L)));
+
+        assertThat(xml, hasXPath("count(events/find-event)", equalTo("2")));
+        assertThat(xml, hasXPath("events/find-event[2]/username", equalTo("Bob")));
+        verify(counterService).increment(IdolStatsService.DROPPED_METRIC_NAME);
+    }
+
+    @Test
+    public void dropsOldestEventsWhenFull() throws IOException {
+        statsService = createStatsService(2, 10, IdolStatsService.OverflowPolicy.DROP_OLDEST);
+
+        final String xml = submitEvent(Arrays.asList(new SimpleEvent("Steve", 1L), new SimpleEvent("Bob", 2L), new SimpleEvent("Jim", 3L)));
+
+        assertThat(xml, hasXPath("events/find-event[1]/username", equalTo("Bob")));
+        assertThat(xml, hasXPath("events/find-event[2]/username", equalTo("Jim")));
+        verify(counterService).increment(IdolStatsService.DROPPED_METRIC_NAME);
+    }
+
+    @Test
+    public void sendsInBatches() {
+        statsService = createStatsService(10, 2, IdolStatsService.OverflowPolicy.DROP_NEWEST);
+
+        statsService.recordEvent(new SimpleEvent("Steve", 1L));
+        statsService.recordEvent(new SimpleEvent("Bob", 2L));
+        statsService.recordEvent(new SimpleEvent("Jim", 3L));
+        statsService.drainQueue();
+
+        // a full batch also triggers a flush in the background
+        verify(aciService, timeout(1000L).times(2)).executeAction(any(AciParameters.class), Matchers.anyObject());
+        verify(counterService, timeout(1000L).times(2)).increment(IdolStatsService.SENT_METRIC_NAME);
+    }
+
+    @Test
+    public void failedBatchesAreSpooled() throws IOException {
+        when(aciService.executeAction(any(AciParameters.class), Matchers.anyObject())).thenThrow(new AciServiceException("StatsServer unavailable"));
+
+        statsService.recordEvent(new SimpleEvent("Steve", 1L));
+        statsService.drainQueue();
+        statsService.recordEvent(new SimpleEvent("Bob", 2L));
+        statsService.drainQueue();
+
+        // the second drain is inside the backoff period, so spools without sending
+        verify(aciService, times(1)).executeAction(any(AciParameters.class), Matchers.anyObject());
+        verify(counterService).increment(IdolStatsService.FAILED_METRIC_NAME);
+        verify(counterService, times(2)).increment(IdolStatsService.SPOOLED_METRIC_NAME);
+        assertThat(spool.peek().getData(), hasXPath("events/find-event/username", equalTo("Steve")));
+    }
+
+    @Test
+    public void spooledBatchesAreReplayed() throws IOException {
+        final String spooledXml = xmlMapper.writeValueAsString(new Events(Collections.singletonList(new SimpleEvent("Steve", 1L))));
+        spool.append(spooledXml);
+
+        statsService.drainQueue();
+
+        final ArgumentCaptor<AciParameters> captor = ArgumentCaptor.forClass(AciParameters.class);
+        verify(aciService).executeAction(captor.capture(), Matchers.anyObject());
+        assertThat(captor.getValue().get("data"), equalTo(spooledXml));
+        assertThat(spool.isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void rejectedBatchDoesNotHoldUpOthers() throws IOException {
+        final String rejectedXml = xmlMapper.writeValueAsString(new Events(Collections.singletonList(new SimpleEvent("Steve", 1L))));
+        spool.append(rejectedXml);
+        when(aciService.executeAction(any(AciParameters.class), Matchers.anyObject())).thenThrow(new AciErrorException()).thenReturn(null);
+
+        statsService.recordEvent(new SimpleEvent("Bob", 2L));
+        statsService.drainQueue();
+
+        // StatsServer replied, so the new batch is sent straight away rather than after a backoff
+        verify(aciService, times(2)).executeAction(any(AciParameters.class), Matchers.anyObject());
+        verify(counterService).increment(IdolStatsService.SENT_METRIC_NAME);
+        assertThat(spool.peek().getData(), equalTo(rejectedXml));
+    }
+
+    @Test
+    public void rejectedSpooledBatchIsDroppedAfterRetries() throws IOException {
+        spool.append(xmlMapper.writeValueAsString(new Events(Collections.singletonList(new SimpleEvent("Steve", 1L)))));
+        when(aciService.executeAction(any(AciParameters.class), Matchers.anyObject())).thenThrow(new AciErrorException());
+
+        statsService.drainQueue();
+        statsService.drainQueue();
+        assertThat(spool.isEmpty(), equalTo(false));
+
+        statsService.drainQueue();
+        verify(aciService, times(3)).executeAction(any(AciParameters.class), Matchers.anyObject());
+        verify(counterService).increment(IdolStatsService.REJECTED_METRIC_NAME);
+        assertThat(spool.isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void backgroundFlushDoesNotReplaySpool() throws IOException {
+        statsService = createStatsService(10, 1, IdolStatsService.OverflowPolicy.DROP_NEWEST);
+        spool.append(xmlMapper.writeValueAsString(new Events(Collections.singletonList(new SimpleEvent("Steve", 1L)))));
+
+        statsService.recordEvent(new SimpleEvent("Bob", 2L));
+
+        final ArgumentCaptor<AciParameters> captor = ArgumentCaptor.forClass(AciParameters.class);
+        verify(aciService, timeout(1000L)).executeAction(captor.capture(), Matchers.anyObject());
+        assertThat(captor.getValue().get("data"), hasXPath("events/find-event/username", equalTo("Bob")));
+        assertThat(spool.isEmpty(), equalTo(false));
+    }
+
+    @Test
+    public void queuedEventsAreSpooledOnShutdown() throws IOException {
+        statsService.recordEvent(new SimpleEvent("Steve", 1L));
+
+        statsService.destroy();
+
+        verify(aciService, never()).executeAction(any(AciParameters.class), Matchers.anyObject());
+        assertThat(spool.peek().getData(), hasXPath("events/find-event/username", equalTo("Steve")));
+    }
+
+    private IdolStatsService createStatsService(final int queueSize, final int batchSize, final IdolStatsService.OverflowPolicy overflowPolicy) {
+        return new IdolStatsService(aciService, processorFactory, new StatsEventEncoder(xmlMapper, "1M"), configService, counterService, gaugeService, spool, queueSize, batchSize, 2, 10, overflowPolicy);
+    }
+
     private String submitEvent(final Event event) {
         return submitEvent(Collections.singletonList(event));
     }
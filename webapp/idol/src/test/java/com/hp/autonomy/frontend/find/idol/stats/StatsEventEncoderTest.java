@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.idol.stats;
+
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
+import com.hp.autonomy.frontend.find.core.stats.Event;
+import lombok.Data;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.xmlunit.matchers.CompareMatcher.isIdenticalTo;
+import static org.xmlunit.matchers.EvaluateXPathMatcher.hasXPath;
+
+public class StatsEventEncoderTest {
+    private XmlMapper xmlMapper;
+
+    @Before
+    public void setUp() {
+        xmlMapper = new XmlMapper();
+    }
+
+    @Test
+    public void matchesEventsSerialization() throws IOException {
+        final List<Event> events = createEvents(10000);
+        final Queue<Event> queue = new ArrayDeque<>(events);
+
+        final String xml = new StatsEventEncoder(xmlMapper, "10M").encode(queue, events.size());
+
+        assertThat(xml, isIdenticalTo(xmlMapper.writeValueAsString(new Events(events))));
+        assertThat(queue.isEmpty(), is(true));
+    }
+
+    @Test
+    public void stopsAtMaxEvents() throws IOException {
+        final Queue<Event> queue = new ArrayDeque<>(createEvents(5));
+
+        final String xml = new StatsEventEncoder(xmlMapper, "1M").encode(queue, 3);
+
+        assertThat(xml, hasXPath("count(events/find-event)", equalTo("3")));
+        assertThat(queue.size(), is(2));
+    }
+
+    @Test
+    public void stopsAtMaxSize() throws IOException {
+        final Queue<Event> queue = new ArrayDeque<>(createEvents(100));
+        final StatsEventEncoder encoder = new StatsEventEncoder(xmlMapper, "1K");
+
+        int batches = 0;
+        int events = 0;
+        String xml;
+
+        while ((xml = encoder.encode(queue, 100)) != null) {
+            batches++;
+            events += countEvents(xml);
+        }
+
+        assertThat(batches > 1, is(true));
+        assertThat(events, is(100));
+    }
+
+    @Test
+    public void emptyQueue() throws IOException {
+        assertThat(new StatsEventEncoder(xmlMapper, "1M").encode(new ArrayDeque<>(), 10), is(nullValue()));
+    }
+
+    private static int countEvents(final String xml) {
+        return xml.split("<find-event>", -1).length - 1;
+    }
+
+    private static List<Event> createEvents(final int count) {
+        final List<Event> events = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            events.add(new SimpleEvent("user" + i, i));
+        }
+
+        return events;
+    }
+
+    @Data
+    @JacksonXmlRootElement(localName = "simple-event")
+    private static class SimpleEvent implements Event {
+        private final String username;
+        private final long timestamp;
+
+        @Override
+        public String getType() {
+            return "simple";
+        }
+    }
+}
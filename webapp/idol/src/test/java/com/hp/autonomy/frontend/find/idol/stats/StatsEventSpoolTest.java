@@ -0,0 +1,177 @@
+/*
+ * Copyright 2017 Hewlett-Packard Enterprise Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.find.idol.stats;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.arrayWithSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class StatsEventSpoolTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void batchesAreReadInOrder() throws IOException {
+        final StatsEventSpool spool = createSpool("1K", "1M");
+        spool.append("<events>1</events>");
+        spool.append("<events>2</events>");
+
+        assertThat(spool.peek().getData(), is("<events>1</events>"));
+        assertThat(spool.peek().getData(), is("<events>1</events>"));
+        spool.acknowledge(spool.peek());
+        assertThat(spool.peek().getData(), is("<events>2</events>"));
+        spool.acknowledge(spool.peek());
+
+        assertThat(spool.peek(), is(nullValue()));
+        assertThat(spool.isEmpty(), is(true));
+    }
+
+    @Test
+    public void positionSurvivesRestart() throws IOException {
+        final StatsEventSpool spool = createSpool("1K", "1M");
+        spool.append("<events>1</events>");
+        spool.append("<events>2</events>");
+        spool.acknowledge(spool.peek());
+
+        final StatsEventSpool restartedSpool = createSpool("1K", "1M");
+        assertThat(restartedSpool.peek().getData(), is("<events>2</events>"));
+
+        restartedSpool.append("<events>3</events>");
+        restartedSpool.acknowledge(restartedSpool.peek());
+        assertThat(restartedSpool.peek().getData(), is("<events>3</events>"));
+    }
+
+    @Test
+    public void acknowledgedSegmentsAreDeleted() throws IOException {
+        final StatsEventSpool spool = createSpool("64", "1M");
+
+        for (int i = 0; i < 10; i++) {
+            spool.append("<events>" + i + "</events>");
+        }
+
+        assertThat(segmentFiles().length > 1, is(true));
+
+        StatsEventSpool.SpooledBatch batch;
+
+        while ((batch = spool.peek()) != null) {
+            spool.acknowledge(batch);
+        }
+
+        assertThat(segmentFiles(), arrayWithSize(1));
+    }
+
+    @Test
+    public void oldestSegmentsAreDroppedWhenFull() throws IOException {
+        final StatsEventSpool spool = createSpool("64", "256");
+
+        for (int i = 0; i < 20; i++) {
+            spool.append("<events>" + i + "</events>");
+        }
+
+        assertThat(spool.getSize(), is(lessThanOrEqualTo(256L)));
+        assertThat(spool.peek().getData(), is(not("<events>0</events>")));
+    }
+
+    @Test
+    public void largeBatchesGetTheirOwnSegment() throws IOException {
+        final StatsEventSpool spool = createSpool("64", "1M");
+        final String largeBatch = "<events>" + new String(new char[500]).replace('\0', 'x') + "</events>";
+
+        spool.append(largeBatch);
+
+        assertThat(spool.peek().getData(), is(largeBatch));
+    }
+
+    @Test
+    public void batchesDroppedAfterPeekAreNotAcknowledged() throws IOException {
+        final StatsEventSpool spool = createSpool("64", "128");
+        spool.append("<events>0</events>");
+        spool.append("<events>1</events>");
+
+        final StatsEventSpool.SpooledBatch batch = spool.peek();
+
+        // filling the spool drops the segment holding the batch which was read
+        for (int i = 2; i < 6; i++) {
+            spool.append("<events>" + i + "</events>");
+        }
+
+        spool.acknowledge(batch);
+        assertThat(spool.peek().getData(), is("<events>2</events>"));
+    }
+
+    @Test
+    public void nothingIsCreatedUntilFirstUse() throws IOException {
+        final File directory = new File(temporaryFolder.getRoot(), "spool");
+        final StatsEventSpool spool = new StatsEventSpool(directory.getPath(), "1K", "1M");
+
+        assertThat(directory.exists(), is(false));
+        assertThat(spool.getSize(), is(0L));
+
+        spool.append("<events>1</events>");
+        assertThat(directory.exists(), is(true));
+    }
+
+    @Test
+    public void corruptRecordsSkipTheRestOfTheirSegment() throws IOException {
+        final StatsEventSpool spool = createSpool("64", "1M");
+
+        for (int i = 0; i < 10; i++) {
+            spool.append("<events>" + i + "</events>");
+        }
+
+        final File[] segmentFiles = segmentFiles();
+        Arrays.sort(segmentFiles);
+        writeLength(segmentFiles[0], 0, -7);
+
+        final StatsEventSpool restartedSpool = createSpool("64", "1M");
+        assertThat(restartedSpool.peek().getData(), is("<events>2</events>"));
+    }
+
+    @Test
+    public void corruptRecordInWriteSegmentIsSkipped() throws IOException {
+        final StatsEventSpool spool = createSpool("1K", "1M");
+        spool.append("<a/>");
+        spool.append("<b/>");
+
+        // the second record's length claims more bytes than the segment holds
+        writeLength(segmentFiles()[0], Integer.BYTES + "<a/>".length(), Integer.MAX_VALUE);
+
+        final StatsEventSpool restartedSpool = createSpool("1K", "1M");
+        assertThat(restartedSpool.peek().getData(), is("<a/>"));
+        restartedSpool.acknowledge(restartedSpool.peek());
+        assertThat(restartedSpool.peek(), is(nullValue()));
+
+        restartedSpool.append("<c/>");
+        assertThat(restartedSpool.peek().getData(), is("<c/>"));
+    }
+
+    private StatsEventSpool createSpool(final String segmentSize, final String maxSize) {
+        return new StatsEventSpool(temporaryFolder.getRoot().getPath(), segmentSize, maxSize);
+    }
+
+    private void writeLength(final File segmentFile, final int offset, final int length) throws IOException {
+        try (final RandomAccessFile file = new RandomAccessFile(segmentFile, "rw")) {
+            file.seek(offset);
+            file.writeInt(length);
+        }
+    }
+
+    private File[] segmentFiles() {
+        return temporaryFolder.getRoot().listFiles((dir, name) -> name.startsWith("segment-"));
+    }
+}